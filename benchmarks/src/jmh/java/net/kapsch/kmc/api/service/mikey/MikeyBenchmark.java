@@ -0,0 +1,143 @@
+package net.kapsch.kmc.api.service.mikey;
+
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import net.kapsch.kmc.api.service.mikey.tables.IDRole;
+import net.kapsch.kmc.api.service.mikey.tables.IDType;
+import net.kapsch.kmc.api.service.mikey.tables.NextPayload;
+import net.kapsch.kmc.api.service.mikey.tables.SRTPDefaultProfile;
+import net.kapsch.kmc.api.service.mikey.tables.SType;
+import net.kapsch.kms.api.mikeysakke.crypto.RfcTestVectors;
+import net.kapsch.kms.api.time.TimeUtils;
+
+/**
+ * Encoding and decoding of a signed MIKEY-SAKKE I_MESSAGE carrying the RFC 6508 SED and
+ * the RFC 6507 signature, laid out as Client.createMikeySakkeIMessage does.
+ */
+@State(Scope.Benchmark)
+public class MikeyBenchmark {
+
+	/**
+	 * The I_MESSAGE.
+	 */
+	private MikeySakkeIMessage iMessage;
+
+	/**
+	 * The encoded I_MESSAGE.
+	 */
+	private byte[] encoded;
+
+	/**
+	 * The encoded I_MESSAGE in a direct buffer, as received from a datagram channel.
+	 */
+	private ByteBuffer directEncoded;
+
+	/**
+	 * A direct buffer to encode the I_MESSAGE into, as sent on a datagram channel.
+	 */
+	private ByteBuffer direct;
+
+	/**
+	 * Template for I_MESSAGEs like the one above.
+	 */
+	private MikeySakkeIMessageTemplate template;
+
+	/**
+	 * Builds and encodes the I_MESSAGE.
+	 *
+	 * @throws MikeyException if the I_MESSAGE cannot be built
+	 */
+	@Setup
+	public void setup() throws MikeyException {
+		this.iMessage = buildIMessage(new byte[PayloadRAND.DEFAULT_RAND_LEN]);
+		this.iMessage.addPayload(
+				new PayloadSIGN(SType.ECCSI, RfcTestVectors.SIGNATURE.getOctets()));
+		this.encoded = this.iMessage.getEncoded();
+		this.directEncoded = ByteBuffer.allocateDirect(this.encoded.length);
+		this.directEncoded.put(this.encoded).flip();
+		this.direct = ByteBuffer.allocateDirect(this.iMessage.encodedLength());
+		this.template = new MikeySakkeIMessageTemplate("sip:initiator@example.org",
+				"kms.example.org", "kms.example.org",
+				SRTPDefaultProfile.getPrivateCallPolicyParams(), (byte) 1);
+	}
+
+	/**
+	 * Builds the unsigned I_MESSAGE from scratch.
+	 *
+	 * @param rand - the value of the RAND payload
+	 * @return the I_MESSAGE
+	 * @throws MikeyException if the I_MESSAGE cannot be built
+	 */
+	private static MikeySakkeIMessage buildIMessage(byte[] rand) throws MikeyException {
+		PayloadHDR payloadHDR = new PayloadHDR(1, new GenericId());
+		PayloadT payloadT = new PayloadT(
+				TimeUtils.fromNtpEpochTo(LocalDateTime.now()).ntpValue());
+		PayloadRAND payloadRAND = new PayloadRAND(NextPayload.IDR, rand);
+		PayloadIDR payloadIDRi = new PayloadIDR(NextPayload.IDR, IDRole.IDR_I,
+				IDType.URI, "sip:initiator@example.org".getBytes());
+		PayloadIDR payloadIDRr = new PayloadIDR(NextPayload.IDR, IDRole.IDR_R,
+				IDType.URI, "sip:responder@example.org".getBytes());
+		PayloadIDR payloadIDRkmsi = new PayloadIDR(NextPayload.IDR, IDRole.IDR_KMS_I,
+				IDType.URI, "kms.example.org".getBytes());
+		PayloadIDR payloadIDRkmsr = new PayloadIDR(NextPayload.SP, IDRole.IDR_KMS_R,
+				IDType.URI, "kms.example.org".getBytes());
+		PolicyParam[] policyParams = SRTPDefaultProfile.getPrivateCallPolicyParams();
+		PayloadSP payloadSP = new PayloadSP(policyParams,
+				PayloadSP.calculateLength(policyParams));
+		PayloadSAKKE payloadSAKKE = new PayloadSAKKE(NextPayload.SIGN, (byte) 1,
+				(byte) 1, RfcTestVectors.SED.getOctets());
+
+		Payload[] payloads = { payloadHDR, payloadT, payloadRAND, payloadIDRi,
+				payloadIDRr, payloadIDRkmsi, payloadIDRkmsr, payloadSP, payloadSAKKE };
+		return new MikeySakkeIMessage(payloads);
+	}
+
+	/**
+	 * Builds and encodes an unsigned I_MESSAGE from scratch, as
+	 * Client.createMikeySakkeIMessage did before it used a template.
+	 *
+	 * @return the encoded I_MESSAGE
+	 * @throws MikeyException if the I_MESSAGE cannot be built
+	 */
+	@Benchmark
+	public byte[] build() throws MikeyException {
+		byte[] rand = new byte[PayloadRAND.DEFAULT_RAND_LEN];
+		new SecureRandom().nextBytes(rand);
+		return buildIMessage(rand).getEncodedWithoutSignature();
+	}
+
+	@Benchmark
+	public byte[] buildFromTemplate() throws MikeyException {
+		return this.template.create("sip:responder@example.org",
+				RfcTestVectors.SED.getOctets(), 1).getEncodedWithoutSignature();
+	}
+
+	@Benchmark
+	public byte[] getEncoded() {
+		return this.iMessage.getEncoded();
+	}
+
+	@Benchmark
+	public ByteBuffer encodeDirect() {
+		this.direct.clear();
+		this.iMessage.encode(this.direct);
+		return this.direct;
+	}
+
+	@Benchmark
+	public MikeySakkeIMessage decode() throws MikeyException {
+		return MikeySakkeIMessage.decode(this.encoded);
+	}
+
+	@Benchmark
+	public MikeySakkeIMessage decodeDirect() throws MikeyException {
+		return MikeySakkeIMessage.decode(this.directEncoded.duplicate());
+	}
+}
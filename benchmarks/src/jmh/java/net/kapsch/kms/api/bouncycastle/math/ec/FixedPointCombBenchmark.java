@@ -0,0 +1,89 @@
+package net.kapsch.kms.api.bouncycastle.math.ec;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import net.kapsch.kms.api.mikeysakke.crypto.EccsiParameterSet;
+import net.kapsch.kms.api.mikeysakke.crypto.Sakke;
+
+/**
+ * Cost of the multiplications by secret scalars: WNAF, the fixed-point comb and the
+ * cache-safe fixed-point comb used in constant-time mode, for a base point whose tables
+ * are already built.
+ */
+@State(Scope.Benchmark)
+public class FixedPointCombBenchmark {
+
+	/**
+	 * The curve, P-256 of ECCSI or the curve of SAKKE parameter set 1.
+	 */
+	@Param({ "P256", "SAKKE" })
+	private String curve;
+
+	/**
+	 * The base point, the generator of the curve.
+	 */
+	private ECPoint point;
+
+	/**
+	 * The scalar, a random value below the group order.
+	 */
+	private BigInteger scalar;
+
+	/**
+	 * The WNAF multiplier.
+	 */
+	private final ECMultiplier wnaf = new WNafL2RMultiplier();
+
+	/**
+	 * The fixed-point comb multiplier.
+	 */
+	private final ECMultiplier comb = new FixedPointCombMultiplier();
+
+	/**
+	 * The cache-safe fixed-point comb multiplier.
+	 */
+	private final ECMultiplier cacheSafeComb = new CacheSafeFixedPointCombMultiplier();
+
+	/**
+	 * Creates the scalar from a fixed seed and builds the tables of the point.
+	 */
+	@Setup
+	public void setup() {
+		BigInteger order;
+		if ("P256".equals(this.curve)) {
+			this.point = EccsiParameterSet.G;
+			order = EccsiParameterSet.q;
+		}
+		else {
+			this.point = Sakke.getParamSet(1).pointP();
+			order = Sakke.getParamSet(1).q();
+		}
+		this.scalar = new BigInteger(order.bitLength(), new Random(1)).mod(order);
+
+		wNaf();
+		comb();
+		cacheSafeComb();
+	}
+
+	@Benchmark
+	public ECPoint wNaf() {
+		return this.wnaf.multiply(this.point, this.scalar).normalize();
+	}
+
+	@Benchmark
+	public ECPoint comb() {
+		return this.comb.multiply(this.point, this.scalar).normalize();
+	}
+
+	@Benchmark
+	public ECPoint cacheSafeComb() {
+		return this.cacheSafeComb.multiply(this.point, this.scalar).normalize();
+	}
+}
@@ -0,0 +1,97 @@
+package net.kapsch.kms.api.bouncycastle.math.ec;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import net.kapsch.kms.api.mikeysakke.crypto.EccsiParameterSet;
+import net.kapsch.kms.api.mikeysakke.crypto.Sakke;
+
+/**
+ * Interleaved WNAF against Pippenger's bucket method for sums of count multiples with
+ * full-length scalars, used to choose ECAlgorithms.PIPPENGER_THRESHOLD.
+ */
+@State(Scope.Benchmark)
+public class SumOfMultipliesBenchmark {
+
+	/**
+	 * The curve, P-256 of ECCSI or the curve of SAKKE parameter set 1.
+	 */
+	@Param({ "P256", "SAKKE" })
+	private String curve;
+
+	/**
+	 * The number of terms.
+	 */
+	@Param({ "3", "8", "16", "24", "32", "48", "64", "128", "256" })
+	private int count;
+
+	/**
+	 * The points, distinct random multiples of the generator, in affine form.
+	 */
+	private ECPoint[] points;
+
+	/**
+	 * The scalars, random values below the group order.
+	 */
+	private BigInteger[] scalars;
+
+	/**
+	 * Creates the points and scalars from a fixed seed.
+	 */
+	@Setup
+	public void setup() {
+		ECPoint generator;
+		BigInteger order;
+		if ("P256".equals(this.curve)) {
+			generator = EccsiParameterSet.G;
+			order = EccsiParameterSet.q;
+		}
+		else {
+			generator = Sakke.getParamSet(1).pointP();
+			order = Sakke.getParamSet(1).q();
+		}
+
+		Random random = new Random(1);
+		this.points = new ECPoint[this.count];
+		this.scalars = new BigInteger[this.count];
+		for (int i = 0; i < this.count; i++) {
+			this.points[i] = generator
+					.multiply(new BigInteger(order.bitLength(), random).mod(order))
+					.normalize();
+			this.scalars[i] = new BigInteger(order.bitLength(), random).mod(order);
+		}
+	}
+
+	@Benchmark
+	public ECPoint interleavedWNaf() {
+		return ECAlgorithms.implSumOfMultiplies(freshPoints(), this.scalars).normalize();
+	}
+
+	@Benchmark
+	public ECPoint pippenger() {
+		return ECAlgorithms.implSumOfMultipliesPippenger(freshPoints(), this.scalars)
+				.normalize();
+	}
+
+	/**
+	 * Copies the points, so that no WNAF table cached by an earlier invocation is
+	 * reused.
+	 *
+	 * @return New instances of the points
+	 */
+	private ECPoint[] freshPoints() {
+		ECPoint[] fresh = new ECPoint[this.count];
+		for (int i = 0; i < this.count; i++) {
+			ECPoint p = this.points[i];
+			fresh[i] = p.getCurve().createRawPoint(p.getRawXCoord(), p.getRawYCoord(),
+					false);
+		}
+		return fresh;
+	}
+}
@@ -0,0 +1,80 @@
+package net.kapsch.kms.api.encryption.aes;
+
+import javax.crypto.SecretKey;
+
+import org.bouncycastle.util.encoders.Hex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * AES-CBC encryption and decryption and the HMAC-SHA256 of a 256 byte message, the size
+ * of the key material wrapped for key provisioning.
+ */
+@State(Scope.Benchmark)
+public class AesBenchmark {
+
+	/**
+	 * Length in bytes of the encrypted message.
+	 */
+	private static final int MESSAGE_LENGTH = 256;
+
+	/**
+	 * The AES key.
+	 */
+	private SecretKey key;
+
+	/**
+	 * The HMAC key.
+	 */
+	private SecretKey macKey;
+
+	/**
+	 * The initialisation vector.
+	 */
+	private byte[] iv;
+
+	/**
+	 * The plaintext.
+	 */
+	private byte[] plaintext;
+
+	/**
+	 * The plaintext encrypted with key and iv.
+	 */
+	private byte[] cipherText;
+
+	/**
+	 * Prepares the keys and messages.
+	 *
+	 * @throws Exception if the JCE provider does not support AES or HMAC-SHA256
+	 */
+	@Setup
+	public void setup() throws Exception {
+		this.key = Aes.getSecretKey(Hex.decode("06a9214036b8a15b512e03d534120006"));
+		this.macKey = Aes.getHMACSecretKey(Hex.decode(
+				"000102030405060708090A0B0C0D0E0F101112131415161718191A1B1C1D1E1F"));
+		this.iv = Hex.decode("3dafba429d9eb430b422da802c9fac41");
+		this.plaintext = new byte[MESSAGE_LENGTH];
+		for (int i = 0; i < MESSAGE_LENGTH; i++) {
+			this.plaintext[i] = (byte) i;
+		}
+		this.cipherText = AesCbcEncryption.encrypt(this.plaintext, this.key, this.iv);
+	}
+
+	@Benchmark
+	public byte[] encrypt() throws Exception {
+		return AesCbcEncryption.encrypt(this.plaintext, this.key, this.iv);
+	}
+
+	@Benchmark
+	public byte[] decrypt() throws Exception {
+		return AesCbcEncryption.decrypt(this.cipherText, this.key, this.iv);
+	}
+
+	@Benchmark
+	public byte[] generateMAC() throws Exception {
+		return Aes.generateMAC(this.cipherText, this.macKey);
+	}
+}
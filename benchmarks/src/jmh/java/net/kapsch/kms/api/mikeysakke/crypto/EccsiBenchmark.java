@@ -0,0 +1,94 @@
+package net.kapsch.kms.api.mikeysakke.crypto;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import net.kapsch.kms.api.mikeysakke.utils.OctetString;
+
+/**
+ * ECCSI key validation, signing and verification (RFC 6507 section 5) on the RFC test
+ * data.
+ */
+@State(Scope.Benchmark)
+public class EccsiBenchmark {
+
+	/**
+	 * Number of signatures verified by one batch.
+	 */
+	private static final int BATCH_SIZE = 16;
+
+	/**
+	 * The validated signing keys of the RFC.
+	 */
+	private EccsiSigningContext signingContext;
+
+	/**
+	 * The value HS computed by validating the RFC signing keys.
+	 */
+	private OctetString hs;
+
+	/**
+	 * The RFC message, repeated for batch verification.
+	 */
+	private OctetString[] messages;
+
+	/**
+	 * The RFC signature, repeated for batch verification.
+	 */
+	private OctetString[] signatures;
+
+	/**
+	 * The RFC identifier, repeated for batch verification.
+	 */
+	private OctetString[] identifiers;
+
+	/**
+	 * Validates the RFC signing keys and builds the batch.
+	 */
+	@Setup
+	public void setup() {
+		this.signingContext = new EccsiSigningContext(RfcTestVectors.IDENTIFIER,
+				RfcTestVectors.PVT, RfcTestVectors.KPAK, RfcTestVectors.SSK);
+		this.hs = this.signingContext.getHS();
+		this.messages = new OctetString[BATCH_SIZE];
+		this.signatures = new OctetString[BATCH_SIZE];
+		this.identifiers = new OctetString[BATCH_SIZE];
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			this.messages[i] = RfcTestVectors.MESSAGE;
+			this.signatures[i] = RfcTestVectors.SIGNATURE;
+			this.identifiers[i] = RfcTestVectors.IDENTIFIER;
+		}
+	}
+
+	@Benchmark
+	public boolean validateSigningKeys() {
+		return Eccsi.validateSigningKeys(RfcTestVectors.IDENTIFIER, RfcTestVectors.PVT,
+				RfcTestVectors.KPAK, RfcTestVectors.SSK, new OctetString());
+	}
+
+	@Benchmark
+	public OctetString sign() {
+		return Eccsi.sign(RfcTestVectors.MESSAGE, RfcTestVectors.PVT,
+				RfcTestVectors.SSK, this.hs, RfcTestVectors.J_GENERATOR);
+	}
+
+	@Benchmark
+	public OctetString signWithContext() {
+		return this.signingContext.sign(RfcTestVectors.MESSAGE,
+				RfcTestVectors.J_GENERATOR);
+	}
+
+	@Benchmark
+	public boolean verify() {
+		return Eccsi.verify(RfcTestVectors.MESSAGE, RfcTestVectors.SIGNATURE,
+				RfcTestVectors.IDENTIFIER, RfcTestVectors.KPAK);
+	}
+
+	@Benchmark
+	public boolean[] verifyBatch() {
+		return Eccsi.verifyBatch(this.messages, this.signatures, this.identifiers,
+				RfcTestVectors.KPAK);
+	}
+}
@@ -0,0 +1,110 @@
+package net.kapsch.kms.api.mikeysakke.crypto;
+
+import java.math.BigInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import net.kapsch.kms.api.bouncycastle.math.ec.ECPoint;
+import net.kapsch.kms.api.mikeysakke.utils.Fp2;
+import net.kapsch.kms.api.mikeysakke.utils.ProjFp;
+
+/**
+ * The Tate-Lichtenbaum pairing and the exponentiation in PF_p of SAKKE parameter set 1,
+ * on the points of the RFC 6508 test data.
+ */
+@State(Scope.Benchmark)
+public class PairingBenchmark {
+
+	/**
+	 * The SAKKE parameter set 1.
+	 */
+	private SakkeParameterSet params;
+
+	/**
+	 * The point R of the RFC SED.
+	 */
+	private ECPoint pointR;
+
+	/**
+	 * The Receiver Secret Key of the RFC.
+	 */
+	private ECPoint rsk;
+
+	/**
+	 * The Miller loop lines of the Receiver Secret Key.
+	 */
+	private FixedArgumentPairing rskPairing;
+
+	/**
+	 * The pairing generator g as an element of PF_p.
+	 */
+	private ProjFp g;
+
+	/**
+	 * The pairing generator g as a mutable element of F_p^2, copied before each
+	 * exponentiation.
+	 */
+	private Fp2 gMutable;
+
+	/**
+	 * The scratch space of the mutable exponentiation.
+	 */
+	private Fp2.Scratch scratch;
+
+	/**
+	 * The exponent r of the RFC encapsulation.
+	 */
+	private BigInteger r;
+
+	/**
+	 * Decodes the points of the RFC test data.
+	 */
+	@Setup
+	public void setup() {
+		this.params = Sakke.getParamSet(1);
+		byte[] sed = RfcTestVectors.SED.getOctets();
+		byte[] encodedR = new byte[2 * this.params.pLengthBytes() + 1];
+		System.arraycopy(sed, 0, encodedR, 0, encodedR.length);
+		this.pointR = this.params.curve().decodePoint(encodedR);
+		this.rsk = this.params.curve().decodePoint(RfcTestVectors.RSK.getOctets());
+		this.rskPairing = FixedArgumentPairing.precompute(this.rsk, this.params);
+		this.g = new ProjFp(BigInteger.ONE, this.params.g(), this.params.p());
+		this.gMutable = new Fp2(BigInteger.ONE, this.params.g());
+		this.scratch = new Fp2.Scratch();
+		this.r = new BigInteger("13EE3E1B8DAC5DB168B1CEB32F0566A4"
+				+ "C273693F78BAFFA2A2EE6A686E6BD90F", 16);
+	}
+
+	@Benchmark
+	public BigInteger computePairing() {
+		return Sakke.computePairing(this.pointR, this.rsk, this.params);
+	}
+
+	@Benchmark
+	public FixedArgumentPairing precomputeFixedArgument() {
+		return FixedArgumentPairing.precompute(this.rsk, this.params);
+	}
+
+	@Benchmark
+	public BigInteger pairFixedArgument() {
+		return this.rskPairing.pair(this.pointR);
+	}
+
+	@Benchmark
+	public ProjFp modPow() {
+		return this.g.modPow(this.r);
+	}
+
+	@Benchmark
+	public Fp2 modPowMutable() {
+		return new Fp2(this.gMutable).modPow(this.r, this.scratch);
+	}
+
+	@Benchmark
+	public Fp2 powG() {
+		return this.params.powG(this.r);
+	}
+}
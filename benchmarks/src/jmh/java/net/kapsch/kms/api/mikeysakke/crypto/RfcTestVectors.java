@@ -0,0 +1,127 @@
+package net.kapsch.kms.api.mikeysakke.crypto;
+
+import net.kapsch.kms.api.mikeysakke.utils.OctetString;
+import net.kapsch.kms.api.mikeysakke.utils.RandomGenerator;
+
+/**
+ * Test data of RFC 6507 (ECCSI) and RFC 6508 (SAKKE) Appendix A, the same as used by
+ * EccsiUnitTest and SakkeUnitTest.
+ */
+public final class RfcTestVectors {
+
+	/**
+	 * The identifier of the signer and of the recipient in both RFCs.
+	 */
+	public static final OctetString IDENTIFIER = OctetString
+			.fromAscii("2011-02\0tel:+447700900123\0");
+
+	/**
+	 * The KMS Public Authentication Key, RFC 6507.
+	 */
+	public static final OctetString KPAK = OctetString.fromHex("04"
+			+ "50D4670BDE75244F28D2838A0D25558A" + "7A72686D4522D4C8273FB6442AEBFA93"
+			+ "DBDD37551AFD263B5DFD617F3960C65A" + "8C298850FF99F20366DCE7D4367217F4");
+
+	/**
+	 * The Public Validation Token, RFC 6507.
+	 */
+	public static final OctetString PVT = OctetString.fromHex("04"
+			+ "758A142779BE89E829E71984CB40EF75" + "8CC4AD775FC5B9A3E1C8ED52F6FA36D9"
+			+ "A79D247692F4EDA3A6BDAB77D6AA6474" + "A464AE4934663C5265BA7018BA091F79");
+
+	/**
+	 * The Secret Signing Key, RFC 6507.
+	 */
+	public static final OctetString SSK = OctetString
+			.fromHex("23F374AE1F4033F3E9DBDDAAEF20F4CF0B86BBD5A138A5AE9E7E006B34489A0D");
+
+	/**
+	 * The signed message, RFC 6507.
+	 */
+	public static final OctetString MESSAGE = OctetString.fromAscii("message\0");
+
+	/**
+	 * The signature of the message, RFC 6507.
+	 */
+	public static final OctetString SIGNATURE = OctetString.fromHex(
+			"269D4C8FDEB66A74E4EF8C0D5DCC597D" + "DFE6029C2AFFC4936008CD2CC1045D81"
+					+ "E09B528D0EF8D6DF1AA3ECBF80110CFC"
+					+ "EC9FC68252CEBB679F4134846940CCFD" + "04"
+					+ "758A142779BE89E829E71984CB40EF75"
+					+ "8CC4AD775FC5B9A3E1C8ED52F6FA36D9"
+					+ "A79D247692F4EDA3A6BDAB77D6AA6474"
+					+ "A464AE4934663C5265BA7018BA091F79");
+
+	/**
+	 * The KMS Public Key, RFC 6508.
+	 */
+	public static final OctetString KMS_PUBLIC_Z = OctetString.fromHex("04"
+			+ "5958EF1B1679BF099B3A030DF255AA6A" + "23C1D8F143D4D23F753E69BD27A832F3"
+			+ "8CB4AD53DDEF4260B0FE8BB45C4C1FF5" + "10EFFE300367A37B61F701D914AEF097"
+			+ "24825FA0707D61A6DFF4FBD7273566CD" + "DE352A0B04B7C16A78309BE640697DE7"
+			+ "47613A5FC195E8B9F328852A579DB8F9" + "9B1D0034479EA9C5595F47C4B2F54FF2"
+			+ "1508D37514DCF7A8E143A6058C09A6BF" + "2C9858CA37C258065AE6BF7532BC8B5B"
+			+ "63383866E0753C5AC0E72709F8445F2E" + "6178E065857E0EDA10F68206B63505ED"
+			+ "87E534FB2831FF957FB7DC619DAE6130" + "1EEACC2FDA3680EA4999258A833CEA8F"
+			+ "C67C6D19487FB449059F26CC8AAB655A" + "B58B7CC796E24E9A394095754F5F8BAE");
+
+	/**
+	 * The Receiver Secret Key, RFC 6508.
+	 */
+	public static final OctetString RSK = OctetString.fromHex("04"
+			+ "93AF67E5007BA6E6A80DA793DA300FA4" + "B52D0A74E25E6E7B2B3D6EE9D18A9B5C"
+			+ "5023597BD82D8062D34019563BA1D25C" + "0DC56B7B979D74AA50F29FBF11CC2C93"
+			+ "F5DFCA615E609279F6175CEADB00B58C" + "6BEE1E7A2A47C4F0C456F05259A6FA94"
+			+ "A634A40DAE1DF593D4FECF688D5FC678" + "BE7EFC6DF3D6835325B83B2C6E69036B"
+			+ "155F0A27241094B04BFB0BDFAC6C670A" + "65C325D39A069F03659D44CA27D3BE8D"
+			+ "F311172B554160181CBE94A2A783320C" + "ED590BC42644702CF371271E496BF20F"
+			+ "588B78A1BC01ECBB6559934BDD2FB65D" + "2884318A33D1A42ADF5E33CC5800280B"
+			+ "28356497F87135BAB9612A1726042440" + "9AC15FEE996B744C332151235DECB0F5");
+
+	/**
+	 * The SAKKE Encapsulated Data, RFC 6508.
+	 */
+	public static final OctetString SED = OctetString.fromHex("04"
+			+ "44E8AD44AB8592A6A5A3DDCA5CF896C7" + "18043606A01D650DEF37A01F37C228C3"
+			+ "32FC317354E2C274D4DAF8AD001054C7" + "6CE57971C6F4486D5723043261C506EB"
+			+ "F5BE438F53DE04F067C776E0DD3B71A6" + "290133283725A532F21AF145126DC1D7"
+			+ "77ECC27BE50835BD28098B8A73D9F801" + "D893793A41FF5C49B87E79F2BE4D56CE"
+			+ "557E134AD85BB1D4B9CE4F8BE4B08A12" + "BABF55B1D6F1D7A638019EA28E15AB1C"
+			+ "9F76375FDD1210D4F4351B9A009486B7" + "F3ED46C965DED2D80DADE4F38C6721D5"
+			+ "2C3AD103A10EBD2959248B4EF006836B" + "F097448E6107C9EDEE9FB704823DF199"
+			+ "F832C905AE45F8A247A072D8EF729EAB" + "C5E27574B07739B34BE74A532F747B86"
+			+ "89E0BC661AA1E91638E6ACC84E496507");
+
+	/**
+	 * The Shared Secret Value, RFC 6508.
+	 */
+	public static final OctetString SSV = OctetString
+			.fromHex("123456789ABCDEF0123456789ABCDEF0");
+
+	/**
+	 * Random number generator returning the SSV of RFC 6508.
+	 */
+	public static final RandomGenerator SSV_GENERATOR = new RandomGenerator() {
+		@Override
+		public OctetString generate(final int n) {
+			return new OctetString(SSV);
+		}
+	};
+
+	/**
+	 * Random number generator returning the ephemeral j of RFC 6507.
+	 */
+	public static final RandomGenerator J_GENERATOR = new RandomGenerator() {
+		@Override
+		public OctetString generate(final int n) {
+			return OctetString.fromHex("34567");
+		}
+	};
+
+	/**
+	 * Private constructor - should never be initialized.
+	 */
+	private RfcTestVectors() {
+		throw new IllegalStateException("should never be initialized");
+	}
+}
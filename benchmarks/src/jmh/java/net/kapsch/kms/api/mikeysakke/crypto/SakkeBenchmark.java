@@ -0,0 +1,107 @@
+package net.kapsch.kms.api.mikeysakke.crypto;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import net.kapsch.kms.api.mikeysakke.utils.OctetString;
+
+/**
+ * SAKKE encapsulation and decapsulation (RFC 6508 section 6.2) on the RFC test data.
+ *
+ * JMH runs every benchmark in its own forks, so the Receiver Secret Key is only
+ * validated, and its pairing precomputed, for {@link #extractSharedSecretValidatedRsk}.
+ */
+@State(Scope.Benchmark)
+public class SakkeBenchmark {
+
+	/**
+	 * The identifier of SAKKE parameter set 1.
+	 */
+	private static final int PARAMETER_SET = 1;
+
+	/**
+	 * Number of SEDs generated by one batch.
+	 */
+	private static final int BATCH_SIZE = 16;
+
+	/**
+	 * Cache of [b]P + Z holding the RFC recipient.
+	 */
+	private SakkeRecipientCache recipientCache;
+
+	/**
+	 * The RFC identifier, repeated for batch generation.
+	 */
+	private OctetString[] identifiers;
+
+	/**
+	 * Prepares the recipient cache and the batch.
+	 */
+	@Setup
+	public void setup() {
+		this.recipientCache = new SakkeRecipientCache(1);
+		this.identifiers = new OctetString[BATCH_SIZE];
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			this.identifiers[i] = RfcTestVectors.IDENTIFIER;
+		}
+	}
+
+	@Benchmark
+	public OctetString generateSharedSecretAndSED() {
+		return Sakke.generateSharedSecretAndSED(new OctetString(),
+				RfcTestVectors.IDENTIFIER, PARAMETER_SET, RfcTestVectors.KMS_PUBLIC_Z,
+				RfcTestVectors.SSV_GENERATOR);
+	}
+
+	@Benchmark
+	public OctetString generateSharedSecretAndSEDRecipientCache() {
+		return Sakke.generateSharedSecretAndSED(new OctetString(),
+				RfcTestVectors.IDENTIFIER, PARAMETER_SET, RfcTestVectors.KMS_PUBLIC_Z,
+				RfcTestVectors.SSV_GENERATOR, this.recipientCache);
+	}
+
+	@Benchmark
+	public OctetString[] generateSharedSecretsAndSEDs() {
+		return Sakke.generateSharedSecretsAndSEDs(new OctetString[BATCH_SIZE],
+				this.identifiers, PARAMETER_SET, RfcTestVectors.KMS_PUBLIC_Z,
+				RfcTestVectors.SSV_GENERATOR);
+	}
+
+	@Benchmark
+	public OctetString extractSharedSecret() {
+		return Sakke.extractSharedSecret(RfcTestVectors.SED, RfcTestVectors.IDENTIFIER,
+				PARAMETER_SET, RfcTestVectors.RSK, RfcTestVectors.KMS_PUBLIC_Z);
+	}
+
+	@Benchmark
+	public boolean validateReceiverSecretKey() {
+		return Sakke.validateReceiverSecretKey(RfcTestVectors.IDENTIFIER,
+				RfcTestVectors.KMS_PUBLIC_Z, RfcTestVectors.RSK, PARAMETER_SET);
+	}
+
+	@Benchmark
+	public OctetString extractSharedSecretValidatedRsk(final ValidatedRsk validatedRsk) {
+		return Sakke.extractSharedSecret(RfcTestVectors.SED, RfcTestVectors.IDENTIFIER,
+				PARAMETER_SET, RfcTestVectors.RSK, RfcTestVectors.KMS_PUBLIC_Z);
+	}
+
+	/**
+	 * Decapsulation with a validated Receiver Secret Key.
+	 */
+	@State(Scope.Benchmark)
+	public static class ValidatedRsk {
+
+		/**
+		 * Validates the Receiver Secret Key.
+		 */
+		@Setup
+		public void setup() {
+			if (!Sakke.validateReceiverSecretKey(RfcTestVectors.IDENTIFIER,
+					RfcTestVectors.KMS_PUBLIC_Z, RfcTestVectors.RSK, PARAMETER_SET)) {
+				throw new IllegalStateException("RSK validation failed");
+			}
+		}
+	}
+}
@@ -4,8 +4,14 @@ import java.io.IOException;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
-import java.security.SecureRandom;
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.IllegalBlockSizeException;
@@ -19,39 +25,34 @@ import net.kapsch.kmc.api.service.exceptions.KmsServerInternalException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import net.kapsch.kmc.api.service.mikey.GenericId;
 import net.kapsch.kmc.api.service.mikey.MikeyException;
 import net.kapsch.kmc.api.service.mikey.MikeySakkeIMessage;
-import net.kapsch.kmc.api.service.mikey.Payload;
+import net.kapsch.kmc.api.service.mikey.MikeySakkeIMessageTemplate;
 import net.kapsch.kmc.api.service.mikey.PayloadGeneralExtension;
 import net.kapsch.kmc.api.service.mikey.PayloadGeneralExtensionData;
-import net.kapsch.kmc.api.service.mikey.PayloadHDR;
-import net.kapsch.kmc.api.service.mikey.PayloadIDR;
-import net.kapsch.kmc.api.service.mikey.PayloadRAND;
 import net.kapsch.kmc.api.service.mikey.PayloadSAKKE;
 import net.kapsch.kmc.api.service.mikey.PayloadSIGN;
-import net.kapsch.kmc.api.service.mikey.PayloadSP;
-import net.kapsch.kmc.api.service.mikey.PayloadT;
 import net.kapsch.kmc.api.service.mikey.PolicyParam;
 import net.kapsch.kmc.api.service.mikey.tables.GeneralExtensionStatus;
 import net.kapsch.kmc.api.service.mikey.tables.IDRole;
-import net.kapsch.kmc.api.service.mikey.tables.IDType;
 import net.kapsch.kmc.api.service.mikey.tables.NextPayload;
 import net.kapsch.kmc.api.service.mikey.tables.SRTPDefaultProfile;
 import net.kapsch.kmc.api.service.mikey.tables.SType;
 import net.kapsch.kms.api.KmsCertificateType;
 import net.kapsch.kms.api.KmsKeySetType;
 import net.kapsch.kms.api.KmsResponseType;
+import net.kapsch.kms.api.bouncycastle.math.ec.ECPoint;
 import net.kapsch.kms.api.encryption.aes.Aes;
 import net.kapsch.kms.api.encryption.aes.AesCbcEncryption;
 import net.kapsch.kms.api.mikeysakke.PurposeTag;
 import net.kapsch.kms.api.mikeysakke.crypto.Eccsi;
 import net.kapsch.kms.api.mikeysakke.crypto.EccsiException;
+import net.kapsch.kms.api.mikeysakke.crypto.EccsiParameterSet;
+import net.kapsch.kms.api.mikeysakke.crypto.EccsiSigningContext;
 import net.kapsch.kms.api.mikeysakke.crypto.Sakke;
-import net.kapsch.kms.api.mikeysakke.crypto.SakkeParameterSet1;
+import net.kapsch.kms.api.mikeysakke.crypto.SigningNoncePool;
 import net.kapsch.kms.api.mikeysakke.utils.OctetString;
 import net.kapsch.kms.api.mikeysakke.utils.RandomGeneratorImpl;
-import net.kapsch.kms.api.time.TimeUtils;
 import net.kapsch.kms.api.util.KeyUtils;
 import net.kapsch.kms.api.util.MikeySakkeUid;
 import net.kapsch.kms.api.util.Utils;
@@ -62,6 +63,17 @@ public class Client {
 
 	private static final int CONN_COUNT = 10;
 
+	/**
+	 * Number of signing nonces precomputed while the clients are idle.
+	 */
+	private static final int SIGNING_NONCE_POOL_SIZE = 4;
+
+	/**
+	 * Number of group members whose group key transport messages are generated together
+	 * by one task of a group key distribution.
+	 */
+	private static final int GROUP_KEY_BATCH_SIZE = 8;
+
 	/**
 	 * The user's URI (e.g. user.001@mcptt.example.org).
 	 */
@@ -85,6 +97,25 @@ public class Client {
 	 */
 	private UserKeyData userKeys;
 
+	/**
+	 * Signing keys of this client validated for signing, created on first use after the
+	 * keys are provisioned.
+	 */
+	private EccsiSigningContext signingContext;
+
+	/**
+	 * KMS Public Authentication Key decoded for verifying, created on first use after
+	 * the domain keys are provisioned. Keeps its precomputed multiples across messages.
+	 */
+	private ECPoint kpak;
+
+	/**
+	 * Whether SAKKE Encapsulated Data and signatures are sent with their points in
+	 * compressed form. Off by default, as RFC 6507 and RFC 6508 only define the
+	 * uncompressed form. Read by the threads of a group key distribution.
+	 */
+	private volatile boolean compressedPoints;
+
 	/**
 	 * Client constructor, sets the client's field variables. Access Token is permanent
 	 * and already set in ApiService object and because of that this is primary used for
@@ -132,6 +163,7 @@ public class Client {
 				new OctetString(certificate.getPubEncKey()),
 				certificate.getUserKeyPeriod().intValue(),
 				certificate.getUserKeyOffset().intValue());
+		this.kpak = null;
 	}
 
 	/**
@@ -154,10 +186,10 @@ public class Client {
 		KmsKeySetType kmsKeySetType = keyProvResponse.getKmsMessage().getKmsKeyProv()
 				.getKmsKeySet().get(0);
 
-		this.userKeys = new UserKeyData(
+		setUserKeys(new UserKeyData(
 				new OctetString(kmsKeySetType.getUserPubTokenPVT().getValue()),
 				new OctetString(kmsKeySetType.getUserDecryptKey().getValue()),
-				new OctetString(kmsKeySetType.getUserSigningKeySSK().getValue()));
+				new OctetString(kmsKeySetType.getUserSigningKeySSK().getValue())));
 	}
 
 
@@ -240,11 +272,147 @@ public class Client {
 
 		PolicyParam[] policyParams = SRTPDefaultProfile.getGroupCallPolicyParams();
 
-		MikeySakkeIMessage iMessage = createMikeySakkeIMessage(targetMcpttId,
-				initiatorKmsMcpttId, targetKmsMcpttId, encapsulatedGmk.getOctets(), gukId,
-				policyParams);
+		OctetString sakkeData = encapsulatedGmk;
+		if (this.compressedPoints) {
+			sakkeData = Sakke.compressEncapsulatedData(encapsulatedGmk,
+					this.domainKeys.getSakkeParameterSetIndex());
+		}
+
+		// encrypted General Extension Parameters, after the SAKKE payload
+		PayloadGeneralExtension payloadGeneralExtension = encryptGroupCallParameters(gmk,
+				mcpttGroupId, activationTime, text);
+
+		MikeySakkeIMessage iMessage = createMikeySakkeIMessageTemplate(
+				initiatorKmsMcpttId, targetKmsMcpttId, policyParams).create(targetMcpttId,
+						sakkeData.getOctets(), gukId, payloadGeneralExtension);
+
+		log.info("Group call MIKEY-SAKKE I_MESSAGE created.");
+
+		return signMikeySakkeIMessage(iMessage);
+	}
+
+	/**
+	 * Distribution of one GMK to all members of a group, such as when the group is
+	 * rekeyed, on the common fork-join pool. See
+	 * {@link #distributeGroupKey(byte[], KeyPair, List, byte[], byte[], Executor)}.
+	 *
+	 * @param mcpttGroupId - Mcptt Group Identifier
+	 * @param gmk - GMK and GMK-ID to distribute
+	 * @param members - members of the group (IDRr, IDRKmsr)
+	 * @param activationTime - activationTime
+	 * @param text - plaintext
+	 *
+	 * @return Group call requests which contain the MIKEY-SAKKE I_MESSAGE of each member,
+	 * in the order of the members
+	 *
+	 * @throws Exception - throws Exception
+	 */
+	public List<CompletableFuture<GroupCallRequest>> distributeGroupKey(
+			byte[] mcpttGroupId, KeyPair gmk, List<GroupMember> members,
+			byte[] activationTime, byte[] text) throws Exception {
+		return distributeGroupKey(mcpttGroupId, gmk, members, activationTime, text,
+				ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Distribution of one GMK to all members of a group, such as when the group is
+	 * rekeyed. A signed group key transport message is generated for every member, see
+	 * {@link #generateGroupCallMikeyMessage}, with this client's KMS as IDRkmsi.
+	 *
+	 * The work that is the same for all members, encrypting the General Extension
+	 * Parameters and encoding the invariant payloads for each KMS, is done once on the
+	 * calling thread. The SEDs, User Salts, GUK-IDs and signatures are then generated on
+	 * the executor in batches of {@value #GROUP_KEY_BATCH_SIZE} members, each batch
+	 * sharing its field inversions, see
+	 * {@link Sakke#generateSEDs(OctetString, OctetString[], int, OctetString,
+	 * net.kapsch.kms.api.mikeysakke.crypto.SakkeRecipientCache)}. The future of each member
+	 * is completed as soon as its message is signed, so the messages can be sent while
+	 * the others are still being generated. A member whose future is already cancelled
+	 * is skipped. If the executor rejects a batch, the futures of that batch and of all
+	 * later members complete exceptionally with the RejectedExecutionException.
+	 *
+	 * @param mcpttGroupId - Mcptt Group Identifier
+	 * @param gmk - GMK and GMK-ID to distribute
+	 * @param members - members of the group (IDRr, IDRKmsr)
+	 * @param activationTime - activationTime
+	 * @param text - plaintext
+	 * @param executor - executor to generate the messages on
+	 *
+	 * @return Group call requests which contain the MIKEY-SAKKE I_MESSAGE of each member,
+	 * in the order of the members
+	 *
+	 * @throws Exception - throws Exception
+	 */
+	public List<CompletableFuture<GroupCallRequest>> distributeGroupKey(
+			byte[] mcpttGroupId, KeyPair gmk, List<GroupMember> members,
+			byte[] activationTime, byte[] text, Executor executor) throws Exception {
+		log.info("Distributing GMK to {} group members ...", members.size());
+		int gmkLength = Sakke.getParamSet(this.domainKeys.getSakkeParameterSetIndex())
+				.nBytes();
+		if (gmk.getKey().length != gmkLength) {
+			throw new IllegalArgumentException(
+					"GMK should be " + gmkLength + " bytes long.");
+		}
+
+		// the signing keys are validated before the messages are signed concurrently
+		initSigning();
+
+		PolicyParam[] policyParams = SRTPDefaultProfile.getGroupCallPolicyParams();
+		Map<String, MikeySakkeIMessageTemplate> templates = new HashMap<>();
+		List<CompletableFuture<GroupCallRequest>> results = new ArrayList<>(
+				members.size());
+		for (GroupMember member : members) {
+			if (!templates.containsKey(member.getKmsMcpttId())) {
+				templates.put(member.getKmsMcpttId(),
+						createMikeySakkeIMessageTemplate(this.kmsMcpttId,
+								member.getKmsMcpttId(), policyParams));
+			}
+			results.add(new CompletableFuture<GroupCallRequest>());
+		}
+
+		final GroupKeyDistribution distribution = new GroupKeyDistribution(gmk,
+				new ArrayList<>(members), results, templates,
+				encryptGroupCallParameters(gmk.getKey(), mcpttGroupId, activationTime,
+						text),
+				mcpttGroupId, activationTime, text);
+		for (int from = 0; from < members.size(); from += GROUP_KEY_BATCH_SIZE) {
+			final int start = from;
+			final int end = Math.min(from + GROUP_KEY_BATCH_SIZE, members.size());
+			try {
+				executor.execute(new Runnable() {
+					@Override
+					public void run() {
+						distribution.distribute(start, end);
+					}
+				});
+			}
+			catch (RejectedExecutionException e) {
+				// the members not handed to the executor are not distributed to
+				for (int i = from; i < members.size(); i++) {
+					results.get(i).completeExceptionally(e);
+				}
+				break;
+			}
+		}
+		return results;
+	}
 
-		// add encrypted General Extension Parameters
+	/**
+	 * Encryption of the General Extension Parameters of a group key transport message
+	 * with the GMK. See specification 3GPP 33.179 version 13.4.0 (section E.6.8
+	 * Cryptography).
+	 *
+	 * @param gmk - GMK (Shared Secret Value)
+	 * @param mcpttGroupId - Mcptt Group Identifier
+	 * @param activationTime - activationTime
+	 * @param text - plaintext
+	 *
+	 * @return General Extension payload with the encrypted parameters
+	 *
+	 * @throws Exception - throws Exception
+	 */
+	private PayloadGeneralExtension encryptGroupCallParameters(byte[] gmk,
+			byte[] mcpttGroupId, byte[] activationTime, byte[] text) throws Exception {
 		PayloadGeneralExtension payloadGeneralExtension = new PayloadGeneralExtension();
 		SecretKey secretKey = Aes.getSecretKey(gmk);
 		PayloadGeneralExtensionData data = new PayloadGeneralExtensionData(mcpttGroupId,
@@ -253,18 +421,13 @@ public class Client {
 				Utils.getBytesFromBits(data.getEncoded()), secretKey,
 				payloadGeneralExtension.getIv());
 		payloadGeneralExtension.setData(encryptedParams);
-
-		iMessage.getPayload(NextPayload.SAKKE).setNextPayload(NextPayload.GENERAL_EXT);
-		iMessage.addPayload(payloadGeneralExtension);
-
-		log.info("Group call MIKEY-SAKKE I_MESSAGE created.");
-
-		return signMikeySakkeIMessage(iMessage);
+		return payloadGeneralExtension;
 	}
 
 	/**
 	 * Processing of a group key transport message (extraction of GMK). See specification
-	 * 3GPP 33.179 version 13.4.0 (section 7.3.1-2).
+	 * 3GPP 33.179 version 13.4.0 (section 7.3.1-2). See
+	 * {@link GroupKeyTransportProcessor} for processing many messages concurrently.
 	 *
 	 * @param iMessage - MIKEY-SAKKE I_MESSAGE
 	 *
@@ -284,6 +447,20 @@ public class Client {
 			throws Exception {
 		log.info("Processing Group call MIKEY-SAKKE I_MESSAGE ...");
 
+		verifyGroupKeyTransportMessage(iMessage);
+		byte[] gmk = extractGroupKey(iMessage);
+		return decryptGroupKeyTransportMessage(iMessage, gmk);
+	}
+
+	/**
+	 * Validation of the signature of a group key transport message against the
+	 * initiator's identity (IDRi, IDRkmsi).
+	 *
+	 * @param iMessage - MIKEY-SAKKE I_MESSAGE
+	 *
+	 * @throws EccsiException - if the signature is not valid
+	 */
+	void verifyGroupKeyTransportMessage(MikeySakkeIMessage iMessage) {
 		// extract user's URI from the initiator field (IDRi)
 		byte[] idri = iMessage.extractIDR(IDRole.IDR_I);
 		byte[] idrKmsi = iMessage.extractIDR(IDRole.IDR_KMS_I);
@@ -296,22 +473,44 @@ public class Client {
 		boolean valid = Eccsi.verify(
 				new OctetString(iMessage.getEncodedWithoutSignature()),
 				new OctetString(signature), getUid(idri, idrKmsi),
-				this.domainKeys.getPublicAuthenticationKey());
-
-		// if signature valid, extract GMK
-		byte[] gmk;
-		if (valid) {
-			byte[] sakkeData = ((PayloadSAKKE) iMessage.getPayload(NextPayload.SAKKE))
-					.getSakkeData();
-			gmk = Sakke.extractSharedSecret(new OctetString(sakkeData), getUid(),
-					this.domainKeys.getSakkeParameterSetIndex(),
-					this.userKeys.getReceiverSecretKey(),
-					this.domainKeys.getKmsPublicKey()).getOctets();
-		}
-		else {
+				this.domainKeys.getPublicAuthenticationKey(), getKpak());
+
+		if (!valid) {
 			throw new EccsiException("Validation of signature failed.");
 		}
+	}
 
+	/**
+	 * Extraction of the GMK from the SAKKE payload of a group key transport message whose
+	 * signature has been validated.
+	 *
+	 * @param iMessage - MIKEY-SAKKE I_MESSAGE
+	 *
+	 * @return GMK (Shared Secret Value)
+	 */
+	byte[] extractGroupKey(MikeySakkeIMessage iMessage) {
+		byte[] sakkeData = ((PayloadSAKKE) iMessage.getPayload(NextPayload.SAKKE))
+				.getSakkeData();
+		return Sakke.extractSharedSecret(new OctetString(sakkeData), getUid(),
+				this.domainKeys.getSakkeParameterSetIndex(),
+				this.userKeys.getReceiverSecretKey(),
+				this.domainKeys.getKmsPublicKey()).getOctets();
+	}
+
+	/**
+	 * Derivation of the GMK-ID and decryption of the General Extension Parameters of a
+	 * group key transport message with the GMK extracted from it.
+	 *
+	 * @param iMessage - MIKEY-SAKKE I_MESSAGE
+	 * @param gmk - GMK (Shared Secret Value)
+	 *
+	 * @return Group call request which contains GMK, GMK-ID and optional params
+	 * (mcpttGroupId, activationTime, text)
+	 *
+	 * @throws Exception - throws Exception
+	 */
+	GroupCallRequest decryptGroupKeyTransportMessage(MikeySakkeIMessage iMessage,
+			byte[] gmk) throws Exception {
 		// xors the GUK-ID and User Salt together to extract the GMK-ID
 		int gukId = iMessage.getHDRPayload().getCsbId();
 		int userSalt = KeyUtils.generateUserSalt(this.mcpttId, gmk);
@@ -383,43 +582,30 @@ public class Client {
 	public MikeySakkeIMessage createMikeySakkeIMessage(String responderMcpttId,
 			String initiatorsKmsMcpttId, String respondersKmsMcpttId, byte[] sakkeData,
 			Integer csbId, PolicyParam[] policyParams) throws MikeyException {
+		return createMikeySakkeIMessageTemplate(initiatorsKmsMcpttId,
+				respondersKmsMcpttId, policyParams).create(responderMcpttId, sakkeData,
+						csbId);
+	}
 
-		PayloadHDR payloadHDR = new PayloadHDR(csbId, new GenericId());
-
-		PayloadT payloadT = new PayloadT(
-				TimeUtils.fromNtpEpochTo(LocalDateTime.now()).ntpValue());
-
-		SecureRandom ranGen = new SecureRandom();
-		byte[] rand = new byte[PayloadRAND.DEFAULT_RAND_LEN];
-		ranGen.nextBytes(rand);
-		PayloadRAND payloadRAND = new PayloadRAND(NextPayload.IDR, rand);
-
-		PayloadIDR payloadIDRi = new PayloadIDR(NextPayload.IDR, IDRole.IDR_I, IDType.URI,
-				this.mcpttId.getBytes());
-
-		PayloadIDR payloadIDRr = new PayloadIDR(NextPayload.IDR, IDRole.IDR_R, IDType.URI,
-				responderMcpttId.getBytes());
-
-		PayloadIDR payloadIDRkmsi = new PayloadIDR(NextPayload.IDR, IDRole.IDR_KMS_I,
-				IDType.URI, initiatorsKmsMcpttId.getBytes());
-
-		PayloadIDR payloadIDRkmsr = new PayloadIDR(NextPayload.SP, IDRole.IDR_KMS_R,
-				IDType.URI, respondersKmsMcpttId.getBytes());
-
-		PayloadSP payloadSP = new PayloadSP(policyParams,
-				PayloadSP.calculateLength(policyParams));
-
-		byte sakkeParams = (byte) new SakkeParameterSet1().parameterSetIdentifer();
-		byte sakkeIdScheme = 1;
-		PayloadSAKKE payloadSAKKE = new PayloadSAKKE(NextPayload.SIGN, sakkeParams,
-				sakkeIdScheme, sakkeData);
-
-		// create MIKEY-SAKKE I_MESSAGE
-		Payload[] payloads = { payloadHDR, payloadT, payloadRAND, payloadIDRi,
-				payloadIDRr, payloadIDRkmsi, payloadIDRkmsr, payloadSP, payloadSAKKE };
-
-		return new MikeySakkeIMessage(payloads);
-
+	/**
+	 * Create a template for the MIKEY-SAKKE I_MESSAGEs this client sends to responders of
+	 * one KMS, which encodes the payloads that do not depend on the responder once. See
+	 * {@link #createMikeySakkeIMessage}.
+	 *
+	 * @param initiatorsKmsMcpttId - initiatorsKms Mcptt Id (IDRkmsi)
+	 * @param respondersKmsMcpttId - respondersKms Mcptt Id (IDRkmsr)
+	 * @param policyParams - the security properties for Security Policy payload (SP)
+	 *
+	 * @return template for the MIKEY-SAKKE I_MESSAGEs
+	 */
+	public MikeySakkeIMessageTemplate createMikeySakkeIMessageTemplate(
+			String initiatorsKmsMcpttId, String respondersKmsMcpttId,
+			PolicyParam[] policyParams) {
+		byte sakkeParams = (byte) Sakke
+				.getParamSet(this.domainKeys.getSakkeParameterSetIndex())
+				.parameterSetIdentifer();
+		return new MikeySakkeIMessageTemplate(this.mcpttId, initiatorsKmsMcpttId,
+				respondersKmsMcpttId, policyParams, sakkeParams);
 	}
 
 	/**
@@ -434,25 +620,17 @@ public class Client {
 	public MikeySakkeIMessage signMikeySakkeIMessage(MikeySakkeIMessage iMessage)
 			throws Exception {
 
-		// validation of SSK
-		OctetString hash = new OctetString();
-		boolean validSsk = Eccsi.validateSigningKeys(getUid(),
-				this.userKeys.getPublicValidationToken(),
-				this.domainKeys.getPublicAuthenticationKey(),
-				this.userKeys.getSecretSigningKey(), hash);
-
-		if (!validSsk) {
-			throw new EccsiException("Validation of SSK failed!");
-		}
-		this.userKeys.setHS(hash);
+		EccsiSigningContext context = initSigning();
 
 		log.info("Signing MIKEY-SAKKE I_MESSAGE ...");
 
-		// creating signature
-		OctetString signature = Eccsi.sign(new OctetString(iMessage.getEncoded()),
-				this.userKeys.getPublicValidationToken(),
-				this.userKeys.getSecretSigningKey(), this.userKeys.getHS(),
-				new RandomGeneratorImpl());
+		// creating signature, over the bytes that getEncoded() sends on afterwards
+		OctetString signature = context.sign(
+				new OctetString(iMessage.getEncodedWithoutSignature()),
+				SigningNonces.POOL);
+		if (this.compressedPoints) {
+			signature = Eccsi.compressSignature(signature);
+		}
 		PayloadSIGN payloadSIGN = new PayloadSIGN(SType.ECCSI, signature.getOctets());
 
 		// add signature to MIKEY-SAKKE I_MESSAGE
@@ -461,6 +639,35 @@ public class Client {
 		return iMessage;
 	}
 
+	/**
+	 * Validates the SSK, once per key provisioning.
+	 *
+	 * @return the signing context of the current keys
+	 */
+	private synchronized EccsiSigningContext initSigning() {
+		if (this.signingContext == null) {
+			this.signingContext = new EccsiSigningContext(getUid(),
+					this.userKeys.getPublicValidationToken(),
+					this.domainKeys.getPublicAuthenticationKey(),
+					this.userKeys.getSecretSigningKey());
+			this.userKeys.setHS(this.signingContext.getHS());
+		}
+		return this.signingContext;
+	}
+
+	/**
+	 * Decodes the KPAK, once per key provisioning.
+	 *
+	 * @return the KPAK of the current domain keys
+	 */
+	private synchronized ECPoint getKpak() {
+		if (this.kpak == null) {
+			this.kpak = EccsiParameterSet.ECurve
+					.decodePoint(this.domainKeys.getPublicAuthenticationKey().getOctets());
+		}
+		return this.kpak;
+	}
+
 	/**
 	 * Generate UID for this User.
 	 *
@@ -492,8 +699,10 @@ public class Client {
 		return domainKeys;
 	}
 
-	public void setDomainKeys(DomainKeyData domainKeys) {
+	public synchronized void setDomainKeys(DomainKeyData domainKeys) {
 		this.domainKeys = domainKeys;
+		this.signingContext = null;
+		this.kpak = null;
 	}
 
 	/**
@@ -504,8 +713,25 @@ public class Client {
 		return userKeys;
 	}
 
-	public void setUserKeys(UserKeyData userKeys) {
+	public synchronized void setUserKeys(UserKeyData userKeys) {
 		this.userKeys = userKeys;
+		this.signingContext = null;
+	}
+
+	/**
+	 * Selects whether the I_MESSAGEs created by this client carry the SAKKE point R and
+	 * the ECCSI PVT in compressed form, which makes them 160 bytes shorter. Only enable
+	 * this on links where the receiving side is known to accept compressed points;
+	 * received I_MESSAGEs are accepted in either form regardless of this setting.
+	 *
+	 * @param compressedPoints - true to send points in compressed form
+	 */
+	public void setCompressedPoints(boolean compressedPoints) {
+		this.compressedPoints = compressedPoints;
+	}
+
+	public boolean isCompressedPoints() {
+		return this.compressedPoints;
 	}
 
 	public String getKmsMcpttId() {
@@ -519,4 +745,146 @@ public class Client {
 	public ApiService getApiService() {
 		return this.apiService;
 	}
+
+	/**
+	 * The work shared by all members of one group key distribution.
+	 */
+	private final class GroupKeyDistribution {
+
+		private final KeyPair gmk;
+
+		private final OctetString ssv;
+
+		private final List<GroupMember> members;
+
+		private final List<CompletableFuture<GroupCallRequest>> results;
+
+		/**
+		 * The I_MESSAGE template for each responder's KMS.
+		 */
+		private final Map<String, MikeySakkeIMessageTemplate> templates;
+
+		/**
+		 * The encrypted General Extension Parameters, the same for every member.
+		 */
+		private final PayloadGeneralExtension extension;
+
+		private final byte[] mcpttGroupId;
+
+		private final byte[] activationTime;
+
+		private final byte[] text;
+
+		GroupKeyDistribution(KeyPair gmk, List<GroupMember> members,
+				List<CompletableFuture<GroupCallRequest>> results,
+				Map<String, MikeySakkeIMessageTemplate> templates,
+				PayloadGeneralExtension extension, byte[] mcpttGroupId,
+				byte[] activationTime, byte[] text) {
+			this.gmk = gmk;
+			this.ssv = new OctetString(gmk.getKey());
+			this.members = members;
+			this.results = results;
+			this.templates = templates;
+			this.extension = extension;
+			this.mcpttGroupId = mcpttGroupId;
+			this.activationTime = activationTime;
+			this.text = text;
+		}
+
+		/**
+		 * Generates and signs the messages of the members from start to end and completes
+		 * their futures.
+		 *
+		 * @param start - index of the first member
+		 * @param end - index after the last member
+		 */
+		void distribute(int start, int end) {
+			OctetString[] uids = new OctetString[end - start];
+			OctetString[] seds;
+			try {
+				for (int i = start; i < end; i++) {
+					GroupMember member = this.members.get(i);
+					uids[i - start] = getUid(member.getMcpttId().getBytes(),
+							member.getKmsMcpttId().getBytes());
+				}
+				seds = Sakke.generateSEDs(this.ssv, uids,
+						Client.this.domainKeys.getSakkeParameterSetIndex(),
+						Client.this.domainKeys.getKmsPublicKey(), null);
+			}
+			catch (RuntimeException e) {
+				for (int i = start; i < end; i++) {
+					this.results.get(i).completeExceptionally(e);
+				}
+				return;
+			}
+
+			for (int i = start; i < end; i++) {
+				CompletableFuture<GroupCallRequest> result = this.results.get(i);
+				if (result.isDone()) {
+					continue;
+				}
+				try {
+					result.complete(generate(this.members.get(i), seds[i - start]));
+				}
+				catch (Exception e) {
+					result.completeExceptionally(e);
+				}
+			}
+		}
+
+		/**
+		 * Generates and signs the message of one member.
+		 *
+		 * @param member - the member (IDRr, IDRKmsr)
+		 * @param encapsulatedGmk - the GMK encrypted for the member
+		 *
+		 * @return Group call request which contains the member's I_MESSAGE
+		 *
+		 * @throws Exception - throws Exception
+		 */
+		private GroupCallRequest generate(GroupMember member,
+				OctetString encapsulatedGmk) throws Exception {
+			int userSalt = KeyUtils.generateUserSalt(member.getMcpttId(),
+					this.gmk.getKey());
+			int gukId = generateGukId(this.gmk.getKeyIdentifier(), userSalt);
+
+			OctetString sakkeData = encapsulatedGmk;
+			if (Client.this.compressedPoints) {
+				sakkeData = Sakke.compressEncapsulatedData(encapsulatedGmk,
+						Client.this.domainKeys.getSakkeParameterSetIndex());
+			}
+
+			// every message has its own payload, sharing the encrypted parameters
+			PayloadGeneralExtension payloadGeneralExtension = new PayloadGeneralExtension(
+					NextPayload.SIGN, this.extension.getIv(), this.extension.getType(),
+					this.extension.getLength(), this.extension.getData());
+
+			MikeySakkeIMessage iMessage = this.templates.get(member.getKmsMcpttId())
+					.create(member.getMcpttId(), sakkeData.getOctets(), gukId,
+							payloadGeneralExtension);
+
+			return new GroupCallRequest(this.gmk, signMikeySakkeIMessage(iMessage),
+					this.mcpttGroupId, this.activationTime, this.text);
+		}
+	}
+
+	/**
+	 * Holder of the signing nonces precomputed in the background. They do not depend on
+	 * the keys, so all clients share one pool and its thread, started when a client
+	 * first signs.
+	 */
+	private static final class SigningNonces {
+
+		/**
+		 * The pool of signing nonces shared by all clients.
+		 */
+		private static final SigningNoncePool POOL = startPool();
+
+		private static SigningNoncePool startPool() {
+			SigningNoncePool pool = new SigningNoncePool(SIGNING_NONCE_POOL_SIZE,
+					new RandomGeneratorImpl());
+			pool.start();
+			return pool;
+		}
+	}
 }
@@ -0,0 +1,304 @@
+package net.kapsch.kmc.api.service;
+
+import java.io.Closeable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.kapsch.kmc.api.service.mikey.MikeySakkeIMessage;
+
+/**
+ * Pipeline processing received group key transport messages of a client concurrently,
+ * see {@link Client#processGroupKeyTransportMessage(MikeySakkeIMessage)}. Every message
+ * passes four stages, each with its own pool of threads:
+ *
+ * parse - decoding of the received bytes into an I_MESSAGE
+ *
+ * verify - validation of the ECCSI signature
+ *
+ * extract - extraction of the GMK from the SAKKE payload
+ *
+ * decrypt - derivation of the GMK-ID and decryption of the General Extension Parameters
+ *
+ * The verify and extract stages each take a pairing or several point multiplications
+ * per message and by default have Runtime.availableProcessors() threads each, which
+ * can be set with {@link #GroupKeyTransportProcessor(Client, int, int)}. Parsing and
+ * decryption take a small fraction of that and have a single thread each.
+ *
+ * Messages wait for a stage in a bounded queue. When that queue is full, the thread
+ * handing a message to the stage blocks until there is room, so a burst of messages
+ * holds up the receiving thread instead of queueing without bound. This includes the
+ * threads of the previous stage, so a slow stage holds up all stages before it.
+ *
+ * The processor is safe for use by multiple threads. It must be closed when no longer
+ * used. Closing stops the processor accepting messages, and each stage is shut down
+ * once the stage before it has finished, so the messages already submitted complete.
+ */
+public final class GroupKeyTransportProcessor implements Closeable {
+
+	/**
+	 * Default number of messages waiting for each stage.
+	 */
+	public static final int DEFAULT_QUEUE_CAPACITY = 64;
+
+	/**
+	 * Blocks the submitting thread until the stage has room for the message, and rejects
+	 * messages once the stage is shut down.
+	 */
+	private static final RejectedExecutionHandler BLOCK = new RejectedExecutionHandler() {
+		@Override
+		public void rejectedExecution(Runnable task, ThreadPoolExecutor stage) {
+			if (stage.isShutdown()) {
+				throw new RejectedExecutionException("Processor is closed.");
+			}
+			try {
+				stage.getQueue().put(task);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RejectedExecutionException(e);
+			}
+			// the stage may have been shut down, and its threads ended, while waiting
+			if (stage.isShutdown() && stage.getQueue().remove(task)) {
+				throw new RejectedExecutionException("Processor is closed.");
+			}
+		}
+	};
+
+	/**
+	 * The client whose keys the messages are processed with.
+	 */
+	private final Client client;
+
+	private final ThreadPoolExecutor parseStage;
+
+	private final ThreadPoolExecutor verifyStage;
+
+	private final ThreadPoolExecutor extractStage;
+
+	private final ThreadPoolExecutor decryptStage;
+
+	/**
+	 * Creates a processor with Runtime.availableProcessors() threads for each of the
+	 * verify and extract stages and {@value #DEFAULT_QUEUE_CAPACITY} messages waiting for
+	 * each stage.
+	 *
+	 * @param client - client whose keys the messages are processed with
+	 */
+	public GroupKeyTransportProcessor(Client client) {
+		this(client, Runtime.getRuntime().availableProcessors(),
+				DEFAULT_QUEUE_CAPACITY);
+	}
+
+	/**
+	 * Creates a processor.
+	 *
+	 * @param client - client whose keys the messages are processed with
+	 * @param threads - number of threads of the verify and of the extract stage
+	 * @param queueCapacity - number of messages waiting for each stage
+	 */
+	public GroupKeyTransportProcessor(Client client, int threads, int queueCapacity) {
+		if (threads < 1 || queueCapacity < 1) {
+			throw new IllegalArgumentException(
+					"threads and queueCapacity must be positive");
+		}
+		this.client = client;
+		this.decryptStage = createStage("decrypt", 1, queueCapacity, null);
+		this.extractStage = createStage("extract", threads, queueCapacity,
+				this.decryptStage);
+		this.verifyStage = createStage("verify", threads, queueCapacity,
+				this.extractStage);
+		this.parseStage = createStage("parse", 1, queueCapacity, this.verifyStage);
+	}
+
+	/**
+	 * Processes a received group key transport message. Blocks while the queue of the
+	 * parse stage is full, which is the backpressure on the receiving thread; the rest
+	 * of the processing is asynchronous.
+	 *
+	 * @param encoded - encoded MIKEY-SAKKE I_MESSAGE, not to be changed until the result
+	 * is complete
+	 *
+	 * @return Group call request which contains GMK, GMK-ID and optional params
+	 * (mcpttGroupId, activationTime, text), completed exceptionally if the message could
+	 * not be decoded, its signature is not valid or the GMK has been revoked
+	 */
+	public CompletableFuture<GroupCallRequest> process(final byte[] encoded) {
+		final CompletableFuture<GroupCallRequest> result = new CompletableFuture<>();
+		submit(this.parseStage, result, new Stage() {
+			@Override
+			public void run() throws Exception {
+				verify(MikeySakkeIMessage.decode(encoded), result);
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Processes a decoded group key transport message. Blocks while the queue of the
+	 * verify stage is full, which is the backpressure on the receiving thread; the rest
+	 * of the processing is asynchronous.
+	 *
+	 * @param iMessage - MIKEY-SAKKE I_MESSAGE
+	 *
+	 * @return Group call request which contains GMK, GMK-ID and optional params
+	 * (mcpttGroupId, activationTime, text), completed exceptionally if its signature is
+	 * not valid or the GMK has been revoked
+	 */
+	public CompletableFuture<GroupCallRequest> process(MikeySakkeIMessage iMessage) {
+		CompletableFuture<GroupCallRequest> result = new CompletableFuture<>();
+		if (this.parseStage.isShutdown()) {
+			result.completeExceptionally(
+					new RejectedExecutionException("Processor is closed."));
+			return result;
+		}
+		verify(iMessage, result);
+		return result;
+	}
+
+	/**
+	 * Stops accepting messages, without waiting. The messages already submitted are
+	 * processed, as each later stage is only shut down when the one before it has
+	 * terminated, see {@link #awaitTermination(long, TimeUnit)}.
+	 */
+	@Override
+	public void close() {
+		this.parseStage.shutdown();
+	}
+
+	/**
+	 * Waits until all messages submitted before {@link #close()} are processed.
+	 *
+	 * @param timeout - maximum time to wait
+	 * @param unit - time unit of the timeout
+	 *
+	 * @return true if all messages are processed, false if the timeout elapsed before
+	 *
+	 * @throws InterruptedException - if interrupted while waiting
+	 */
+	public boolean awaitTermination(long timeout, TimeUnit unit)
+			throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		for (ThreadPoolExecutor stage : new ThreadPoolExecutor[] { this.parseStage,
+				this.verifyStage, this.extractStage, this.decryptStage }) {
+			if (!stage.awaitTermination(deadline - System.nanoTime(),
+					TimeUnit.NANOSECONDS)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void verify(final MikeySakkeIMessage iMessage,
+			final CompletableFuture<GroupCallRequest> result) {
+		submit(this.verifyStage, result, new Stage() {
+			@Override
+			public void run() {
+				GroupKeyTransportProcessor.this.client
+						.verifyGroupKeyTransportMessage(iMessage);
+				extract(iMessage, result);
+			}
+		});
+	}
+
+	private void extract(final MikeySakkeIMessage iMessage,
+			final CompletableFuture<GroupCallRequest> result) {
+		submit(this.extractStage, result, new Stage() {
+			@Override
+			public void run() {
+				decrypt(iMessage, GroupKeyTransportProcessor.this.client
+						.extractGroupKey(iMessage), result);
+			}
+		});
+	}
+
+	private void decrypt(final MikeySakkeIMessage iMessage, final byte[] gmk,
+			final CompletableFuture<GroupCallRequest> result) {
+		submit(this.decryptStage, result, new Stage() {
+			@Override
+			public void run() throws Exception {
+				result.complete(GroupKeyTransportProcessor.this.client
+						.decryptGroupKeyTransportMessage(iMessage, gmk));
+			}
+		});
+	}
+
+	/**
+	 * Hands a message to a stage, blocking while the stage's queue is full. The result
+	 * is completed exceptionally if the stage fails or is shut down. Messages whose
+	 * result is already complete, such as by cancellation, are dropped.
+	 *
+	 * @param stage - the stage's threads
+	 * @param result - the result of the message
+	 * @param work - the work of the stage, which hands the message on
+	 */
+	private static void submit(ThreadPoolExecutor stage,
+			final CompletableFuture<GroupCallRequest> result, final Stage work) {
+		try {
+			stage.execute(new Runnable() {
+				@Override
+				public void run() {
+					if (result.isDone()) {
+						return;
+					}
+					try {
+						work.run();
+					}
+					catch (Exception e) {
+						result.completeExceptionally(e);
+					}
+				}
+			});
+		}
+		catch (RejectedExecutionException e) {
+			result.completeExceptionally(e);
+		}
+	}
+
+	/**
+	 * Creates the threads of a stage, which shut down the next stage once they have
+	 * terminated.
+	 *
+	 * @param name - name of the stage
+	 * @param threads - number of threads
+	 * @param queueCapacity - number of messages waiting for the stage
+	 * @param next - the next stage, or null for the last stage
+	 *
+	 * @return the threads of the stage
+	 */
+	private static ThreadPoolExecutor createStage(final String name, int threads,
+			int queueCapacity, final ThreadPoolExecutor next) {
+		ThreadFactory threadFactory = new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "group-key-transport-" + name + "-"
+						+ this.count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		};
+		return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(queueCapacity), threadFactory, BLOCK) {
+			@Override
+			protected void terminated() {
+				if (next != null) {
+					next.shutdown();
+				}
+			}
+		};
+	}
+
+	/**
+	 * The work of one stage for one message.
+	 */
+	private interface Stage {
+		void run() throws Exception;
+	}
+}
@@ -0,0 +1,36 @@
+package net.kapsch.kmc.api.service;
+
+/**
+ * Member of an MCPTT group a group key is distributed to.
+ */
+public class GroupMember {
+
+	/**
+	 * The member's URI (e.g. user.001@mcptt.example.org).
+	 */
+	private final String mcpttId;
+
+	/**
+	 * The member's Kms URI (e.g. kms.example.org).
+	 */
+	private final String kmsMcpttId;
+
+	public GroupMember(String mcpttId, String kmsMcpttId) {
+		this.mcpttId = mcpttId;
+		this.kmsMcpttId = kmsMcpttId;
+	}
+
+	public String getMcpttId() {
+		return this.mcpttId;
+	}
+
+	public String getKmsMcpttId() {
+		return this.kmsMcpttId;
+	}
+
+	@Override
+	public String toString() {
+		return "GroupMember{" + "mcpttId=" + mcpttId + ", kmsMcpttId=" + kmsMcpttId
+				+ '}';
+	}
+}
@@ -1,10 +1,9 @@
 package net.kapsch.kmc.api.service.mikey;
 
-import com.google.zxing.common.BitArray;
+import java.nio.ByteBuffer;
 
 import net.kapsch.kmc.api.service.mikey.tables.ProtType;
 import net.kapsch.kms.api.bouncycastle.util.Arrays;
-import net.kapsch.kms.api.util.Utils;
 
 /**
  * Describes a CsIdMapInfo section of the HDR payload, which identifies and maps the
@@ -151,18 +150,29 @@ public class GenericId extends CsIdMapInfo {
 	 * @return CsIdMapInfo
 	 */
 	public static GenericId decodeCsIdMapInfo(byte[] encoded_map_info) {
+		if (encoded_map_info == null) {
+			return null;
+		}
+		return decodeCsIdMapInfo(ByteBuffer.wrap(encoded_map_info));
+	}
+
+	/**
+	 * Decodes a CsIdMapInfo object from the current position of the given buffer,
+	 * leaving the buffer positioned after it.
+	 * @param buffer - buffer to decode from
+	 * @return CsIdMapInfo
+	 */
+	public static GenericId decodeCsIdMapInfo(ByteBuffer buffer) {
 		GenericId result = null;
 
-		if (encoded_map_info != null && encoded_map_info.length >= 6) {
-			int index = 0;
+		if (buffer.remaining() >= 6) {
+			int start = buffer.position();
 			// CS ID is the first byte...
-			byte cs_id = encoded_map_info[index];
+			byte cs_id = buffer.get();
 			// Protocol type is the second byte...
-			index++;
-			byte prot_type = encoded_map_info[index];
+			byte prot_type = buffer.get();
 			// S and P are the next byte, 1 bit is S and 7 bits are P...
-			index++;
-			byte s_and_p = encoded_map_info[index];
+			byte s_and_p = buffer.get();
 			int s_bit_int = (s_and_p) >> 7; // shift 7 to get first bit
 			boolean s_bit = s_bit_int == 0 ? false : true;
 
@@ -170,115 +180,73 @@ public class GenericId extends CsIdMapInfo {
 											// bit
 
 			// get policies
-			index++;
-			byte[] policies;
-			policies = getPolicies(p_bits, index, encoded_map_info);
-			if (policies != null) {
-				index += p_bits;
+			byte[] policies = null;
+			if (p_bits > 0) {
+				policies = getBytes(buffer, p_bits);
 			}
 
 			// get session data length
-			byte[] session_data_length = new byte[2];
-			session_data_length[0] = encoded_map_info[index];
-			index++;
-			session_data_length[1] = encoded_map_info[index];
-			index++;
-
-			int session_data_len = Utils.convertByteArrayToInt(session_data_length);
+			int session_data_len = buffer.getShort() & 0xffff;
 
 			// get the actual session data (if the session data length is 0 this
 			// will not do anything)
-			byte[] session_data;
-			session_data = getActualSessionData(session_data_len, index,
-					encoded_map_info);
-			if (session_data != null) {
-				index += session_data_len;
+			byte[] session_data = null;
+			if (session_data_len > 0) {
+				session_data = getBytes(buffer, session_data_len);
 			}
 
 			SessionData[] sessionData = SessionData.decodeSessionData(s_bit, session_data,
 					(short) session_data_len);
 
-			int spi_length = encoded_map_info[index];
-			index++;
+			int spi_length = buffer.get();
 
-			byte[] spi_data;
-			spi_data = getSpiData(spi_length, index, encoded_map_info);
-			if (spi_data != null) {
-				index += spi_length;
+			byte[] spi_data = null;
+			if (spi_length > 0) {
+				spi_data = getBytes(buffer, spi_length);
 			}
 
 			result = new GenericId(cs_id, prot_type, s_bit, p_bits, policies,
 					session_data_len, sessionData, spi_length, spi_data);
-			result.setEndByte(index);
-			result.originalBytes = encoded_map_info;
+			result.setDecodedBounds(buffer, start);
 		}
 
 		return result;
 	}
 
-	private static byte[] getSpiData(int spi_length, int index, byte[] encoded_map_info) {
-		byte[] spi_data = null;
-		if (spi_length > 0) {
-			spi_data = new byte[spi_length];
-			for (int i = index; i < index + spi_length; i++) {
-				spi_data[i - index] = encoded_map_info[i];
-			}
+	public int encodedLength() {
+		int length = 6;
+		if (pNumber > 0 && ps != null) {
+			length += ps.length;
 		}
-		return spi_data;
-	}
-
-	private static byte[] getActualSessionData(int session_data_len, int index,
-			byte[] encoded_map_info) {
-		byte[] session_data = null;
-		if (session_data_len > 0) {
-			session_data = new byte[session_data_len];
-
-			// byte[] other_session_data = new byte[session_data_len]; //NOSONAR
-			for (int i = 0; i < session_data_len; i++) {
-				session_data[i] = encoded_map_info[index + i];
+		if (sessionDataLength > 0 && sessionData != null) {
+			for (int i = 0; i < sessionData.length; i++) {
+				length += sessionData[i].encodedLength();
 			}
 		}
-		return session_data;
-	}
-
-	private static byte[] getPolicies(int p_bits, int index, byte[] encoded_map_info) {
-		byte[] policies = null;
-		if (p_bits > 0) {
-			policies = new byte[p_bits];
-			for (int i = 0; i < p_bits; i++) {
-				policies[i] = encoded_map_info[index + i];
-			}
+		if (spiLength > 0 && spi != null) {
+			length += spi.length;
 		}
-		return policies;
+		return length;
 	}
 
-	public BitArray getEncoded() {
-		BitArray bits = new BitArray();
-		bits.appendBits(csId, 8);
-		bits.appendBits(protType, 8);
-		int s_flag = s ? 1 : 0;
-		bits.appendBits(s_flag, 1);
-		bits.appendBits(pNumber, 7);
+	public void encode(ByteBuffer buffer) {
+		buffer.put(csId);
+		buffer.put(protType);
+		buffer.put((byte) ((s ? 0x80 : 0) | (pNumber & 0x7f)));
 		if (pNumber > 0 && ps != null) {
-			for (int i = 0; i < ps.length; i++) {
-				bits.appendBits(ps[i], 8);
-			}
+			buffer.put(ps);
 		}
-		bits.appendBits(sessionDataLength, 16);
-		if (sessionDataLength > 0 && sessionData != null && sessionData.length > 0) {
+		buffer.putShort(sessionDataLength);
+		if (sessionDataLength > 0 && sessionData != null) {
 			for (int i = 0; i < sessionData.length; i++) {
-				bits.appendBitArray(sessionData[i].getEncoded());
+				sessionData[i].encode(buffer);
 			}
 		}
 
-		bits.appendBits(spiLength, 8);
-		if (spiLength > 0 && spi != null && spi.length > 0) {
-			for (int i = 0; i < spi.length; i++) {
-				bits.appendBits(spi[i], 8);
-			}
+		buffer.put((byte) spiLength);
+		if (spiLength > 0 && spi != null) {
+			buffer.put(spi);
 		}
-
-		return bits;
 	}
 
 	public int getSizeInBytes() {
@@ -1,6 +1,9 @@
 package net.kapsch.kmc.api.service.mikey;
 
-import com.google.zxing.common.BitArray;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 
 import net.kapsch.kmc.api.service.mikey.tables.NextPayload;
 
@@ -17,6 +20,12 @@ public class MikeySakkeIMessage {
 
 	Payload[] payloads;
 
+	/**
+	 * The encoded payloads before the signature, kept from when the message was signed,
+	 * or null.
+	 */
+	private byte[] signedPortion;
+
 	/**
 	 * Creates a MIKEY-SAKKE I_Message given an array of payloads
 	 *
@@ -40,6 +49,20 @@ public class MikeySakkeIMessage {
 
 	}
 
+	/**
+	 * Creates an unsigned MIKEY-SAKKE I_Message from payloads that have already been
+	 * encoded, so that signing and sending reuse the given bytes.
+	 *
+	 * @param payloads - payloads from which MIKEY-SAKKE I_Message will be composed
+	 * @param encoded - the encoded payloads, which must not be changed afterwards
+	 *
+	 * @throws MikeyException - throws MikeyException exception
+	 */
+	MikeySakkeIMessage(Payload[] payloads, byte[] encoded) throws MikeyException {
+		this(payloads);
+		this.signedPortion = encoded;
+	}
+
 	/**
 	 * Creates a MIKEY-SAKKE I_Message given a common header payload
 	 * @param hdr - a common header payload
@@ -57,34 +80,58 @@ public class MikeySakkeIMessage {
 	 */
 	public static MikeySakkeIMessage decode(byte[] encoded_i_message)
 			throws MikeyException {
+		return decode(ByteBuffer.wrap(encoded_i_message));
+	}
+
+	/**
+	 * extracts the MikeySakkeIMessage object from the remaining bytes of a buffer,
+	 * leaving the buffer positioned after the last payload. The payloads refer to the
+	 * bytes of the buffer instead of copying them, in particular the SAKKE data and the
+	 * signature are only copied when they are asked for, so the buffer must not be
+	 * changed while the message is in use.
+	 *
+	 * @param buffer - buffer holding the encoded MikeySakkeIMessage
+	 * @return a decoded MikeySakkeIMessage object
+	 * @throws MikeyException - throws MikeyException exception
+	 */
+	public static MikeySakkeIMessage decode(ByteBuffer buffer) throws MikeyException {
 		// Assume HDR is the first chunk of bytes
-		PayloadHDR hdr = PayloadHDR.decodeHDR(encoded_i_message);
-		MikeySakkeIMessage iMessage = new MikeySakkeIMessage(hdr);
+		PayloadHDR hdr;
+		try {
+			hdr = PayloadHDR.decodeHDR(buffer);
+		}
+		catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+			throw new MikeyException("Truncated MIKEY Common Header Payload", e);
+		}
+		if (hdr == null) {
+			throw new MikeyException("I_MESSAGE too short for a Common Header Payload.");
+		}
 
-		byte[] remainingBytes = hdr.getBytesAfterPayload();
-		byte nextPayload = hdr.getNextPayload();
+		List<Payload> payloads = new ArrayList<>();
+		payloads.add(hdr);
 
-		StringBuilder str = new StringBuilder();
-		while (remainingBytes.length > 0) {
+		byte nextPayload = hdr.getNextPayload();
+		while (buffer.hasRemaining() && nextPayload != NextPayload.LAST_PAYLOAD) {
 			Payload next;
-			try { // TODO just for testing
-				next = decodePayload(remainingBytes, nextPayload);
-				if (next != null) {
-					str.append("Next payload decoded and adding to I Message:\n"
-							+ next.toString());
-					iMessage.addPayload(next);
-					remainingBytes = next.getBytesAfterPayload();
-					nextPayload = next.getNextPayload();
-				}
+			try {
+				next = decodePayload(buffer, nextPayload);
+			}
+			catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+				throw new MikeyException("Truncated MIKEY payload of type " + nextPayload,
+						e);
 			}
-			catch (NullPointerException e) {
-				throw new MikeyException(str.toString(), e);
+			if (next == null) {
+				throw new MikeyException(
+						"Truncated MIKEY payload of type " + nextPayload);
 			}
+			payloads.add(next);
+			nextPayload = next.getNextPayload();
 		}
-		return iMessage;
+		return new MikeySakkeIMessage(payloads.toArray(new Payload[payloads.size()]));
 	}
 
-	private static Payload decodePayload(byte[] bytes, byte next) throws MikeyException {
+	private static Payload decodePayload(ByteBuffer bytes, byte next)
+			throws MikeyException {
 		Payload payload = null;
 		switch (next) {
 		case NextPayload.CERT:
@@ -172,45 +219,75 @@ public class MikeySakkeIMessage {
 	}
 
 	/**
-	 * Returns the I_Message encoded as a byte array
+	 * Returns the number of bytes the encoded I_Message takes.
 	 *
-	 * @return encoded I_Message
+	 * @return encoded length of all payloads
 	 */
-	public byte[] getEncoded() {
-		BitArray message = new BitArray(0);
-
+	public int encodedLength() {
+		int length = 0;
 		for (int i = 0; i < payloads.length; i++) {
-			message.appendBitArray(payloads[i].getEncoded());
+			length += payloads[i].encodedLength();
 		}
+		return length;
+	}
 
-		int size = message.getSizeInBytes();
-		byte[] encoded = new byte[size];
-		message.toBytes(0, encoded, 0, size);
+	/**
+	 * Encodes the I_Message at the current position of the buffer, advancing it by
+	 * {@link #encodedLength()} bytes.
+	 *
+	 * @param buffer - buffer to write to
+	 */
+	public void encode(ByteBuffer buffer) {
+		for (int i = 0; i < payloads.length; i++) {
+			payloads[i].encode(buffer);
+		}
+	}
 
-		return encoded;
+	/**
+	 * Returns the I_Message encoded as a byte array
+	 *
+	 * @return encoded I_Message
+	 */
+	public byte[] getEncoded() {
+		int last = payloads.length - 1;
+		if (!(payloads[last] instanceof PayloadSIGN)) {
+			if (signedPortion != null) {
+				return signedPortion.clone();
+			}
+			return encodePayloads(false);
+		}
+		if (signedPortion == null) {
+			return encodePayloads(true);
+		}
 
+		// The signature follows the bytes it was computed over
+		ByteBuffer buffer = ByteBuffer
+				.allocate(signedPortion.length + payloads[last].encodedLength());
+		buffer.put(signedPortion);
+		payloads[last].encode(buffer);
+		return buffer.array();
 	}
 
 	/**
-	 * Returns the I_Message without signature encoded as a byte array
+	 * Returns the I_Message without signature encoded as a byte array, which are the
+	 * bytes the signature is computed over.
+	 *
+	 * For a message without a SIGN payload yet the bytes are kept, so that
+	 * {@link #getEncoded()} reuses them once the signature has been added and the
+	 * message is only encoded once. The array returned is then shared and must not be
+	 * changed, nor may the payloads be changed once the message has been signed.
 	 *
 	 * @return encoded I_Message without signature
 	 */
 	public byte[] getEncodedWithoutSignature() {
-		BitArray message = new BitArray(0);
-
-		for (int i = 0; i < payloads.length; i++) {
-			if (!(payloads[i] instanceof PayloadSIGN)) {
-				message.appendBitArray(payloads[i].getEncoded());
-			}
+		if (signedPortion != null) {
+			return signedPortion;
+		}
+		byte[] encoded = encodePayloads(false);
+		if (getPayload(NextPayload.SIGN) == null) {
+			signedPortion = encoded;
 		}
-
-		int size = message.getSizeInBytes();
-		byte[] encoded = new byte[size];
-		message.toBytes(0, encoded, 0, size);
-
 		return encoded;
-
 	}
 
 	/**
@@ -219,20 +296,32 @@ public class MikeySakkeIMessage {
 	 * @return encoded I_Message
 	 */
 	public byte[] getEncoded(byte[] signature) {
-		BitArray message = new BitArray(0);
+		ByteBuffer buffer = ByteBuffer.allocate(encodedLength() + signature.length);
+		encode(buffer);
+		buffer.put(signature);
+		return buffer.array();
+	}
 
+	/**
+	 * Encodes the payloads into a buffer sized for them up front.
+	 *
+	 * @param includeSignature - whether to encode the SIGN payload
+	 * @return encoded payloads
+	 */
+	private byte[] encodePayloads(boolean includeSignature) {
+		int length = 0;
 		for (int i = 0; i < payloads.length; i++) {
-			message.appendBitArray(payloads[i].getEncoded());
+			if (includeSignature || !(payloads[i] instanceof PayloadSIGN)) {
+				length += payloads[i].encodedLength();
+			}
 		}
-
-		int size = message.getSizeInBytes();
-		byte[] encoded = new byte[size + signature.length];
-		message.toBytes(0, encoded, 0, size);
-
-		for (int i = size; i < size + signature.length; i++) {
-			encoded[i] = signature[i - size];
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		for (int i = 0; i < payloads.length; i++) {
+			if (includeSignature || !(payloads[i] instanceof PayloadSIGN)) {
+				payloads[i].encode(buffer);
+			}
 		}
-		return encoded;
+		return buffer.array();
 	}
 
 	/**
@@ -255,6 +344,9 @@ public class MikeySakkeIMessage {
 		}
 		newPayloads[payloadsLength] = payload;
 		payloads = newPayloads;
+		if (!(payload instanceof PayloadSIGN)) {
+			signedPortion = null;
+		}
 	}
 
 	public PayloadHDR getPayloadHDR() {
@@ -0,0 +1,185 @@
+package net.kapsch.kmc.api.service.mikey;
+
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+
+import net.kapsch.kmc.api.service.mikey.tables.IDRole;
+import net.kapsch.kmc.api.service.mikey.tables.IDType;
+import net.kapsch.kmc.api.service.mikey.tables.NextPayload;
+import net.kapsch.kms.api.time.TimeUtils;
+
+/**
+ * Template for the MIKEY-SAKKE I_MESSAGEs an initiator sends to many responders of the
+ * same KMS with the same security policy, such as when a group management server rekeys
+ * a group.
+ *
+ * I_MESSAGE = HDR, T, RAND, IDRi, IDRr, IDRkmsi, IDRkmsr, SP, SAKKE, [GENERAL_EXT], SIGN
+ *
+ * The IDRi payload and the IDRkmsi, IDRkmsr and SP payloads are encoded once, when the
+ * template is created. Each message then only builds HDR, T, RAND, IDRr, SAKKE and the
+ * optional General Extension payload, and writes them around the pre-encoded bytes into
+ * a buffer of the exact size of the message. That buffer is what the message is signed
+ * over and later sent with its SIGN payload.
+ *
+ * Templates are immutable and safe for use by multiple threads. The messages created
+ * share the invariant payloads, which must not be changed.
+ */
+public final class MikeySakkeIMessageTemplate {
+
+	/**
+	 * The GENERIC-ID CS ID map info of every HDR, which has no per-message fields.
+	 */
+	private static final GenericId CS_ID_MAP_INFO = new GenericId();
+
+	/**
+	 * The initiator's IDR payload.
+	 */
+	private final PayloadIDR idrI;
+
+	/**
+	 * The encoded IDRi payload.
+	 */
+	private final byte[] idrIEncoded;
+
+	/**
+	 * The IDRkmsi, IDRkmsr and SP payloads.
+	 */
+	private final Payload[] invariantPayloads;
+
+	/**
+	 * The encoded IDRkmsi, IDRkmsr and SP payloads, one after the other.
+	 */
+	private final byte[] invariantEncoded;
+
+	/**
+	 * The SAKKE params field of the SAKKE payloads.
+	 */
+	private final byte sakkeParams;
+
+	/**
+	 * Source of the RAND payloads.
+	 */
+	private final SecureRandom random = new SecureRandom();
+
+	/**
+	 * Creates a template and encodes its invariant payloads.
+	 *
+	 * @param initiatorMcpttId - initiator's Mcptt Id (IDRi)
+	 * @param initiatorsKmsMcpttId - initiatorsKms Mcptt Id (IDRkmsi)
+	 * @param respondersKmsMcpttId - respondersKms Mcptt Id (IDRkmsr)
+	 * @param policyParams - the security properties for Security Policy payload (SP)
+	 * @param sakkeParams - the SAKKE parameter set identifier of the SAKKE payload
+	 */
+	public MikeySakkeIMessageTemplate(String initiatorMcpttId,
+			String initiatorsKmsMcpttId, String respondersKmsMcpttId,
+			PolicyParam[] policyParams, byte sakkeParams) {
+		this.idrI = new PayloadIDR(NextPayload.IDR, IDRole.IDR_I, IDType.URI,
+				initiatorMcpttId.getBytes());
+		this.idrIEncoded = this.idrI.getEncodedBytes();
+
+		PayloadIDR idrKmsI = new PayloadIDR(NextPayload.IDR, IDRole.IDR_KMS_I,
+				IDType.URI, initiatorsKmsMcpttId.getBytes());
+		PayloadIDR idrKmsR = new PayloadIDR(NextPayload.SP, IDRole.IDR_KMS_R,
+				IDType.URI, respondersKmsMcpttId.getBytes());
+		PayloadSP sp = new PayloadSP(policyParams,
+				PayloadSP.calculateLength(policyParams));
+		this.invariantPayloads = new Payload[] { idrKmsI, idrKmsR, sp };
+
+		int length = 0;
+		for (Payload payload : this.invariantPayloads) {
+			length += payload.encodedLength();
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		for (Payload payload : this.invariantPayloads) {
+			payload.encode(buffer);
+		}
+		this.invariantEncoded = buffer.array();
+
+		this.sakkeParams = sakkeParams;
+	}
+
+	/**
+	 * Creates the unsigned I_MESSAGE for one responder.
+	 *
+	 * @param responderMcpttId - responder's Mcptt Id (IDRr)
+	 * @param sakkeData - sakke payload, encrypted Shared Secret Value (SSV)
+	 * @param csbId - csb id for Common Header Payload (HDR), (e.g. pck-id, gkm-id, ...)
+	 *
+	 * @return MikeySakkeIMessage object which represent MIKEY-SAKKE I_MESSAGE
+	 *
+	 * @throws MikeyException - throws MikeyException
+	 */
+	public MikeySakkeIMessage create(String responderMcpttId, byte[] sakkeData,
+			int csbId) throws MikeyException {
+		return create(responderMcpttId, sakkeData, csbId, null);
+	}
+
+	/**
+	 * Creates the unsigned I_MESSAGE for one responder, with a General Extension payload
+	 * after the SAKKE payload.
+	 *
+	 * @param responderMcpttId - responder's Mcptt Id (IDRr)
+	 * @param sakkeData - sakke payload, encrypted Shared Secret Value (SSV)
+	 * @param csbId - csb id for Common Header Payload (HDR), (e.g. pck-id, gkm-id, ...)
+	 * @param extension - General Extension payload, or null for none
+	 *
+	 * @return MikeySakkeIMessage object which represent MIKEY-SAKKE I_MESSAGE
+	 *
+	 * @throws MikeyException - throws MikeyException
+	 */
+	public MikeySakkeIMessage create(String responderMcpttId, byte[] sakkeData,
+			int csbId, PayloadGeneralExtension extension) throws MikeyException {
+		PayloadHDR hdr = new PayloadHDR(csbId, CS_ID_MAP_INFO);
+
+		PayloadT t = new PayloadT(
+				TimeUtils.fromNtpEpochTo(LocalDateTime.now()).ntpValue());
+
+		byte[] rand = new byte[PayloadRAND.DEFAULT_RAND_LEN];
+		this.random.nextBytes(rand);
+		PayloadRAND payloadRAND = new PayloadRAND(NextPayload.IDR, rand);
+
+		PayloadIDR idrR = new PayloadIDR(NextPayload.IDR, IDRole.IDR_R, IDType.URI,
+				responderMcpttId.getBytes());
+
+		PayloadSAKKE sakke = new PayloadSAKKE(
+				extension == null ? NextPayload.SIGN : NextPayload.GENERAL_EXT,
+				this.sakkeParams, (byte) 1, sakkeData);
+
+		int count = extension == null ? 9 : 10;
+		Payload[] payloads = new Payload[count];
+		payloads[0] = hdr;
+		payloads[1] = t;
+		payloads[2] = payloadRAND;
+		payloads[3] = this.idrI;
+		payloads[4] = idrR;
+		System.arraycopy(this.invariantPayloads, 0, payloads, 5, 3);
+		payloads[8] = sakke;
+		if (extension != null) {
+			extension.setNextPayload(NextPayload.SIGN);
+			payloads[9] = extension;
+		}
+
+		int length = hdr.encodedLength() + t.encodedLength()
+				+ payloadRAND.encodedLength() + this.idrIEncoded.length
+				+ idrR.encodedLength() + this.invariantEncoded.length
+				+ sakke.encodedLength();
+		if (extension != null) {
+			length += extension.encodedLength();
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		hdr.encode(buffer);
+		t.encode(buffer);
+		payloadRAND.encode(buffer);
+		buffer.put(this.idrIEncoded);
+		idrR.encode(buffer);
+		buffer.put(this.invariantEncoded);
+		sakke.encode(buffer);
+		if (extension != null) {
+			extension.encode(buffer);
+		}
+
+		return new MikeySakkeIMessage(payloads, buffer.array());
+	}
+}
@@ -1,9 +1,13 @@
 package net.kapsch.kmc.api.service.mikey;
 
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
 import com.google.zxing.common.BitArray;
 
 import net.kapsch.kmc.api.service.mikey.tables.NextPayload;
 import net.kapsch.kms.api.bouncycastle.util.Arrays;
+import net.kapsch.kms.api.util.Utils;
 
 /**
  * Class representing a MIKEY Payload of any type.
@@ -32,9 +36,78 @@ public abstract class Payload {
 	}
 
 	public byte[] getBytesAfterPayload() {
+		if (originalBytes == null) {
+			return new byte[0];
+		}
 		return Arrays.copyOfRange(originalBytes, getEndByte(), originalBytes.length);
 	}
 
+	/**
+	 * Records where a payload decoded from the buffer lies, from start to the current
+	 * position of the buffer. For a buffer backed by an array the positions are taken in
+	 * that array, which is kept as the original bytes without copying.
+	 *
+	 * @param buffer - the buffer the payload was decoded from
+	 * @param start - the position of the buffer at the first byte of the payload
+	 */
+	protected void setDecodedBounds(final ByteBuffer buffer, final int start) {
+		if (buffer.hasArray()) {
+			originalBytes = buffer.array();
+			startByte = buffer.arrayOffset() + start;
+			setEndByte(buffer.arrayOffset() + buffer.position());
+		}
+		else {
+			startByte = start;
+			setEndByte(buffer.position());
+		}
+	}
+
+	/**
+	 * Reads the next length bytes of the buffer into a new array.
+	 *
+	 * @param buffer - the buffer to read from
+	 * @param length - the number of bytes to read
+	 * @return the bytes read
+	 */
+	protected static byte[] getBytes(final ByteBuffer buffer, final int length) {
+		if (length < 0 || length > buffer.remaining()) {
+			throw new BufferUnderflowException();
+		}
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return bytes;
+	}
+
+	/**
+	 * Returns a read-only view of the next length bytes of the buffer, without copying
+	 * them, and moves the buffer past them.
+	 *
+	 * @param buffer - the buffer to read from
+	 * @param length - the number of bytes in the view
+	 * @return the view
+	 */
+	protected static ByteBuffer getView(final ByteBuffer buffer, final int length) {
+		if (length < 0 || length > buffer.remaining()) {
+			throw new BufferUnderflowException();
+		}
+		ByteBuffer view = buffer.slice();
+		view.limit(length);
+		buffer.position(buffer.position() + length);
+		return view.asReadOnlyBuffer();
+	}
+
+	/**
+	 * Copies the bytes of a view returned by {@link #getView(ByteBuffer, int)}.
+	 *
+	 * @param view - the view
+	 * @return the bytes of the view
+	 */
+	protected static byte[] copyView(final ByteBuffer view) {
+		byte[] bytes = new byte[view.remaining()];
+		view.duplicate().get(bytes);
+		return bytes;
+	}
+
 	public void setOriginalBytes(byte[] original_bytes) {
 		originalBytes = original_bytes;
 	}
@@ -56,7 +129,36 @@ public abstract class Payload {
 	 *
 	 * @return encoded data
 	 */
-	public abstract BitArray getEncoded();
+	public BitArray getEncoded() {
+		return Utils.getBitsFromBytes(getEncodedBytes());
+	}
+
+	/**
+	 * Encode the Payload object into a byte array
+	 *
+	 * @return encoded data
+	 */
+	public byte[] getEncodedBytes() {
+		ByteBuffer buffer = ByteBuffer.allocate(encodedLength());
+		encode(buffer);
+		return buffer.array();
+	}
+
+	/**
+	 * Returns the number of bytes {@link #encode(ByteBuffer)} writes, so that a buffer
+	 * for a whole message can be sized before any payload is encoded.
+	 *
+	 * @return the encoded length of the Payload
+	 */
+	public abstract int encodedLength();
+
+	/**
+	 * Encode the Payload object at the current position of the buffer, advancing it by
+	 * {@link #encodedLength()} bytes.
+	 *
+	 * @param buffer - buffer to write to
+	 */
+	public abstract void encode(ByteBuffer buffer);
 
 	public int hashCode() {
 		final int PRIME = 31;
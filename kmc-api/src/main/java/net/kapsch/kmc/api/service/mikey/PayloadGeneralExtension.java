@@ -1,13 +1,11 @@
 package net.kapsch.kmc.api.service.mikey;
 
+import java.nio.ByteBuffer;
 import java.security.SecureRandom;
 import java.util.Arrays;
 
-import com.google.zxing.common.BitArray;
-
 import net.kapsch.kmc.api.service.mikey.tables.GeneralExtensionType;
 import net.kapsch.kmc.api.service.mikey.tables.NextPayload;
-import net.kapsch.kms.api.util.Utils;
 
 /**
  * The concatenated 'MCPTT group ID', 'Activation time', 'Text', 'Reserved' and 'Random
@@ -72,18 +70,26 @@ public class PayloadGeneralExtension extends Payload {
 	}
 
 	public static PayloadGeneralExtension decode(final byte[] encoded) {
-		byte nextPayload = encoded[0];
-		byte[] iv = Arrays.copyOfRange(encoded, 1, DEFAULT_IV_SIZE + 1);
-		byte type = encoded[DEFAULT_IV_SIZE + 1];
-		byte[] dataLenArray = { encoded[DEFAULT_IV_SIZE + 2],
-				encoded[DEFAULT_IV_SIZE + 3] };
-		short length = Utils.convertByteArrayToShort(dataLenArray);
-		byte[] data = Arrays.copyOfRange(encoded, DEFAULT_IV_SIZE + 4,
-				DEFAULT_IV_SIZE + 4 + length);
+		return decode(ByteBuffer.wrap(encoded));
+	}
+
+	/**
+	 * Decodes a PayloadGeneralExtension from the current position of the given buffer,
+	 * leaving the buffer positioned after it.
+	 *
+	 * @param buffer - buffer to decode from
+	 * @return decoded PayloadGeneralExtension
+	 */
+	public static PayloadGeneralExtension decode(final ByteBuffer buffer) {
+		int start = buffer.position();
+		byte nextPayload = buffer.get();
+		byte[] iv = getBytes(buffer, DEFAULT_IV_SIZE);
+		byte type = buffer.get();
+		short length = buffer.getShort();
+		byte[] data = getBytes(buffer, length);
 
 		PayloadGeneralExtension result = new PayloadGeneralExtension(nextPayload, iv, type, length, data);
-		result.originalBytes = encoded;
-		result.setEndByte(length + DEFAULT_IV_SIZE + 4);
+		result.setDecodedBounds(buffer, start);
 		return result;
 	}
 
@@ -92,15 +98,17 @@ public class PayloadGeneralExtension extends Payload {
 	}
 
 	@Override
-	public BitArray getEncoded() {
-		BitArray bits = new BitArray(0);
-		bits.appendBits(this.nextPayload, 8);
-		bits.appendBitArray(Utils.getBitsFromBytes(this.iv));
-		bits.appendBits(this.type, 8);
-		bits.appendBits(this.length, 16);
-		bits.appendBitArray(Utils.getBitsFromBytes(this.data));
-
-		return bits;
+	public int encodedLength() {
+		return 4 + this.iv.length + this.data.length;
+	}
+
+	@Override
+	public void encode(ByteBuffer buffer) {
+		buffer.put(this.nextPayload);
+		buffer.put(this.iv);
+		buffer.put(this.type);
+		buffer.putShort(this.length);
+		buffer.put(this.data);
 	}
 
 	private byte[] generateIV() {
@@ -1,13 +1,11 @@
 package net.kapsch.kmc.api.service.mikey;
 
-import com.google.zxing.common.BitArray;
+import java.nio.ByteBuffer;
 
 import net.kapsch.kmc.api.service.mikey.tables.CsIdMapType;
 import net.kapsch.kmc.api.service.mikey.tables.DataType;
 import net.kapsch.kmc.api.service.mikey.tables.NextPayload;
 import net.kapsch.kmc.api.service.mikey.tables.PRFFunc;
-import net.kapsch.kms.api.bouncycastle.util.Arrays;
-import net.kapsch.kms.api.util.Utils;
 
 /**
  * Describes a Common Header Payload for a MIKEY-SAKKE I_MESSAGE. See RFC 6509 section
@@ -118,75 +116,85 @@ public class PayloadHDR extends Payload {
 	 * @throws MikeyException - throws MikeyException exception
 	 */
 	public static PayloadHDR decodeHDR(final byte[] encoded_hdr) throws MikeyException {
+		if (encoded_hdr == null) {
+			return null;
+		}
+		return decodeHDR(ByteBuffer.wrap(encoded_hdr));
+	}
+
+	/**
+	 * Decode a PayloadHDR object from the current position of the given buffer, leaving
+	 * the buffer positioned after it.
+	 *
+	 * @param buffer - buffer to decode from
+	 * @return - decoded PayloadHDR object, or null if fewer than 16 bytes remain
+	 * @throws MikeyException - throws MikeyException exception
+	 */
+	public static PayloadHDR decodeHDR(final ByteBuffer buffer) throws MikeyException {
 		PayloadHDR result = null;
 
-		if (encoded_hdr != null && encoded_hdr.length >= 16) {
+		if (buffer.remaining() >= 16) {
+			int start = buffer.position();
 			// Version is the first byte...
-			byte version = encoded_hdr[0];
+			byte version = buffer.get();
 			// Data type is the second byte...
-			byte data_type = encoded_hdr[1];
+			byte data_type = buffer.get();
 			// Next payload is the third byte...
-			byte next_payload = encoded_hdr[2];
+			byte next_payload = buffer.get();
 			// V and PRF Func are the fourth byte, 1 bit is V and 7 bits are PRF
 			// Func...
-			byte v_and_prf = encoded_hdr[3];
+			byte v_and_prf = buffer.get();
 			int v_bit_int = (v_and_prf) >> 7;
 			boolean v_bit = v_bit_int == 0 ? false : true;
 			byte prf_bits = (byte) (v_and_prf & 0x7f); // bitmask 127 to get rid
 														// of first bit
 
 			// CSB ID is the fifth-eighth bytes
-			byte[] csb_id_bytes = new byte[4];
-			for (int i = 0; i < csb_id_bytes.length; i++) {
-				csb_id_bytes[i] = encoded_hdr[i + 4];
-			}
-			int csb_id = Utils.convertByteArrayToInt(csb_id_bytes);
+			int csb_id = buffer.getInt();
 
 			// CS# us the ninth byte
-			byte cs_number = encoded_hdr[8];
+			byte cs_number = buffer.get();
 			// CS ID map type is the tenth byte
-			byte cs_id_map_type = encoded_hdr[9];
-
-			byte[] remaining_bytes = Arrays.copyOfRange(encoded_hdr, 10,
-					encoded_hdr.length);
+			byte cs_id_map_type = buffer.get();
 
 			// next is CS ID Map Info:
 			CsIdMapInfo info = null;
 
 			switch (cs_id_map_type) {
 			case CsIdMapType.GENERIC_ID:
-				info = GenericId.decodeCsIdMapInfo(remaining_bytes);
+				info = GenericId.decodeCsIdMapInfo(buffer);
 				break;
 			case CsIdMapType.SRTP_ID:
-				info = SrtpId.decode(remaining_bytes, cs_number);
+				info = SrtpId.decode(buffer, cs_number);
 				break;
 			default:
 				throw new MikeyException("Given CS ID Map Type not yet supported.");
 			}
+			if (info == null) {
+				throw new MikeyException("Truncated CS ID Map Info.");
+			}
 
 			result = new PayloadHDR(version, data_type, next_payload, v_bit, prf_bits,
 					csb_id, cs_number, cs_id_map_type, info);
-			result.originalBytes = encoded_hdr;
-			result.startByte = 0;
-			result.setEndByte(10 + info.getEndByte());
+			result.setDecodedBounds(buffer, start);
 		}
 
 		return result;
 	}
 
-	public BitArray getEncoded() {
-		BitArray bits = new BitArray(0);
-		bits.appendBits(version, 8);
-		bits.appendBits(dataType, 8);
-		bits.appendBits(nextPayload, 8);
-		bits.appendBit(v);
-		bits.appendBits(prfFunc, 7);
-		bits.appendBits(csbId, 32);
-		bits.appendBits(csNumber, 8);
-		bits.appendBits(csIdMapType, 8);
-		bits.appendBitArray(csIdMapInfo.getEncoded());
-
-		return bits;
+	public int encodedLength() {
+		return 10 + csIdMapInfo.encodedLength();
+	}
+
+	public void encode(ByteBuffer buffer) {
+		buffer.put(version);
+		buffer.put(dataType);
+		buffer.put(nextPayload);
+		buffer.put((byte) ((v ? 0x80 : 0) | (prfFunc & 0x7f)));
+		buffer.putInt(csbId);
+		buffer.put(csNumber);
+		buffer.put(csIdMapType);
+		csIdMapInfo.encode(buffer);
 	}
 
 	public byte getVersion() {
@@ -1,10 +1,8 @@
 package net.kapsch.kmc.api.service.mikey;
 
-import com.google.zxing.common.BitArray;
+import java.nio.ByteBuffer;
 
 import net.kapsch.kmc.api.service.mikey.tables.NextPayload;
-import net.kapsch.kms.api.bouncycastle.util.Arrays;
-import net.kapsch.kms.api.util.Utils;
 
 /**
  * Describes an IDR Payload for a MIKEY-SAKKE I_MESSAGE. RFC 3830 section 6.7.
@@ -64,30 +62,41 @@ public class PayloadIDR extends Payload {
 	 * @return decoded PayloadIDR object
 	 */
 	public static PayloadIDR decode(final byte[] encoded) {
-		byte nextPayload = encoded[0];
-		byte role = encoded[1];
-		byte type = encoded[2];
-		byte[] lenBytes = Arrays.copyOfRange(encoded, 3, 5);
-		short len = Utils.convertByteArrayToShort(lenBytes);
+		return decode(ByteBuffer.wrap(encoded));
+	}
+
+	/**
+	 * Decode a PayloadIDR object from the current position of the given buffer, leaving
+	 * the buffer positioned after it
+	 *
+	 * @param buffer - buffer to decode from
+	 * @return decoded PayloadIDR object
+	 */
+	public static PayloadIDR decode(final ByteBuffer buffer) {
+		int start = buffer.position();
+		byte nextPayload = buffer.get();
+		byte role = buffer.get();
+		byte type = buffer.get();
+		short len = buffer.getShort();
 		byte[] data;
 
-		data = Arrays.copyOfRange(encoded, 5, 5 + len);
+		data = getBytes(buffer, len);
 
 		PayloadIDR result = new PayloadIDR(nextPayload, role, type, len, data);
-		result.setEndByte(5 + len);
-		result.originalBytes = encoded;
+		result.setDecodedBounds(buffer, start);
 		return result;
 	}
 
-	public BitArray getEncoded() {
-		BitArray bits = new BitArray(0);
-		bits.appendBits(nextPayload, 8);
-		bits.appendBits(idRole, 8);
-		bits.appendBits(idType, 8);
-		bits.appendBits(idLen, 16);
-		bits.appendBitArray(Utils.getBitsFromBytes(idData));
+	public int encodedLength() {
+		return 5 + idData.length;
+	}
 
-		return bits;
+	public void encode(ByteBuffer buffer) {
+		buffer.put(nextPayload);
+		buffer.put(idRole);
+		buffer.put(idType);
+		buffer.putShort(idLen);
+		buffer.put(idData);
 	}
 
 	public byte getRole() {
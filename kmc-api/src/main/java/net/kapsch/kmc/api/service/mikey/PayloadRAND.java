@@ -1,10 +1,9 @@
 package net.kapsch.kmc.api.service.mikey;
 
-import com.google.zxing.common.BitArray;
+import java.nio.ByteBuffer;
 
 import net.kapsch.kmc.api.service.mikey.tables.NextPayload;
 import net.kapsch.kms.api.bouncycastle.util.Arrays;
-import net.kapsch.kms.api.util.Utils;
 
 /**
  * Describes a RAND Payload for a MIKEY-SAKKE I_MESSAGE. RFC 3830 section 6.11.
@@ -71,25 +70,37 @@ public class PayloadRAND extends Payload {
 	 * @return decoded PayloadRAND object
 	 */
 	public static PayloadRAND decode(final byte[] encoded) {
-		byte nextPayload = encoded[0];
-		byte randLen = encoded[1];
+		return decode(ByteBuffer.wrap(encoded));
+	}
+
+	/**
+	 * Decode a PayloadRAND object from the current position of the given buffer, leaving
+	 * the buffer positioned after it
+	 *
+	 * @param buffer - buffer to decode from
+	 * @return decoded PayloadRAND object
+	 */
+	public static PayloadRAND decode(final ByteBuffer buffer) {
+		int start = buffer.position();
+		byte nextPayload = buffer.get();
+		byte randLen = buffer.get();
 		byte[] rand;
 
-		rand = Arrays.copyOfRange(encoded, 2, 2 + randLen);
+		rand = getBytes(buffer, randLen & 0xFF);
 
 		PayloadRAND result = new PayloadRAND(nextPayload, randLen, rand);
-		result.setEndByte(2 + randLen);
-		result.originalBytes = encoded;
+		result.setDecodedBounds(buffer, start);
 		return result;
 	}
 
-	public BitArray getEncoded() {
-		BitArray bits = new BitArray(0);
-		bits.appendBits(nextPayload, 8);
-		bits.appendBits(randLen, 8);
-		bits.appendBitArray(Utils.getBitsFromBytes(rand));
+	public int encodedLength() {
+		return 2 + rand.length;
+	}
 
-		return bits;
+	public void encode(ByteBuffer buffer) {
+		buffer.put(nextPayload);
+		buffer.put(randLen);
+		buffer.put(rand);
 	}
 
 	public byte getRandLen() {
@@ -1,10 +1,9 @@
 package net.kapsch.kmc.api.service.mikey;
 
-import com.google.zxing.common.BitArray;
+import java.nio.ByteBuffer;
 
 import net.kapsch.kmc.api.service.mikey.tables.NextPayload;
 import net.kapsch.kms.api.bouncycastle.util.Arrays;
-import net.kapsch.kms.api.util.Utils;
 
 /**
  * Describes a SAKKE Payload for a MIKEY-SAKKE I_MESSAGE. RFC 6509 section 4.2.
@@ -38,6 +37,12 @@ public class PayloadSAKKE extends Payload {
 	 */
 	private byte[] sakkeData;
 
+	/**
+	 * The SAKKE data of a decoded payload as a view of the decoded bytes, copied to
+	 * {@link #sakkeData} when first asked for.
+	 */
+	private ByteBuffer sakkeDataView;
+
 	public PayloadSAKKE(final byte nextPayload, final byte sakkeParams,
 			final byte idScheme, final short sakkeDataLen, final byte[] sakkeData) {
 
@@ -72,6 +77,19 @@ public class PayloadSAKKE extends Payload {
 		this.sakkeData = Arrays.clone(sakkeData);
 	}
 
+	/**
+	 * Creates a decoded PayloadSAKKE whose SAKKE data is left in the decoded bytes.
+	 */
+	private PayloadSAKKE(final byte nextPayload, final byte sakkeParams,
+			final byte idScheme, final ByteBuffer sakkeDataView) {
+		payloadType = NextPayload.SAKKE;
+		this.nextPayload = nextPayload;
+		this.sakkeParams = sakkeParams;
+		this.idScheme = idScheme;
+		this.sakkeDataLen = (short) sakkeDataView.remaining();
+		this.sakkeDataView = sakkeDataView;
+	}
+
 	private static int hashCode(byte[] array) {
 		int prime = 31;
 		if (array == null) {
@@ -91,33 +109,48 @@ public class PayloadSAKKE extends Payload {
 	 * @return decoded PayloadSAKKE object
 	 */
 	public static PayloadSAKKE decode(final byte[] encoded) {
-		byte next_payload = encoded[0];
-		byte sakke_params = encoded[1];
-		byte id_scheme = encoded[2];
-		byte[] data_len_array = { encoded[3], encoded[4] };
-		short data_length = Utils.convertByteArrayToShort(data_len_array);
-
-		byte[] rand;
+		return decode(ByteBuffer.wrap(encoded));
+	}
 
-		rand = Arrays.copyOfRange(encoded, 5, 5 + data_length);
+	/**
+	 * Decode a PayloadSAKKE object from the current position of the given buffer,
+	 * leaving the buffer positioned after it. The SAKKE data is not copied until it is
+	 * asked for, so the buffer must not be changed while the payload is in use.
+	 *
+	 * @param buffer - buffer to decode from
+	 * @return decoded PayloadSAKKE object
+	 */
+	public static PayloadSAKKE decode(final ByteBuffer buffer) {
+		int start = buffer.position();
+		byte next_payload = buffer.get();
+		byte sakke_params = buffer.get();
+		byte id_scheme = buffer.get();
+		short data_length = buffer.getShort();
 
 		PayloadSAKKE result = new PayloadSAKKE(next_payload, sakke_params, id_scheme,
-				data_length, rand);
-		result.setEndByte(5 + data_length);
-		result.originalBytes = encoded;
+				getView(buffer, data_length));
+		result.setDecodedBounds(buffer, start);
 		return result;
 	}
 
-	public BitArray getEncoded() {
-		BitArray bits = new BitArray(0);
-
-		bits.appendBits(nextPayload, 8);
-		bits.appendBits(sakkeParams, 8);
-		bits.appendBits(idScheme, 8);
-		bits.appendBits(sakkeDataLen, 16);
-		bits.appendBitArray(Utils.getBitsFromBytes(sakkeData));
+	public int encodedLength() {
+		if (sakkeData == null && sakkeDataView != null) {
+			return 5 + sakkeDataView.remaining();
+		}
+		return 5 + sakkeData.length;
+	}
 
-		return bits;
+	public void encode(ByteBuffer buffer) {
+		buffer.put(nextPayload);
+		buffer.put(sakkeParams);
+		buffer.put(idScheme);
+		buffer.putShort(sakkeDataLen);
+		if (sakkeData == null && sakkeDataView != null) {
+			buffer.put(sakkeDataView.duplicate());
+		}
+		else {
+			buffer.put(sakkeData);
+		}
 	}
 
 	public byte getSakkeParams() {
@@ -133,15 +166,31 @@ public class PayloadSAKKE extends Payload {
 	}
 
 	public byte[] getSakkeData() {
+		if (sakkeData == null && sakkeDataView != null) {
+			sakkeData = copyView(sakkeDataView);
+		}
 		return sakkeData;
 	}
 
+	/**
+	 * Returns a read-only view of the SAKKE data, which does not copy the data of a
+	 * decoded payload.
+	 *
+	 * @return the SAKKE data
+	 */
+	public ByteBuffer getSakkeDataBuffer() {
+		if (sakkeData == null && sakkeDataView != null) {
+			return sakkeDataView.duplicate();
+		}
+		return ByteBuffer.wrap(getSakkeData()).asReadOnlyBuffer();
+	}
+
 	@Override
 	public int hashCode() {
 		final int PRIME = 31;
 		int result = super.hashCode();
 		result = PRIME * result + idScheme;
-		result = PRIME * result + PayloadSAKKE.hashCode(sakkeData);
+		result = PRIME * result + PayloadSAKKE.hashCode(getSakkeData());
 		result = PRIME * result + sakkeDataLen;
 		result = PRIME * result + sakkeParams;
 		return result;
@@ -162,7 +211,7 @@ public class PayloadSAKKE extends Payload {
 		if (idScheme != other.idScheme) {
 			return false;
 		}
-		if (!Arrays.areEqual(sakkeData, other.sakkeData)) {
+		if (!Arrays.areEqual(getSakkeData(), other.getSakkeData())) {
 			return false;
 		}
 		if (sakkeDataLen != other.sakkeDataLen) {
@@ -182,8 +231,9 @@ public class PayloadSAKKE extends Payload {
 		str.append("\tID scheme: " + idScheme + "\n");
 		str.append("\tSAKKE data length: " + sakkeDataLen + "\n");
 		str.append("\tSAKKE data:");
-		for (int i = 0; i < sakkeData.length; i++) {
-			str.append(" " + sakkeData[i]);
+		byte[] data = getSakkeData();
+		for (int i = 0; i < data.length; i++) {
+			str.append(" " + data[i]);
 		}
 		str.append("\n");
 		return str.toString();
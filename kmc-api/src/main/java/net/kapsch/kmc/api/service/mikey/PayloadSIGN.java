@@ -1,11 +1,10 @@
 package net.kapsch.kmc.api.service.mikey;
 
-import com.google.zxing.common.BitArray;
+import java.nio.ByteBuffer;
 
 import net.kapsch.kmc.api.service.mikey.tables.NextPayload;
 import net.kapsch.kmc.api.service.mikey.tables.SType;
 import net.kapsch.kms.api.bouncycastle.util.Arrays;
-import net.kapsch.kms.api.util.Utils;
 
 /**
  * Describes a SIGN Payload for a MIKEY-SAKKE I_MESSAGE. RFC 3830 section 6.5.
@@ -35,6 +34,12 @@ public class PayloadSIGN extends Payload {
 	 */
 	byte[] signature;
 
+	/**
+	 * The signature of a decoded payload as a view of the decoded bytes, copied to
+	 * {@link #signature} when first asked for.
+	 */
+	private ByteBuffer signatureView;
+
 	public PayloadSIGN(final byte type, final short len, final byte[] sig) {
 		if ((0xff & len) != sig.length) {
 			throw new IllegalArgumentException(
@@ -68,6 +73,16 @@ public class PayloadSIGN extends Payload {
 		signature = new byte[0];
 	}
 
+	/**
+	 * Creates a decoded PayloadSIGN whose signature is left in the decoded bytes.
+	 */
+	private PayloadSIGN(final byte type, final ByteBuffer signatureView) {
+		payloadType = NextPayload.SIGN;
+		sType = type;
+		signatureLen = (short) signatureView.remaining();
+		this.signatureView = signatureView;
+	}
+
 	private static int hashCode(byte[] array) {
 		int prime = 31;
 		if (array == null) {
@@ -87,38 +102,56 @@ public class PayloadSIGN extends Payload {
 	 * @return - decoded PayloadSIGN
 	 */
 	public static PayloadSIGN decode(final byte[] encoded) {
+		if (encoded == null) {
+			return null;
+		}
+		return decode(ByteBuffer.wrap(encoded));
+	}
+
+	/**
+	 * decodes a PayloadSIGN object from the current position of the given buffer,
+	 * leaving the buffer positioned after it. The signature is not copied until it is
+	 * asked for, so the buffer must not be changed while the payload is in use.
+	 *
+	 * @param buffer - buffer to decode from
+	 * @return - decoded PayloadSIGN
+	 */
+	public static PayloadSIGN decode(final ByteBuffer buffer) {
 		PayloadSIGN result = null;
-		if (encoded != null && encoded.length >= 2) {
+		if (buffer.remaining() >= 2) {
+			int start = buffer.position();
 
 			// First 4 bits is S type, next 12 is signature length
-			byte[] first_two = Arrays.copyOfRange(encoded, 0, 2);
-			short s_type_and_len = Utils.convertByteArrayToShort(first_two);
+			int s_type_and_len = buffer.getShort() & 0xffff;
 			// bit shift 12 to get first 4 bits
-			short s_type_short = (short) (s_type_and_len >>> 12);
-			byte s_type = (byte) s_type_short;
+			byte s_type = (byte) (s_type_and_len >>> 12);
 			// bitmask 0xFFF to get rid of first 4 bits
 			short len = (short) (s_type_and_len & 0xfff);
-			byte[] signature;
-			signature = Arrays.copyOfRange(encoded, 2, 2 + len);
 
-			result = new PayloadSIGN(s_type, len, signature);
-			result.setEndByte(2 + len);
-			result.originalBytes = encoded;
+			result = new PayloadSIGN(s_type, getView(buffer, len));
+			result.setDecodedBounds(buffer, start);
 		}
 
 		return result;
 
 	}
 
-	public BitArray getEncoded() {
-
-		BitArray bits = new BitArray(0);
-
-		bits.appendBits(sType, 4);
-		bits.appendBits(signatureLen, 12);
-		bits.appendBitArray(Utils.getBitsFromBytes(signature));
+	public int encodedLength() {
+		if (signature == null && signatureView != null) {
+			return 2 + signatureView.remaining();
+		}
+		return 2 + signature.length;
+	}
 
-		return bits;
+	public void encode(ByteBuffer buffer) {
+		// First 4 bits is S type, next 12 is signature length
+		buffer.putShort((short) ((sType << 12) | (signatureLen & 0xfff)));
+		if (signature == null && signatureView != null) {
+			buffer.put(signatureView.duplicate());
+		}
+		else {
+			buffer.put(signature);
+		}
 	}
 
 	public byte getsType() {
@@ -130,15 +163,31 @@ public class PayloadSIGN extends Payload {
 	}
 
 	public byte[] getSignature() {
+		if (signature == null && signatureView != null) {
+			signature = copyView(signatureView);
+		}
 		return signature;
 	}
 
+	/**
+	 * Returns a read-only view of the signature, which does not copy the signature of a
+	 * decoded payload.
+	 *
+	 * @return the signature
+	 */
+	public ByteBuffer getSignatureBuffer() {
+		if (signature == null && signatureView != null) {
+			return signatureView.duplicate();
+		}
+		return ByteBuffer.wrap(getSignature()).asReadOnlyBuffer();
+	}
+
 	@Override
 	public int hashCode() {
 		final int PRIME = 31;
 		int result = super.hashCode();
 		result = PRIME * result + sType;
-		result = PRIME * result + PayloadSIGN.hashCode(signature);
+		result = PRIME * result + PayloadSIGN.hashCode(getSignature());
 		result = PRIME * result + signatureLen;
 		return result;
 	}
@@ -158,7 +207,7 @@ public class PayloadSIGN extends Payload {
 		if (sType != other.sType) {
 			return false;
 		}
-		if (!Arrays.areEqual(signature, other.signature)) {
+		if (!Arrays.areEqual(getSignature(), other.getSignature())) {
 			return false;
 		}
 		if (signatureLen != other.signatureLen) {
@@ -173,8 +222,9 @@ public class PayloadSIGN extends Payload {
 		str.append("\tNext payload: " + nextPayload + "\n");
 		str.append("\tS type: " + sType + "\n");
 		str.append("\tSignature:");
-		for (int i = 0; i < signature.length; i++) {
-			str.append(" " + signature[i]);
+		byte[] sig = getSignature();
+		for (int i = 0; i < sig.length; i++) {
+			str.append(" " + sig[i]);
 		}
 		str.append("\n");
 		return str.toString();
@@ -1,11 +1,9 @@
 package net.kapsch.kmc.api.service.mikey;
 
-import com.google.zxing.common.BitArray;
+import java.nio.ByteBuffer;
 
 import net.kapsch.kmc.api.service.mikey.tables.NextPayload;
 import net.kapsch.kmc.api.service.mikey.tables.ProtType;
-import net.kapsch.kms.api.bouncycastle.util.Arrays;
-import net.kapsch.kms.api.util.Utils;
 
 /**
  * Describes a Security Policy Payload for a MIKEY-SAKKE I_MESSAGE. RFC 3830 section 6.10.
@@ -79,20 +77,29 @@ public class PayloadSP extends Payload {
 	 * @return - decoded PayloadSPdecoded
 	 */
 	public static PayloadSP decodeSP(byte[] encoded) {
-		byte nextPayload = encoded[0];
-		byte policyNo = encoded[1];
-		byte protType = encoded[2];
-		byte[] policyParamLenBytes = Arrays.copyOfRange(encoded, 3, 5);
-		short policyParamLen = Utils.convertByteArrayToShort(policyParamLenBytes);
+		return decodeSP(ByteBuffer.wrap(encoded));
+	}
 
-		PolicyParam[] policyParams = PolicyParam.decodePolicyParams(
-				Arrays.copyOfRange(encoded, 5, 5 + policyParamLen), policyParamLen);
+	/**
+	 * Decodes a PayloadSP from the current position of the given buffer, leaving the
+	 * buffer positioned after it
+	 * @param buffer - buffer to decode from
+	 * @return - decoded PayloadSP
+	 */
+	public static PayloadSP decodeSP(ByteBuffer buffer) {
+		int start = buffer.position();
+		byte nextPayload = buffer.get();
+		byte policyNo = buffer.get();
+		byte protType = buffer.get();
+		short policyParamLen = buffer.getShort();
+
+		PolicyParam[] policyParams = PolicyParam
+				.decodePolicyParams(getBytes(buffer, policyParamLen), policyParamLen);
 
 		PayloadSP result = new PayloadSP(nextPayload, policyNo, protType, policyParamLen,
 				policyParams);
 
-		result.setEndByte(5 + policyParamLen);
-		result.originalBytes = encoded;
+		result.setDecodedBounds(buffer, start);
 		return result;
 	}
 
@@ -116,16 +123,22 @@ public class PayloadSP extends Payload {
 
 	}
 
-	public BitArray getEncoded() {
-		BitArray bits = new BitArray();
-		bits.appendBits(nextPayload, 8);
-		bits.appendBits(policyNo, 8);
-		bits.appendBits(protType, 8);
-		bits.appendBits(policyParamLen, 16);
+	public int encodedLength() {
+		int length = 5;
+		for (int i = 0; i < policyParams.length; i++) {
+			length += policyParams[i].encodedLength();
+		}
+		return length;
+	}
+
+	public void encode(ByteBuffer buffer) {
+		buffer.put(nextPayload);
+		buffer.put(policyNo);
+		buffer.put(protType);
+		buffer.putShort(policyParamLen);
 		for (int i = 0; i < policyParams.length; i++) {
-			bits.appendBitArray(policyParams[i].getEncoded());
+			policyParams[i].encode(buffer);
 		}
-		return bits;
 	}
 
 	public String toString() {
@@ -1,6 +1,6 @@
 package net.kapsch.kmc.api.service.mikey;
 
-import com.google.zxing.common.BitArray;
+import java.nio.ByteBuffer;
 
 import net.kapsch.kmc.api.service.mikey.tables.NextPayload;
 import net.kapsch.kmc.api.service.mikey.tables.TSType;
@@ -79,8 +79,20 @@ public class PayloadT extends Payload {
 	 * @return decoded PayloadT object
 	 */
 	public static PayloadT decodeT(final byte[] encoded) {
-		byte next = encoded[0];
-		byte type = encoded[1];
+		return decodeT(ByteBuffer.wrap(encoded));
+	}
+
+	/**
+	 * decodes a PayloadT object from the current position of the given buffer, leaving
+	 * the buffer positioned after it
+	 *
+	 * @param buffer - buffer to decode from
+	 * @return decoded PayloadT object
+	 */
+	public static PayloadT decodeT(final ByteBuffer buffer) {
+		int start = buffer.position();
+		byte next = buffer.get();
+		byte type = buffer.get();
 
 		byte ts_len = 0;
 
@@ -101,20 +113,21 @@ public class PayloadT extends Payload {
 			break;
 		}
 
-		byte[] ts = Arrays.copyOfRange(encoded, 2, 2 + ts_len);
+		byte[] ts = getBytes(buffer, ts_len);
 
 		PayloadT result = new PayloadT(next, type, ts);
-		result.setEndByte(2 + ts_len);
-		result.originalBytes = encoded;
+		result.setDecodedBounds(buffer, start);
 		return result;
 	}
 
-	public BitArray getEncoded() {
-		BitArray bits = new BitArray(0);
-		bits.appendBits(nextPayload, 8);
-		bits.appendBits(tsType, 8);
-		bits.appendBitArray(Utils.getBitsFromBytes(tsValue));
-		return bits;
+	public int encodedLength() {
+		return 2 + tsValue.length;
+	}
+
+	public void encode(ByteBuffer buffer) {
+		buffer.put(nextPayload);
+		buffer.put(tsType);
+		buffer.put(tsValue);
 	}
 
 	public byte getTsType() {
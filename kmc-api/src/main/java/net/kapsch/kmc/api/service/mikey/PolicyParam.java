@@ -1,5 +1,6 @@
 package net.kapsch.kmc.api.service.mikey;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 
 import com.google.zxing.common.BitArray;
@@ -66,12 +67,30 @@ public class PolicyParam {
 		return result;
 	}
 
+	/**
+	 * Returns the number of bytes {@link #encode(ByteBuffer)} writes.
+	 *
+	 * @return the encoded length
+	 */
+	public int encodedLength() {
+		return 2 + value.length;
+	}
+
+	/**
+	 * Writes the encoded policy parameter at the current position of the buffer.
+	 *
+	 * @param buffer - buffer to write to
+	 */
+	public void encode(ByteBuffer buffer) {
+		buffer.put(type);
+		buffer.put(length);
+		buffer.put(value);
+	}
+
 	public BitArray getEncoded() {
-		BitArray bits = new BitArray();
-		bits.appendBits(type, 8);
-		bits.appendBits(length, 8);
-		bits.appendBitArray(Utils.getBitsFromBytes(value));
-		return bits;
+		ByteBuffer buffer = ByteBuffer.allocate(encodedLength());
+		encode(buffer);
+		return Utils.getBitsFromBytes(buffer.array());
 	}
 
 	public byte getLength() {
@@ -1,5 +1,6 @@
 package net.kapsch.kmc.api.service.mikey;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 
 import com.google.zxing.common.BitArray;
@@ -65,15 +66,32 @@ public class SessionData {
 		return result;
 	}
 
-	public BitArray getEncoded() {
-		BitArray bits = new BitArray();
-		bits.appendBits(ssrc, 32);
+	/**
+	 * Returns the number of bytes {@link #encode(ByteBuffer)} writes.
+	 *
+	 * @return the encoded length
+	 */
+	public int encodedLength() {
+		return includeOptional ? 10 : 4;
+	}
+
+	/**
+	 * Writes the encoded session data at the current position of the buffer.
+	 *
+	 * @param buffer - buffer to write to
+	 */
+	public void encode(ByteBuffer buffer) {
+		buffer.putInt(ssrc);
 		if (includeOptional) {
-			bits.appendBits(roc, 32);
-			bits.appendBits(seq, 16);
+			buffer.putInt(roc);
+			buffer.putShort(seq);
 		}
+	}
 
-		return bits;
+	public BitArray getEncoded() {
+		ByteBuffer buffer = ByteBuffer.allocate(encodedLength());
+		encode(buffer);
+		return Utils.getBitsFromBytes(buffer.array());
 	}
 
 	@Override
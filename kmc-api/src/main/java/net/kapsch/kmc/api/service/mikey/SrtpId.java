@@ -1,9 +1,8 @@
 package net.kapsch.kmc.api.service.mikey;
 
-import com.google.zxing.common.BitArray;
+import java.nio.ByteBuffer;
 
 import net.kapsch.kms.api.bouncycastle.util.Arrays;
-import net.kapsch.kms.api.util.Utils;
 
 /**
  * Describes a CsIdMapInfo section of the HDR payload, which identifies and maps the
@@ -37,38 +36,45 @@ public class SrtpId extends CsIdMapInfo {
 	 * @return the decoded SrtpId.
 	 */
 	public static SrtpId decode(byte[] encoded, byte csNo) {
+		return decode(ByteBuffer.wrap(encoded), csNo);
+	}
+
+	/**
+	 * Decodes an SrtpId from the current position of the given buffer, leaving the
+	 * buffer positioned after it. Each CryptoSession takes 9 bytes: the policy number,
+	 * the SSRC and the ROC.
+	 * @param buffer - buffer to decode from
+	 * @param csNo - the number of CryptoSessions
+	 * @return the decoded SrtpId.
+	 */
+	public static SrtpId decode(ByteBuffer buffer, byte csNo) {
+		int start = buffer.position();
 		byte[] policies = new byte[csNo];
 		int[] ssrcs = new int[csNo];
 		int[] rocs = new int[csNo];
 
-		int endbyte = 0;
 		for (int i = 0; i < csNo; i++) {
-			byte policy = encoded[i];
-			byte[] ssrcbytes = Arrays.copyOfRange(encoded, i + 1, i + 5);
-			int ssrc = Utils.convertByteArrayToInt(ssrcbytes);
-			byte[] rocbytes = Arrays.copyOfRange(encoded, i + 5, i + 9);
-			int roc = Utils.convertByteArrayToInt(rocbytes);
-			endbyte = endbyte + 9;
-			policies[i] = policy;
-			ssrcs[i] = ssrc;
-			rocs[i] = roc;
+			policies[i] = buffer.get();
+			ssrcs[i] = buffer.getInt();
+			rocs[i] = buffer.getInt();
 		}
 
 		SrtpId result = new SrtpId(policies, ssrcs, rocs);
-		result.setEndByte(endbyte);
-		result.originalBytes = encoded;
+		result.setDecodedBounds(buffer, start);
 		return result;
 
 	}
 
-	public BitArray getEncoded() {
-		BitArray bits = new BitArray();
+	public int encodedLength() {
+		return 9 * policyNo.length;
+	}
+
+	public void encode(ByteBuffer buffer) {
 		for (int i = 0; i < policyNo.length; i++) {
-			bits.appendBits(policyNo[i], 8);
-			bits.appendBits(ssrc[i], 32);
-			bits.appendBits(roc[i], 32);
+			buffer.put(policyNo[i]);
+			buffer.putInt(ssrc[i]);
+			buffer.putInt(roc[i]);
 		}
-		return bits;
 	}
 
 	public void addPolicy(byte policyNo, int ssrc, int roc) {
@@ -2,9 +2,16 @@ package net.kapsch.kmc.api.service;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.math.BigInteger;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.xml.bind.JAXBException;
 import javax.xml.stream.XMLStreamException;
@@ -77,6 +84,10 @@ public class ClientUnitTest implements WithBDDMockito {
 	private final static OctetString TARGET_RSK = OctetString.fromHex(
 			"0475ACBF340C8791EDB882E0E2EBD080D5C619100E9C5E1246C0EC084120488FBDBCA508A51DF07A8C5B9F3B8415863EA052F575CB8F2BE78F597E61B5DFA8F96F024E0AAEB4060C6F59C72B7FE5DF31764BD73F0F9FD050315C5025262E6DB8ED3FFC2B179076BC459B0F1CE4C6886F7FE7CCF3C6C4CBDE109AA2C6C8878A4B600B65D13AD31755C2D9A41133024036947553C9FC0C2499D4A4BC881717FD1525CF324204291E5BD01787A73204A1C60DE5C0934C3851EC12F4EF1C25960F5D1C21A4418A679B98AB13BE7B49A2FB35DE4C20403A81C9CC113DDED218A2854E065017FFC68BB720561CB3736BE44DE163E9389AB853579D8013493659C497C229");
 
+	private final static BigInteger INIT_EPHEMERAL_V = new BigInteger("23456", 16);
+
+	private final static BigInteger TARGET_EPHEMERAL_V = new BigInteger("34567", 16);
+
 	private Client initClient;
 	private Client targetClient;
 	private MarshallerService marshallerService;
@@ -235,6 +246,86 @@ public class ClientUnitTest implements WithBDDMockito {
 				receivedRequest.getKeyPair().getKey());
 	}
 
+	@Test
+	public void testDistributeGroupKey() throws Exception {
+		KmsTestKeys.provisionKeys(this.initClient, INIT_EPHEMERAL_V);
+		KmsTestKeys.provisionKeys(this.targetClient, TARGET_EPHEMERAL_V);
+		byte[] mcpptGroupId = ("mcpptGroupId").getBytes();
+		byte[] activationTime = ("activate").getBytes();
+		byte[] text = ("text").getBytes();
+		KeyPair gmk = new KeyPair(new RandomGeneratorImpl().generate(16).getOctets(),
+				KeyUtils.generateKeyIdentifier(PurposeTag.GMK));
+
+		List<GroupMember> members = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			members.add(new GroupMember("member" + i + "@example.org", KMS_URI));
+		}
+		members.add(new GroupMember(TARGET_MCPTT_ID, KMS_URI));
+
+		List<CompletableFuture<GroupCallRequest>> requests = this.initClient
+				.distributeGroupKey(mcpptGroupId, gmk, members, activationTime, text);
+
+		Assert.assertEquals(members.size(), requests.size());
+		for (int i = 0; i < members.size(); i++) {
+			MikeySakkeIMessage iMessage = requests.get(i).get().getMikeySakkeIMessage();
+			Assert.assertEquals(members.get(i).getMcpttId(),
+					new String(iMessage.extractIDR(IDRole.IDR_R)));
+		}
+
+		GroupCallRequest receivedRequest = this.targetClient
+				.processGroupKeyTransportMessage(MikeySakkeIMessage.decode(requests
+						.get(members.size() - 1).get().getMikeySakkeIMessage()
+						.getEncoded()));
+
+		Assert.assertArrayEquals(gmk.getKey(), receivedRequest.getKeyPair().getKey());
+		Assert.assertEquals(gmk.getKeyIdentifier(),
+				receivedRequest.getKeyPair().getKeyIdentifier());
+	}
+
+	@Test
+	public void testDistributeGroupKeyRejected() throws Exception {
+		KmsTestKeys.provisionKeys(this.initClient, INIT_EPHEMERAL_V);
+		KeyPair gmk = new KeyPair(new RandomGeneratorImpl().generate(16).getOctets(),
+				KeyUtils.generateKeyIdentifier(PurposeTag.GMK));
+
+		List<GroupMember> members = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			members.add(new GroupMember("member" + i + "@example.org", KMS_URI));
+		}
+
+		// runs the first batch and rejects the others
+		Executor executor = new Executor() {
+			private int accepted;
+
+			@Override
+			public void execute(Runnable task) {
+				if (this.accepted++ > 0) {
+					throw new RejectedExecutionException("Executor is full.");
+				}
+				task.run();
+			}
+		};
+
+		List<CompletableFuture<GroupCallRequest>> requests = this.initClient
+				.distributeGroupKey(("mcpptGroupId").getBytes(), gmk, members,
+						("activate").getBytes(), ("text").getBytes(), executor);
+
+		for (int i = 0; i < members.size(); i++) {
+			Assert.assertTrue(requests.get(i).isDone());
+			if (i < 8) {
+				Assert.assertNotNull(requests.get(i).get().getMikeySakkeIMessage());
+				continue;
+			}
+			try {
+				requests.get(i).get();
+				Assert.fail("Member " + i + " distributed to");
+			}
+			catch (ExecutionException e) {
+				Assert.assertTrue(e.getCause() instanceof RejectedExecutionException);
+			}
+		}
+	}
+
 	private OctetString createIdentifier(String mcpttId, String kmsUri) {
 		return new OctetString(MikeySakkeUid.generateUid(mcpttId, kmsUri,
 				KEY_PERIOD_LENGHT, KEY_PERIOD_OFFSET, CURRENT_KEY_PERIOD_NO).getBytes());
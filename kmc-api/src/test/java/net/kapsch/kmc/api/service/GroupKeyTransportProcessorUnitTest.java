@@ -0,0 +1,179 @@
+package net.kapsch.kmc.api.service;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.kapsch.kmc.api.service.mikey.MikeyException;
+import net.kapsch.kmc.api.service.mikey.MikeySakkeIMessage;
+import net.kapsch.kmc.api.service.mikey.MikeySakkeIMessageTemplate;
+import net.kapsch.kmc.api.service.mikey.PayloadSIGN;
+import net.kapsch.kmc.api.service.mikey.tables.SRTPDefaultProfile;
+import net.kapsch.kms.api.mikeysakke.crypto.EccsiException;
+
+public class GroupKeyTransportProcessorUnitTest {
+
+	private final static String INIT_MCPTT_ID = "test3@example.org";
+
+	private final static String TARGET_MCPTT_ID = "test4@example.org";
+
+	private final static String KMS_URI = "kms.example.org";
+
+	private Client initClient;
+
+	private GroupKeyTransportProcessor processor;
+
+	@Before
+	public void setup() throws Exception {
+		this.initClient = KmsTestKeys.createClient(INIT_MCPTT_ID,
+				new BigInteger("23456", 16));
+		Client targetClient = KmsTestKeys.createClient(TARGET_MCPTT_ID,
+				new BigInteger("34567", 16));
+		this.processor = new GroupKeyTransportProcessor(targetClient, 2, 4);
+	}
+
+	@After
+	public void tearDown() {
+		this.processor.close();
+	}
+
+	private MikeySakkeIMessage createIMessage() throws MikeyException {
+		MikeySakkeIMessage iMessage = new MikeySakkeIMessageTemplate(
+				INIT_MCPTT_ID, KMS_URI, KMS_URI,
+				SRTPDefaultProfile.getGroupCallPolicyParams(), (byte) 1)
+						.create(TARGET_MCPTT_ID, new byte[273], 1);
+		iMessage.addPayload(new PayloadSIGN(new byte[129]));
+		return iMessage;
+	}
+
+	private static Throwable cause(CompletableFuture<GroupCallRequest> result)
+			throws InterruptedException {
+		try {
+			result.get(10, TimeUnit.SECONDS);
+		}
+		catch (ExecutionException e) {
+			return e.getCause();
+		}
+		catch (Exception e) {
+			Assert.fail(e.toString());
+		}
+		Assert.fail("Message processed");
+		return null;
+	}
+
+	@Test
+	public void testGroupCallRequest() throws Exception {
+		byte[] mcpttGroupId = ("mcpptGroupId").getBytes();
+
+		for (boolean compressedPoints : new boolean[] { false, true }) {
+			this.initClient.setCompressedPoints(compressedPoints);
+			GroupCallRequest request = this.initClient.generateGroupCallRequest(
+					TARGET_MCPTT_ID, KMS_URI, KMS_URI, mcpttGroupId,
+					("activate").getBytes(), ("text").getBytes());
+			byte[] encoded = request.getMikeySakkeIMessage().getEncoded();
+
+			List<CompletableFuture<GroupCallRequest>> results = new ArrayList<>();
+			for (int i = 0; i < 5; i++) {
+				results.add(this.processor.process(encoded));
+				results.add(this.processor.process(MikeySakkeIMessage.decode(encoded)));
+			}
+
+			for (CompletableFuture<GroupCallRequest> result : results) {
+				GroupCallRequest received = result.get(10, TimeUnit.SECONDS);
+				Assert.assertArrayEquals(request.getKeyPair().getKey(),
+						received.getKeyPair().getKey());
+				Assert.assertEquals(request.getKeyPair().getKeyIdentifier(),
+						received.getKeyPair().getKeyIdentifier());
+
+				// the MCPTT group ID element, a two octet length followed by the ID
+				byte[] receivedGroupId = received.getMcpttGroupId();
+				Assert.assertEquals(mcpttGroupId.length,
+						((receivedGroupId[0] & 0xFF) << 8) | (receivedGroupId[1] & 0xFF));
+				Assert.assertArrayEquals(mcpttGroupId, Arrays.copyOfRange(receivedGroupId,
+						2, 2 + mcpttGroupId.length));
+			}
+		}
+	}
+
+	@Test
+	public void testTruncatedMessage() throws Exception {
+		byte[] encoded = createIMessage().getEncoded();
+		byte[] truncated = new byte[encoded.length / 2];
+		System.arraycopy(encoded, 0, truncated, 0, truncated.length);
+
+		Assert.assertTrue(cause(this.processor.process(truncated)) instanceof MikeyException);
+	}
+
+	@Test
+	public void testInvalidSignature() throws Exception {
+		Assert.assertTrue(cause(this.processor
+				.process(createIMessage().getEncoded())) instanceof EccsiException);
+	}
+
+	@Test
+	public void testBurstOfMessages() throws Exception {
+		byte[] encoded = createIMessage().getEncoded();
+
+		// more messages than the queues hold, the submitting thread waits for room
+		CompletableFuture<?>[] results = new CompletableFuture<?>[50];
+		for (int i = 0; i < results.length; i++) {
+			results[i] = this.processor.process(encoded);
+		}
+		for (CompletableFuture<?> result : results) {
+			try {
+				result.get(10, TimeUnit.SECONDS);
+				Assert.fail("Message processed");
+			}
+			catch (ExecutionException e) {
+				Assert.assertTrue(e.getCause() instanceof EccsiException);
+			}
+		}
+	}
+
+	@Test
+	public void testCloseCompletesSubmittedMessages() throws Exception {
+		byte[] encoded = createIMessage().getEncoded();
+		CompletableFuture<?>[] results = new CompletableFuture<?>[20];
+		for (int i = 0; i < results.length; i++) {
+			results[i] = i % 2 == 0 ? this.processor.process(encoded)
+					: this.processor.process(createIMessage());
+		}
+
+		this.processor.close();
+
+		Assert.assertTrue(this.processor.awaitTermination(10, TimeUnit.SECONDS));
+		for (CompletableFuture<?> result : results) {
+			Assert.assertTrue(result.isDone());
+			try {
+				result.get();
+				Assert.fail("Message processed");
+			}
+			catch (ExecutionException e) {
+				Assert.assertTrue(e.getCause().toString(),
+						e.getCause() instanceof EccsiException);
+			}
+		}
+	}
+
+	@Test
+	public void testClosed() throws Exception {
+		this.processor.close();
+
+		Assert.assertTrue(cause(this.processor.process(createIMessage()
+				.getEncoded())) instanceof RejectedExecutionException);
+		Assert.assertTrue(cause(this.processor
+				.process(createIMessage())) instanceof RejectedExecutionException);
+		Assert.assertTrue(this.processor.awaitTermination(10, TimeUnit.SECONDS));
+	}
+
+}
@@ -0,0 +1,102 @@
+package net.kapsch.kmc.api.service;
+
+import java.io.InputStream;
+import java.math.BigInteger;
+
+import com.google.common.io.ByteStreams;
+import org.mockito.Mockito;
+
+import net.kapsch.kms.api.DefaultMarshallerService;
+import net.kapsch.kms.api.MarshallerService;
+import net.kapsch.kms.api.mikeysakke.crypto.EccsiParameterSet;
+import net.kapsch.kms.api.mikeysakke.crypto.Sakke;
+import net.kapsch.kms.api.mikeysakke.crypto.SakkeParameterSet1;
+import net.kapsch.kms.api.mikeysakke.utils.OctetString;
+
+/**
+ * Keys of a KMS whose master secrets are known, for tests which sign, verify and
+ * extract with the clients' current UIDs. The keys of the example XML files are of a
+ * past key period.
+ */
+final class KmsTestKeys {
+
+	/**
+	 * KSAK of RFC 6507 Appendix A.
+	 */
+	private final static BigInteger KMS_SECRET_AUTHENTICATION_KEY = new BigInteger(
+			"12345", 16);
+
+	/**
+	 * KMS Master Secret z of RFC 6508 Appendix A.
+	 */
+	private final static BigInteger KMS_MASTER_SECRET = new BigInteger(
+			"AFF429D35F84B110D094803B3595A6E2998BC99F", 16);
+
+	private KmsTestKeys() {
+	}
+
+	/**
+	 * Creates a client initialized from the example XML files, whose KMS URI is
+	 * kms.example.org, and provisions it with keys of this KMS.
+	 *
+	 * @param mcpttId - client's Mcptt Id
+	 * @param v - ephemeral value of the client's PVT
+	 *
+	 * @return the client
+	 */
+	static Client createClient(String mcpttId, BigInteger v) throws Exception {
+		MarshallerService marshallerService = new DefaultMarshallerService();
+		ApiService apiService = Mockito.mock(ApiService.class);
+		Mockito.when(apiService.initialize()).thenReturn(marshallerService
+				.unmarshalKmsResponseType(getXmlData("/xml/KMSInitExample.xml")));
+		Mockito.when(apiService.keyProvision()).thenReturn(marshallerService
+				.unmarshalKmsResponseType(getXmlData("/xml/KMSKeyProvExample.xml")));
+
+		Client client = new Client(mcpttId, apiService);
+		client.init();
+		provisionKeys(client, v);
+		return client;
+	}
+
+	/**
+	 * Provisions the client with the domain keys of this KMS and with user keys for the
+	 * client's current UID.
+	 *
+	 * @param client - the client, initialized
+	 * @param v - ephemeral value of the client's PVT
+	 */
+	static void provisionKeys(Client client, BigInteger v) {
+		SakkeParameterSet1 params = Sakke.getParamSet(1);
+		OctetString kpak = new OctetString(
+				EccsiParameterSet.multiplyG(KMS_SECRET_AUTHENTICATION_KEY).normalize());
+		OctetString kmsPublicZ = new OctetString(
+				params.pointP().multiply(KMS_MASTER_SECRET).normalize());
+		DomainKeyData domainKeys = client.getDomainKeys();
+		client.setDomainKeys(new DomainKeyData(kpak, kmsPublicZ,
+				domainKeys.getUserKeyPeriod(), domainKeys.getUserKeyOffset()));
+		OctetString uid = client.getUid();
+
+		// PVT = [v]G, SSK = KSAK + HS * v, see RFC 6507 Section 5.1.1
+		OctetString pvt = new OctetString(EccsiParameterSet.multiplyG(v).normalize());
+		OctetString hs = new OctetString(EccsiParameterSet.HASH_LENGTH);
+		EccsiParameterSet.hash(hs.getOctets(), EccsiParameterSet.GString, kpak, uid,
+				pvt);
+		BigInteger ssk = KMS_SECRET_AUTHENTICATION_KEY
+				.add(new BigInteger(1, hs.getOctets()).multiply(v))
+				.mod(EccsiParameterSet.q);
+
+		// RSK = [(b + z)^-1]P, see RFC 6508 Section 6.1.1
+		BigInteger b = new BigInteger(1, uid.getOctets());
+		OctetString rsk = new OctetString(params.pointP()
+				.multiply(b.add(KMS_MASTER_SECRET).modInverse(params.q())).normalize());
+
+		client.setUserKeys(new UserKeyData(pvt, rsk,
+				new OctetString(ssk, EccsiParameterSet.NBYTES)));
+	}
+
+	private static String getXmlData(String path) throws Exception {
+		try (InputStream resourceAsStream = KmsTestKeys.class.getResourceAsStream(path)) {
+			return new String(ByteStreams.toByteArray(resourceAsStream));
+		}
+	}
+}
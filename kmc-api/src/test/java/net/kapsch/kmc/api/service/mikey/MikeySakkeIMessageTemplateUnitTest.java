@@ -0,0 +1,86 @@
+package net.kapsch.kmc.api.service.mikey;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.kapsch.kmc.api.service.mikey.tables.IDRole;
+import net.kapsch.kmc.api.service.mikey.tables.NextPayload;
+import net.kapsch.kmc.api.service.mikey.tables.SRTPDefaultProfile;
+
+public class MikeySakkeIMessageTemplateUnitTest {
+
+	private final PolicyParam[] policyParams = SRTPDefaultProfile
+			.getGroupCallPolicyParams();
+
+	private final MikeySakkeIMessageTemplate template = new MikeySakkeIMessageTemplate(
+			"gms@example.org", "kms.example.org", "kms.example.org", this.policyParams,
+			(byte) 1);
+
+	private final byte[] sakkeData = new byte[273];
+
+	@Test
+	public void testCreate() throws MikeyException {
+		MikeySakkeIMessage iMessage = this.template.create("user1@example.org",
+				this.sakkeData, 0x12345678);
+
+		Assert.assertEquals(9, iMessage.getNumberOfPayloads());
+		Assert.assertEquals(0x12345678, iMessage.getHDRPayload().getCsbId());
+		Assert.assertEquals("gms@example.org",
+				new String(iMessage.extractIDR(IDRole.IDR_I)));
+		Assert.assertEquals("user1@example.org",
+				new String(iMessage.extractIDR(IDRole.IDR_R)));
+		Assert.assertEquals(NextPayload.SIGN,
+				iMessage.getPayload(NextPayload.SAKKE).getNextPayload());
+
+		// The bytes written around the pre-encoded payloads are the payloads encoded
+		MikeySakkeIMessage fresh = new MikeySakkeIMessage(iMessage.getPayloads());
+		Assert.assertArrayEquals(fresh.getEncoded(),
+				iMessage.getEncodedWithoutSignature());
+		Assert.assertEquals(iMessage, MikeySakkeIMessage.decode(iMessage.getEncoded()));
+	}
+
+	@Test
+	public void testCreateWithGeneralExtension() throws MikeyException {
+		PayloadGeneralExtension extension = new PayloadGeneralExtension(
+				"encrypted".getBytes());
+		MikeySakkeIMessage iMessage = this.template.create("user2@example.org",
+				this.sakkeData, 1, extension);
+
+		Assert.assertEquals(10, iMessage.getNumberOfPayloads());
+		Assert.assertEquals(NextPayload.GENERAL_EXT,
+				iMessage.getPayload(NextPayload.SAKKE).getNextPayload());
+		Assert.assertSame(extension, iMessage.getPayload(NextPayload.GENERAL_EXT));
+
+		MikeySakkeIMessage fresh = new MikeySakkeIMessage(iMessage.getPayloads());
+		Assert.assertArrayEquals(fresh.getEncoded(),
+				iMessage.getEncodedWithoutSignature());
+	}
+
+	@Test
+	public void testSignedPortionIsSent() throws MikeyException {
+		MikeySakkeIMessage iMessage = this.template.create("user3@example.org",
+				this.sakkeData, 1);
+		byte[] signed = iMessage.getEncodedWithoutSignature();
+
+		iMessage.addPayload(new PayloadSIGN(new byte[129]));
+		byte[] encoded = iMessage.getEncoded();
+
+		Assert.assertSame(signed, iMessage.getEncodedWithoutSignature());
+		Assert.assertEquals(signed.length + 131, encoded.length);
+		for (int i = 0; i < signed.length; i++) {
+			Assert.assertEquals(signed[i], encoded[i]);
+		}
+	}
+
+	@Test
+	public void testMessagesDiffer() throws MikeyException {
+		MikeySakkeIMessage first = this.template.create("user1@example.org",
+				this.sakkeData, 1);
+		MikeySakkeIMessage second = this.template.create("user1@example.org",
+				this.sakkeData, 1);
+
+		Assert.assertFalse(first.getPayload(NextPayload.RAND)
+				.equals(second.getPayload(NextPayload.RAND)));
+	}
+
+}
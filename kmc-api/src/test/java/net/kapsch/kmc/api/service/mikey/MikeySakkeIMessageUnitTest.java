@@ -0,0 +1,180 @@
+package net.kapsch.kmc.api.service.mikey;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.kapsch.kmc.api.service.mikey.tables.IDRole;
+import net.kapsch.kmc.api.service.mikey.tables.IDType;
+import net.kapsch.kmc.api.service.mikey.tables.NextPayload;
+import net.kapsch.kmc.api.service.mikey.tables.SRTPDefaultProfile;
+
+public class MikeySakkeIMessageUnitTest {
+
+	private final byte[] sakkeData = new byte[273];
+
+	private final byte[] signature = new byte[129];
+
+	public MikeySakkeIMessageUnitTest() {
+		for (int i = 0; i < this.sakkeData.length; i++) {
+			this.sakkeData[i] = (byte) i;
+		}
+		for (int i = 0; i < this.signature.length; i++) {
+			this.signature[i] = (byte) (3 * i);
+		}
+	}
+
+	private MikeySakkeIMessage createIMessage() throws MikeyException {
+		PolicyParam[] policyParams = SRTPDefaultProfile.getGroupCallPolicyParams();
+		Payload[] payloads = { new PayloadHDR(42, new GenericId()),
+				new PayloadT(0x0123456789abcdefL),
+				new PayloadRAND(NextPayload.IDR, new byte[16]),
+				new PayloadIDR(NextPayload.IDR, IDRole.IDR_I, IDType.URI,
+						"initiator@example.org".getBytes()),
+				new PayloadIDR(NextPayload.IDR, IDRole.IDR_R, IDType.URI,
+						"responder@example.org".getBytes()),
+				new PayloadIDR(NextPayload.IDR, IDRole.IDR_KMS_I, IDType.URI,
+						"kms@example.org".getBytes()),
+				new PayloadIDR(NextPayload.SP, IDRole.IDR_KMS_R, IDType.URI,
+						"kms@example.org".getBytes()),
+				new PayloadSP(policyParams, PayloadSP.calculateLength(policyParams)),
+				new PayloadSAKKE(NextPayload.SIGN, (byte) 1, (byte) 1, this.sakkeData),
+				new PayloadSIGN(this.signature) };
+		return new MikeySakkeIMessage(payloads);
+	}
+
+	@Test
+	public void testEncodingDecoding() throws MikeyException {
+		MikeySakkeIMessage iMessage = createIMessage();
+		byte[] encoded = iMessage.getEncoded();
+
+		MikeySakkeIMessage decoded = MikeySakkeIMessage.decode(encoded);
+
+		Assert.assertEquals(iMessage, decoded);
+		Assert.assertArrayEquals(encoded, decoded.getEncoded());
+		Assert.assertEquals("responder@example.org",
+				new String(decoded.extractIDR(IDRole.IDR_R)));
+	}
+
+	@Test
+	public void testEncodedLength() throws MikeyException {
+		MikeySakkeIMessage iMessage = createIMessage();
+		byte[] encoded = iMessage.getEncoded();
+
+		Assert.assertEquals(encoded.length, iMessage.encodedLength());
+		int length = 0;
+		for (Payload payload : iMessage.getPayloads()) {
+			Assert.assertEquals(payload.getEncoded().getSizeInBytes(),
+					payload.encodedLength());
+			length += payload.encodedLength();
+		}
+		Assert.assertEquals(encoded.length, length);
+
+		ByteBuffer buffer = ByteBuffer.allocate(encoded.length + 3);
+		buffer.position(3);
+		iMessage.encode(buffer);
+		Assert.assertFalse(buffer.hasRemaining());
+		Assert.assertArrayEquals(encoded,
+				Arrays.copyOfRange(buffer.array(), 3, buffer.capacity()));
+	}
+
+	@Test
+	public void testSignedPortionIsReused() throws MikeyException {
+		MikeySakkeIMessage iMessage = createIMessage();
+		Payload[] payloads = iMessage.getPayloads();
+		MikeySakkeIMessage unsigned = new MikeySakkeIMessage(
+				Arrays.copyOf(payloads, payloads.length - 1));
+
+		byte[] signed = unsigned.getEncodedWithoutSignature();
+		Assert.assertSame(signed, unsigned.getEncodedWithoutSignature());
+		Assert.assertArrayEquals(signed, unsigned.getEncoded());
+
+		unsigned.addPayload(payloads[payloads.length - 1]);
+		Assert.assertSame(signed, unsigned.getEncodedWithoutSignature());
+		Assert.assertArrayEquals(iMessage.getEncoded(), unsigned.getEncoded());
+	}
+
+	@Test
+	public void testDecodingAtOffset() throws MikeyException {
+		byte[] encoded = createIMessage().getEncoded();
+		byte[] datagram = new byte[encoded.length + 10];
+		System.arraycopy(encoded, 0, datagram, 7, encoded.length);
+
+		ByteBuffer buffer = ByteBuffer.wrap(datagram, 7, encoded.length).slice();
+		MikeySakkeIMessage decoded = MikeySakkeIMessage.decode(buffer);
+
+		Assert.assertFalse(buffer.hasRemaining());
+		Assert.assertArrayEquals(encoded, decoded.getEncoded());
+		Assert.assertArrayEquals(this.sakkeData,
+				((PayloadSAKKE) decoded.getPayload(NextPayload.SAKKE)).getSakkeData());
+		Assert.assertArrayEquals(this.signature,
+				((PayloadSIGN) decoded.getPayload(NextPayload.SIGN)).getSignature());
+	}
+
+	@Test
+	public void testDecodingDirectBuffer() throws MikeyException {
+		MikeySakkeIMessage iMessage = createIMessage();
+		byte[] encoded = iMessage.getEncoded();
+		ByteBuffer buffer = ByteBuffer.allocateDirect(encoded.length);
+		buffer.put(encoded).flip();
+
+		MikeySakkeIMessage decoded = MikeySakkeIMessage.decode(buffer);
+
+		Assert.assertEquals(iMessage, decoded);
+		Assert.assertArrayEquals(encoded, decoded.getEncoded());
+	}
+
+	@Test
+	public void testSakkeDataIsViewOfMessage() throws MikeyException {
+		byte[] encoded = createIMessage().getEncoded();
+
+		MikeySakkeIMessage decoded = MikeySakkeIMessage.decode(encoded);
+		PayloadSAKKE sakke = (PayloadSAKKE) decoded.getPayload(NextPayload.SAKKE);
+		ByteBuffer view = sakke.getSakkeDataBuffer();
+
+		Assert.assertTrue(view.isReadOnly());
+		Assert.assertEquals(this.sakkeData.length, view.remaining());
+
+		// The view reads the message bytes until the SAKKE data is copied
+		int first = sakke.startByte + 5;
+		Assert.assertEquals(this.sakkeData[0], encoded[first]);
+		encoded[first] = (byte) 0xff;
+		Assert.assertEquals((byte) 0xff, view.get(view.position()));
+
+		byte[] copy = sakke.getSakkeData();
+		encoded[first] = 0;
+		Assert.assertEquals((byte) 0xff, copy[0]);
+		Assert.assertSame(copy, sakke.getSakkeData());
+	}
+
+	@Test
+	public void testDecodingUnsignedMessage() throws MikeyException {
+		MikeySakkeIMessage signed = createIMessage();
+		byte[] encoded = signed.getEncodedWithoutSignature();
+
+		MikeySakkeIMessage decoded = MikeySakkeIMessage.decode(encoded);
+
+		Assert.assertEquals(signed.getNumberOfPayloads() - 1,
+				decoded.getNumberOfPayloads());
+		Assert.assertNull(decoded.getPayload(NextPayload.SIGN));
+	}
+
+	@Test
+	public void testDecodingTruncatedMessage() throws MikeyException {
+		byte[] encoded = createIMessage().getEncoded();
+
+		for (int length : new int[] { 0, 15, 40, encoded.length - 200,
+				encoded.length - 1 }) {
+			try {
+				MikeySakkeIMessage.decode(Arrays.copyOf(encoded, length));
+				Assert.fail("Decoded a message truncated to " + length + " bytes");
+			}
+			catch (MikeyException e) {
+				// expected
+			}
+		}
+	}
+
+}
@@ -0,0 +1,57 @@
+package net.kapsch.kms.api.bouncycastle.math.ec;
+
+import java.math.BigInteger;
+
+import net.kapsch.kms.api.bouncycastle.math.raw.Nat;
+
+/**
+ * Comb multiplier for a fixed base point whose memory access pattern does not depend on
+ * the scalar. Every step of the comb reads all entries of a cache-safe lookup table
+ * (see {@link ECCurve#createCacheSafeLookupTable(ECPoint[], int, int)}) and adds the
+ * selected one, and the number of steps only depends on the curve. The table entries are
+ * offset so that none is the point at infinity, see
+ * {@link FixedPointUtil#precomputeCacheSafe(ECPoint, int)}.
+ */
+public class CacheSafeFixedPointCombMultiplier extends FixedPointCombMultiplier {
+	protected ECPoint multiplyPositive(ECPoint p, BigInteger k) {
+		ECCurve c = p.getCurve();
+		int size = FixedPointUtil.getCombSize(c);
+
+		if (k.bitLength() > size) {
+			throw new IllegalStateException(
+					"fixed-point comb doesn't support scalars larger than the curve order");
+		}
+
+		FixedPointPreCompInfo info = FixedPointUtil.precomputeCacheSafe(p,
+				getWidthForCombSize(size));
+		ECLookupTable lookupTable = info.getLookupTable();
+		int width = info.getWidth();
+
+		int d = (size + width - 1) / width;
+		int fullComb = d * width;
+		int[] K = Nat.fromBigInteger(fullComb, k);
+
+		ECPoint R = c.getInfinity();
+
+		int top = fullComb - 1;
+		for (int i = 0; i < d; ++i) {
+			int secretIndex = 0;
+
+			for (int j = top - i; j >= 0; j -= d) {
+				int secretBit = K[j >>> 5] >>> (j & 0x1F);
+				secretIndex ^= secretBit >>> 1;
+				secretIndex <<= 1;
+				secretIndex ^= secretBit;
+			}
+
+			R = R.twicePlus(lookupTable.lookup(secretIndex));
+		}
+
+		return R.add(info.getOffset());
+	}
+
+	public FixedPointPreCompInfo precompute(ECPoint p) {
+		return FixedPointUtil.precomputeCacheSafe(p,
+				getWidthForCombSize(FixedPointUtil.getCombSize(p.getCurve())));
+	}
+}
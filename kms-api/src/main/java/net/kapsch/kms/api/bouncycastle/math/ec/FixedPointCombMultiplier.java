@@ -0,0 +1,72 @@
+package net.kapsch.kms.api.bouncycastle.math.ec;
+
+import java.math.BigInteger;
+
+/**
+ * Comb multiplier for a fixed base point. The table of combinations of the base point
+ * is built on first use and kept with the point through
+ * {@link ECCurve#setPreCompInfo(ECPoint, String, PreCompInfo)}, so later
+ * multiplications of the same point only need about (order bits / width) doublings and
+ * additions.
+ */
+public class FixedPointCombMultiplier extends AbstractECMultiplier {
+	protected ECPoint multiplyPositive(ECPoint p, BigInteger k) {
+		ECCurve c = p.getCurve();
+		int size = FixedPointUtil.getCombSize(c);
+
+		if (k.bitLength() > size) {
+			/*
+			 * TODO The comb works best when the scalars are less than the (possibly
+			 * unknown) order. Still, if we want to handle larger scalars, we could allow
+			 * customization of the comb size, or alternatively we could deal with the
+			 * 'extra' bits either by running the comb multiple times as necessary, or by
+			 * using an alternative multiplier as prelude.
+			 */
+			throw new IllegalStateException(
+					"fixed-point comb doesn't support scalars larger than the curve order");
+		}
+
+		int minWidth = getWidthForCombSize(size);
+
+		FixedPointPreCompInfo info = FixedPointUtil.precompute(p, minWidth);
+		ECPoint[] lookupTable = info.getPreComp();
+		int width = info.getWidth();
+
+		int d = (size + width - 1) / width;
+
+		ECPoint R = c.getInfinity();
+
+		int top = d * width - 1;
+		for (int i = 0; i < d; ++i) {
+			int index = 0;
+
+			for (int j = top - i; j >= 0; j -= d) {
+				index <<= 1;
+				if (k.testBit(j)) {
+					index |= 1;
+				}
+			}
+
+			R = R.twicePlus(lookupTable[index]);
+		}
+
+		return R;
+	}
+
+	/**
+	 * Builds the comb table for p up front, with the width used by later
+	 * multiplications of p.
+	 */
+	public FixedPointPreCompInfo precompute(ECPoint p) {
+		return FixedPointUtil.precompute(p,
+				getWidthForCombSize(FixedPointUtil.getCombSize(p.getCurve())));
+	}
+
+	protected int getWidthForCombSize(int combSize) {
+		if (combSize > 512) {
+			// e.g. SAKKE's 1022-bit q, 256 table entries but a quarter fewer steps
+			return 8;
+		}
+		return combSize > 257 ? 6 : 5;
+	}
+}
@@ -0,0 +1,62 @@
+package net.kapsch.kms.api.bouncycastle.math.ec;
+
+/**
+ * Class holding precomputation data for fixed-point multiplications.
+ */
+public class FixedPointPreCompInfo implements PreCompInfo {
+	/**
+	 * Array holding the precomputed <code>ECPoint</code>s used for the fixed-point comb.
+	 */
+	protected ECPoint[] preComp = null;
+
+	/**
+	 * Cache-safe lookup table over the precomputed points, each offset by the base point
+	 * so that none is the point at infinity. Only set by
+	 * {@link FixedPointUtil#precomputeCacheSafe(ECPoint, int)}.
+	 */
+	protected ECLookupTable lookupTable = null;
+
+	/**
+	 * The point to add to the result of a comb over the offset lookup table.
+	 */
+	protected ECPoint offset = null;
+
+	/**
+	 * The width used for the precomputation. If a larger width precomputation is already
+	 * available this may be larger than was requested, so calling code should refer to
+	 * the actual width.
+	 */
+	protected int width = -1;
+
+	public ECPoint[] getPreComp() {
+		return preComp;
+	}
+
+	public void setPreComp(ECPoint[] preComp) {
+		this.preComp = preComp;
+	}
+
+	public ECLookupTable getLookupTable() {
+		return lookupTable;
+	}
+
+	public void setLookupTable(ECLookupTable lookupTable) {
+		this.lookupTable = lookupTable;
+	}
+
+	public ECPoint getOffset() {
+		return offset;
+	}
+
+	public void setOffset(ECPoint offset) {
+		this.offset = offset;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public void setWidth(int width) {
+		this.width = width;
+	}
+}
@@ -0,0 +1,121 @@
+package net.kapsch.kms.api.bouncycastle.math.ec;
+
+import java.math.BigInteger;
+
+public class FixedPointUtil {
+	public static final String PRECOMP_NAME = "bc_fixed_point";
+
+	public static final String PRECOMP_NAME_CACHE_SAFE = "bc_fixed_point_cache_safe";
+
+	public static int getCombSize(ECCurve c) {
+		BigInteger order = c.getOrder();
+		return order == null ? c.getFieldSize() + 1 : order.bitLength();
+	}
+
+	public static FixedPointPreCompInfo getFixedPointPreCompInfo(
+			PreCompInfo preCompInfo) {
+		if ((preCompInfo != null) && (preCompInfo instanceof FixedPointPreCompInfo)) {
+			return (FixedPointPreCompInfo) preCompInfo;
+		}
+
+		return new FixedPointPreCompInfo();
+	}
+
+	public static FixedPointPreCompInfo precompute(ECPoint p, int minWidth) {
+		ECCurve c = p.getCurve();
+
+		int n = 1 << minWidth;
+		FixedPointPreCompInfo info = getFixedPointPreCompInfo(
+				c.getPreCompInfo(p, PRECOMP_NAME));
+		ECPoint[] lookupTable = info.getPreComp();
+
+		if (lookupTable == null || lookupTable.length < n) {
+			int bits = getCombSize(c);
+			int d = (bits + minWidth - 1) / minWidth;
+
+			ECPoint[] pow2Table = new ECPoint[minWidth];
+			pow2Table[0] = p;
+			for (int i = 1; i < minWidth; ++i) {
+				pow2Table[i] = pow2Table[i - 1].timesPow2(d);
+			}
+
+			c.normalizeAll(pow2Table);
+
+			lookupTable = new ECPoint[n];
+			lookupTable[0] = c.getInfinity();
+
+			for (int bit = minWidth - 1; bit >= 0; --bit) {
+				ECPoint pow2 = pow2Table[bit];
+
+				int step = 1 << bit;
+				for (int i = step; i < n; i += (step << 1)) {
+					lookupTable[i] = lookupTable[i - step].add(pow2);
+				}
+			}
+
+			c.normalizeAll(lookupTable);
+
+			info = new FixedPointPreCompInfo();
+			info.setPreComp(lookupTable);
+			info.setWidth(minWidth);
+
+			c.setPreCompInfo(p, PRECOMP_NAME, info);
+		}
+
+		return info;
+	}
+
+	/*
+	 * As precompute, but the comb table is held in a cache-safe lookup table. Every entry
+	 * has the base point added, so that no entry is the point at infinity, and the sum
+	 * (2^d - 1)P of the extra terms over the d steps of a comb is cancelled by adding the
+	 * offset P - [2^d]P to the result.
+	 */
+	public static FixedPointPreCompInfo precomputeCacheSafe(ECPoint p, int minWidth) {
+		ECCurve c = p.getCurve();
+
+		int n = 1 << minWidth;
+		FixedPointPreCompInfo info = getFixedPointPreCompInfo(
+				c.getPreCompInfo(p, PRECOMP_NAME_CACHE_SAFE));
+		ECLookupTable lookupTable = info.getLookupTable();
+
+		if (lookupTable == null || lookupTable.getSize() < n) {
+			int bits = getCombSize(c);
+			int d = (bits + minWidth - 1) / minWidth;
+
+			ECPoint[] pow2Table = new ECPoint[minWidth + 1];
+			pow2Table[0] = p;
+			for (int i = 1; i < minWidth; ++i) {
+				pow2Table[i] = pow2Table[i - 1].timesPow2(d);
+			}
+
+			// This will be the 'offset' value
+			pow2Table[minWidth] = pow2Table[0].subtract(pow2Table[1]);
+
+			c.normalizeAll(pow2Table);
+
+			ECPoint[] points = new ECPoint[n];
+			points[0] = pow2Table[0];
+
+			for (int bit = minWidth - 1; bit >= 0; --bit) {
+				ECPoint pow2 = pow2Table[bit];
+
+				int step = 1 << bit;
+				for (int i = step; i < n; i += (step << 1)) {
+					points[i] = points[i - step].add(pow2);
+				}
+			}
+
+			c.normalizeAll(points);
+
+			info = new FixedPointPreCompInfo();
+			info.setLookupTable(c.createCacheSafeLookupTable(points, 0, n));
+			info.setOffset(pow2Table[minWidth]);
+			info.setWidth(minWidth);
+
+			c.setPreCompInfo(p, PRECOMP_NAME_CACHE_SAFE, info);
+		}
+
+		return info;
+	}
+}
@@ -0,0 +1,126 @@
+package net.kapsch.kms.api.bouncycastle.math.ec.custom.sakke;
+
+import java.math.BigInteger;
+
+import net.kapsch.kms.api.bouncycastle.math.ec.ECConstants;
+import net.kapsch.kms.api.bouncycastle.math.ec.ECCurve;
+import net.kapsch.kms.api.bouncycastle.math.ec.ECFieldElement;
+import net.kapsch.kms.api.bouncycastle.math.ec.ECLookupTable;
+import net.kapsch.kms.api.bouncycastle.math.ec.ECPoint;
+import net.kapsch.kms.api.bouncycastle.math.raw.Nat;
+
+/**
+ * The curve y^2 = x^3 - 3x over the prime field of SAKKE parameter set 1 (RFC 6509),
+ * with field arithmetic in Montgomery form on fixed-width limbs.
+ */
+public class SakkeP1Curve extends ECCurve.AbstractFp {
+	public static final BigInteger q = SakkeP1FieldElement.Q;
+
+	// The order of the subgroup generated by the SAKKE point P
+	private static final BigInteger ORDER = new BigInteger(
+			"265EAEC7C2958FF69971846636B4195E" + "905B0338672D20986FA6B8D62CF8068B"
+					+ "BD02AAC9F8BF03C6C8A1CC354C69672C" + "39E46CE7FDF222864D5B49FD2999A9B4"
+					+ "389B1921CC9AD335144AB173595A0738" + "6DABFD2A0C614AA0A9F3CF14870F026A"
+					+ "A7E535ABD5A5C7C7FF38FA08E2615F6C" + "203177C42B1EB3A1D99B601EBFAA17FB",
+			16);
+
+	private static final int SakkeP1_DEFAULT_COORDS = COORD_JACOBIAN;
+
+	protected SakkeP1Point infinity;
+
+	public SakkeP1Curve() {
+		super(q);
+
+		this.infinity = new SakkeP1Point(this, null, null);
+
+		this.a = fromBigInteger(ECConstants.THREE.negate().mod(q));
+		this.b = fromBigInteger(ECConstants.ZERO);
+		this.order = ORDER;
+		this.cofactor = BigInteger.valueOf(4);
+
+		this.coord = SakkeP1_DEFAULT_COORDS;
+	}
+
+	protected ECCurve cloneCurve() {
+		return new SakkeP1Curve();
+	}
+
+	public boolean supportsCoordinateSystem(int coord) {
+		switch (coord) {
+		case COORD_JACOBIAN:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	public BigInteger getQ() {
+		return q;
+	}
+
+	public int getFieldSize() {
+		return q.bitLength();
+	}
+
+	public ECFieldElement fromBigInteger(BigInteger x) {
+		return new SakkeP1FieldElement(x);
+	}
+
+	protected ECPoint createRawPoint(ECFieldElement x, ECFieldElement y,
+			boolean withCompression) {
+		return new SakkeP1Point(this, x, y, withCompression);
+	}
+
+	protected ECPoint createRawPoint(ECFieldElement x, ECFieldElement y,
+			ECFieldElement[] zs, boolean withCompression) {
+		return new SakkeP1Point(this, x, y, zs, withCompression);
+	}
+
+	public ECPoint getInfinity() {
+		return infinity;
+	}
+
+	public ECLookupTable createCacheSafeLookupTable(ECPoint[] points, int off,
+			final int len) {
+		final int FE_INTS = SakkeP1Field.SIZE;
+
+		final int[] table = new int[len * FE_INTS * 2];
+		{
+			int pos = 0;
+			for (int i = 0; i < len; ++i) {
+				ECPoint p = points[off + i];
+				Nat.copy(FE_INTS, ((SakkeP1FieldElement) p.getRawXCoord()).x, 0, table,
+						pos);
+				pos += FE_INTS;
+				Nat.copy(FE_INTS, ((SakkeP1FieldElement) p.getRawYCoord()).x, 0, table,
+						pos);
+				pos += FE_INTS;
+			}
+		}
+
+		return new ECLookupTable() {
+			public int getSize() {
+				return len;
+			}
+
+			public ECPoint lookup(int index) {
+				int[] x = SakkeP1Field.create(), y = SakkeP1Field.create();
+				int pos = 0;
+
+				for (int i = 0; i < len; ++i) {
+					int MASK = ((i ^ index) - 1) >> 31;
+
+					for (int j = 0; j < FE_INTS; ++j) {
+						x[j] ^= table[pos + j] & MASK;
+						y[j] ^= table[pos + FE_INTS + j] & MASK;
+					}
+
+					pos += (FE_INTS * 2);
+				}
+
+				return createRawPoint(new SakkeP1FieldElement(x),
+						new SakkeP1FieldElement(y), false);
+			}
+		};
+	}
+}
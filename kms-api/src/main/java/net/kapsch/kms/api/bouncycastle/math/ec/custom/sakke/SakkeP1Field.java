@@ -0,0 +1,151 @@
+package net.kapsch.kms.api.bouncycastle.math.ec.custom.sakke;
+
+import java.math.BigInteger;
+
+import net.kapsch.kms.api.bouncycastle.math.raw.Mod;
+import net.kapsch.kms.api.bouncycastle.math.raw.Nat;
+
+/**
+ * Arithmetic modulo the 1024-bit prime p of SAKKE parameter set 1 (RFC 6509). Elements
+ * are held as 32 little-endian 32-bit limbs in Montgomery form, i.e. x is stored as
+ * x * 2^1024 mod p, so that a multiplication needs no division.
+ */
+public class SakkeP1Field {
+	public static final int SIZE = 32;
+
+	public static final BigInteger P_BIG = new BigInteger(
+			"997ABB1F0A563FDA65C61198DAD0657A" + "416C0CE19CB48261BE9AE358B3E01A2E"
+					+ "F40AAB27E2FC0F1B228730D531A59CB0" + "E791B39FF7C88A19356D27F4A666A6D0"
+					+ "E26C6487326B4CD4512AC5CD65681CE1" + "B6AFF4A831852A82A7CF3C521C3C09AA"
+					+ "9F94D6AF56971F1FFCE3E82389857DB0" + "80C5DF10AC7ACE87666D807AFEA85FEB",
+			16);
+
+	static final int[] P = Nat.fromBigInteger(1024, P_BIG);
+
+	// -p^-1 mod 2^32
+	private static final int P_INV32 = -Mod.inverse32(P[0]);
+
+	// R mod p, the Montgomery form of 1
+	static final int[] ONE = Nat.fromBigInteger(1024,
+			BigInteger.ONE.shiftLeft(1024).mod(P_BIG));
+
+	// R^2 mod p, converts into Montgomery form
+	private static final int[] R2 = Nat.fromBigInteger(1024,
+			BigInteger.ONE.shiftLeft(2048).mod(P_BIG));
+
+	// R^3 mod p, corrects the result of a plain inversion of a Montgomery form
+	private static final int[] R3 = Nat.fromBigInteger(1024,
+			BigInteger.ONE.shiftLeft(3072).mod(P_BIG));
+
+	public static void add(int[] x, int[] y, int[] z) {
+		int c = Nat.add(SIZE, x, y, z);
+		if (c != 0 || Nat.gte(SIZE, z, P)) {
+			Nat.subFrom(SIZE, P, z);
+		}
+	}
+
+	public static void addOne(int[] x, int[] z) {
+		add(x, ONE, z);
+	}
+
+	public static int[] create() {
+		return Nat.create(SIZE);
+	}
+
+	public static int[] createExt() {
+		return Nat.create(SIZE << 1);
+	}
+
+	public static int[] fromBigInteger(BigInteger x) {
+		if (x.signum() < 0 || x.compareTo(P_BIG) >= 0) {
+			x = x.mod(P_BIG);
+		}
+		int[] z = Nat.fromBigInteger(1024, x);
+		multiply(z, R2, z);
+		return z;
+	}
+
+	public static void inv(int[] x, int[] z) {
+		// (x.R)^-1 = x^-1.R^-1, so multiplying by R^3 gives back x^-1.R
+		Mod.invert(P, x, z);
+		multiply(z, R3, z);
+	}
+
+	public static boolean isOne(int[] x) {
+		return Nat.eq(SIZE, x, ONE);
+	}
+
+	public static boolean isZero(int[] x) {
+		return Nat.isZero(SIZE, x);
+	}
+
+	public static void multiply(int[] x, int[] y, int[] z) {
+		int[] tt = createExt();
+		multiply(x, y, z, tt);
+	}
+
+	public static void multiply(int[] x, int[] y, int[] z, int[] tt) {
+		Nat.mul(SIZE, x, y, tt);
+		reduce(tt, z);
+	}
+
+	public static void negate(int[] x, int[] z) {
+		if (Nat.isZero(SIZE, x)) {
+			Nat.zero(SIZE, z);
+		}
+		else {
+			Nat.sub(SIZE, P, x, z);
+		}
+	}
+
+	/**
+	 * Montgomery reduction of a double-length value, z = xx * 2^-1024 mod p. The
+	 * contents of xx are destroyed.
+	 */
+	public static void reduce(int[] xx, int[] z) {
+		int cc = 0;
+		for (int i = 0; i < SIZE; ++i) {
+			int m = xx[i] * P_INV32;
+			int c = Nat.mulWordAddTo(SIZE, m, P, 0, xx, i);
+			long s = (xx[i + SIZE] & 0xFFFFFFFFL) + (c & 0xFFFFFFFFL) + cc;
+			xx[i + SIZE] = (int) s;
+			cc = (int) (s >>> 32);
+		}
+		System.arraycopy(xx, SIZE, z, 0, SIZE);
+		if (cc != 0 || Nat.gte(SIZE, z, P)) {
+			Nat.subFrom(SIZE, P, z);
+		}
+	}
+
+	public static void square(int[] x, int[] z) {
+		int[] tt = createExt();
+		square(x, z, tt);
+	}
+
+	public static void square(int[] x, int[] z, int[] tt) {
+		Nat.square(SIZE, x, tt);
+		reduce(tt, z);
+	}
+
+	public static void subtract(int[] x, int[] y, int[] z) {
+		int c = Nat.sub(SIZE, x, y, z);
+		if (c != 0) {
+			Nat.addTo(SIZE, P, z);
+		}
+	}
+
+	public static BigInteger toBigInteger(int[] x) {
+		int[] tt = createExt();
+		System.arraycopy(x, 0, tt, 0, SIZE);
+		int[] z = create();
+		reduce(tt, z);
+		return Nat.toBigInteger(SIZE, z);
+	}
+
+	public static void twice(int[] x, int[] z) {
+		int c = Nat.shiftUpBit(SIZE, x, 0, z);
+		if (c != 0 || Nat.gte(SIZE, z, P)) {
+			Nat.subFrom(SIZE, P, z);
+		}
+	}
+}
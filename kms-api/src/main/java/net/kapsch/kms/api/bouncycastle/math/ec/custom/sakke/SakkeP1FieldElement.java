@@ -0,0 +1,222 @@
+package net.kapsch.kms.api.bouncycastle.math.ec.custom.sakke;
+
+import java.math.BigInteger;
+
+import net.kapsch.kms.api.bouncycastle.math.ec.ECFieldElement;
+import net.kapsch.kms.api.bouncycastle.math.raw.Nat;
+import net.kapsch.kms.api.bouncycastle.util.Arrays;
+
+public class SakkeP1FieldElement extends ECFieldElement {
+	public static final BigInteger Q = SakkeP1Field.P_BIG;
+
+	// (p + 1) / 4, square roots are x^((p + 1) / 4) as p == 3 mod 4
+	private static final BigInteger SQRT_EXPONENT = Q.add(ONE).shiftRight(2);
+
+	// Width of the sliding window used to raise to SQRT_EXPONENT
+	private static final int SQRT_WINDOW = 5;
+
+	// SQRT_EXPONENT recoded for the sliding window, see recodeExponent
+	private static final int[] SQRT_STEPS = recodeExponent(SQRT_EXPONENT, SQRT_WINDOW);
+
+	// Montgomery form of the element, see SakkeP1Field
+	protected int[] x;
+
+	public SakkeP1FieldElement(BigInteger x) {
+		if (x == null || x.signum() < 0 || x.bitLength() > 1024) {
+			throw new IllegalArgumentException(
+					"x value invalid for SakkeP1FieldElement");
+		}
+
+		this.x = SakkeP1Field.fromBigInteger(x);
+	}
+
+	public SakkeP1FieldElement() {
+		this.x = SakkeP1Field.create();
+	}
+
+	protected SakkeP1FieldElement(int[] x) {
+		this.x = x;
+	}
+
+	public boolean isZero() {
+		return SakkeP1Field.isZero(x);
+	}
+
+	public boolean isOne() {
+		return SakkeP1Field.isOne(x);
+	}
+
+	public boolean testBitZero() {
+		return toBigInteger().testBit(0);
+	}
+
+	public BigInteger toBigInteger() {
+		return SakkeP1Field.toBigInteger(x);
+	}
+
+	/**
+	 * Copies the Montgomery representation of this element, as used by
+	 * {@link SakkeP1Field}, to z.
+	 */
+	public void copyTo(int[] z) {
+		Nat.copy(SakkeP1Field.SIZE, x, z);
+	}
+
+	public String getFieldName() {
+		return "SakkeP1Field";
+	}
+
+	public int getFieldSize() {
+		return Q.bitLength();
+	}
+
+	public ECFieldElement add(ECFieldElement b) {
+		int[] z = SakkeP1Field.create();
+		SakkeP1Field.add(x, ((SakkeP1FieldElement) b).x, z);
+		return new SakkeP1FieldElement(z);
+	}
+
+	public ECFieldElement addOne() {
+		int[] z = SakkeP1Field.create();
+		SakkeP1Field.addOne(x, z);
+		return new SakkeP1FieldElement(z);
+	}
+
+	public ECFieldElement subtract(ECFieldElement b) {
+		int[] z = SakkeP1Field.create();
+		SakkeP1Field.subtract(x, ((SakkeP1FieldElement) b).x, z);
+		return new SakkeP1FieldElement(z);
+	}
+
+	public ECFieldElement multiply(ECFieldElement b) {
+		int[] z = SakkeP1Field.create();
+		SakkeP1Field.multiply(x, ((SakkeP1FieldElement) b).x, z);
+		return new SakkeP1FieldElement(z);
+	}
+
+	public ECFieldElement divide(ECFieldElement b) {
+		int[] z = SakkeP1Field.create();
+		SakkeP1Field.inv(((SakkeP1FieldElement) b).x, z);
+		SakkeP1Field.multiply(z, x, z);
+		return new SakkeP1FieldElement(z);
+	}
+
+	public ECFieldElement negate() {
+		int[] z = SakkeP1Field.create();
+		SakkeP1Field.negate(x, z);
+		return new SakkeP1FieldElement(z);
+	}
+
+	public ECFieldElement square() {
+		int[] z = SakkeP1Field.create();
+		SakkeP1Field.square(x, z);
+		return new SakkeP1FieldElement(z);
+	}
+
+	public ECFieldElement invert() {
+		int[] z = SakkeP1Field.create();
+		SakkeP1Field.inv(x, z);
+		return new SakkeP1FieldElement(z);
+	}
+
+	/**
+	 * return a sqrt root - the routine verifies that the calculation returns the right
+	 * value - if none exists it returns null.
+	 */
+	public ECFieldElement sqrt() {
+		int[] x1 = this.x;
+		if (SakkeP1Field.isZero(x1) || SakkeP1Field.isOne(x1)) {
+			return this;
+		}
+
+		int[] tt = SakkeP1Field.createExt();
+
+		/*
+		 * Sliding window exponentiation: about one multiplication per SQRT_WINDOW + 1
+		 * bits of the exponent instead of one per set bit, for the cost of computing
+		 * the odd powers x^1, x^3, ..., x^(2^SQRT_WINDOW - 1) first.
+		 */
+		int[][] odd = new int[1 << (SQRT_WINDOW - 1)][];
+		odd[0] = x1;
+		int[] x2 = SakkeP1Field.create();
+		SakkeP1Field.square(x1, x2, tt);
+		for (int i = 1; i < odd.length; ++i) {
+			odd[i] = SakkeP1Field.create();
+			SakkeP1Field.multiply(odd[i - 1], x2, odd[i], tt);
+		}
+
+		int[] t1 = Nat.copy(SakkeP1Field.SIZE, odd[SQRT_STEPS[1] >>> 1]);
+		for (int i = 2; i < SQRT_STEPS.length; i += 2) {
+			for (int j = 0; j < SQRT_STEPS[i]; ++j) {
+				SakkeP1Field.square(t1, t1, tt);
+			}
+			if (SQRT_STEPS[i + 1] != 0) {
+				SakkeP1Field.multiply(t1, odd[SQRT_STEPS[i + 1] >>> 1], t1, tt);
+			}
+		}
+
+		int[] t2 = x2;
+		SakkeP1Field.square(t1, t2, tt);
+
+		return Nat.eq(SakkeP1Field.SIZE, x1, t2) ? new SakkeP1FieldElement(t1) : null;
+	}
+
+	/*
+	 * Recodes a positive exponent for left-to-right sliding window exponentiation with
+	 * windows of at most w bits. The result holds pairs (squarings, digit): square that
+	 * many times, then multiply by x^digit unless digit is 0. Every digit is odd and
+	 * the first pair starts the result at x^digit.
+	 */
+	private static int[] recodeExponent(BigInteger e, int w) {
+		int[] steps = new int[2 * e.bitLength() + 2];
+		int count = 0, squarings = 0;
+
+		int i = e.bitLength() - 1;
+		while (i >= 0) {
+			if (!e.testBit(i)) {
+				++squarings;
+				--i;
+				continue;
+			}
+
+			int j = Math.max(i - w + 1, 0);
+			while (!e.testBit(j)) {
+				++j;
+			}
+
+			int digit = 0;
+			for (int k = i; k >= j; --k) {
+				digit = (digit << 1) | (e.testBit(k) ? 1 : 0);
+			}
+
+			steps[count++] = squarings + (i - j + 1);
+			steps[count++] = digit;
+			squarings = 0;
+			i = j - 1;
+		}
+
+		if (squarings > 0) {
+			steps[count++] = squarings;
+			steps[count++] = 0;
+		}
+
+		return Arrays.copyOf(steps, count);
+	}
+
+	public boolean equals(Object other) {
+		if (other == this) {
+			return true;
+		}
+
+		if (!(other instanceof SakkeP1FieldElement)) {
+			return false;
+		}
+
+		SakkeP1FieldElement o = (SakkeP1FieldElement) other;
+		return Nat.eq(SakkeP1Field.SIZE, x, o.x);
+	}
+
+	public int hashCode() {
+		return Q.hashCode() ^ Arrays.hashCode(x, 0, SakkeP1Field.SIZE);
+	}
+}
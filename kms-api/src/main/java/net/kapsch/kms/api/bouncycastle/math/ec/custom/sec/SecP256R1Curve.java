@@ -0,0 +1,125 @@
+package net.kapsch.kms.api.bouncycastle.math.ec.custom.sec;
+
+import java.math.BigInteger;
+
+import net.kapsch.kms.api.bouncycastle.math.ec.ECConstants;
+import net.kapsch.kms.api.bouncycastle.math.ec.ECCurve;
+import net.kapsch.kms.api.bouncycastle.math.ec.ECFieldElement;
+import net.kapsch.kms.api.bouncycastle.math.ec.ECLookupTable;
+import net.kapsch.kms.api.bouncycastle.math.ec.ECPoint;
+import net.kapsch.kms.api.bouncycastle.math.raw.Nat;
+
+/**
+ * The NIST P-256 curve y^2 = x^3 - 3x + b (FIPS 186-4 D.1.2.3, also secp256r1), with
+ * field arithmetic on fixed-width limbs.
+ */
+public class SecP256R1Curve extends ECCurve.AbstractFp {
+	public static final BigInteger q = SecP256R1FieldElement.Q;
+
+	private static final BigInteger B = new BigInteger(
+			"5AC635D8AA3A93E7B3EBBD55769886BC651D06B0CC53B0F63BCE3C3E27D2604B", 16);
+
+	// The order of the base point G
+	private static final BigInteger ORDER = new BigInteger(
+			"FFFFFFFF00000000FFFFFFFFFFFFFFFFBCE6FAADA7179E84F3B9CAC2FC632551", 16);
+
+	private static final int SecP256R1_DEFAULT_COORDS = COORD_JACOBIAN;
+
+	protected SecP256R1Point infinity;
+
+	public SecP256R1Curve() {
+		super(q);
+
+		this.infinity = new SecP256R1Point(this, null, null);
+
+		this.a = fromBigInteger(ECConstants.THREE.negate().mod(q));
+		this.b = fromBigInteger(B);
+		this.order = ORDER;
+		this.cofactor = ECConstants.ONE;
+
+		this.coord = SecP256R1_DEFAULT_COORDS;
+	}
+
+	protected ECCurve cloneCurve() {
+		return new SecP256R1Curve();
+	}
+
+	public boolean supportsCoordinateSystem(int coord) {
+		switch (coord) {
+		case COORD_JACOBIAN:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	public BigInteger getQ() {
+		return q;
+	}
+
+	public int getFieldSize() {
+		return q.bitLength();
+	}
+
+	public ECFieldElement fromBigInteger(BigInteger x) {
+		return new SecP256R1FieldElement(x);
+	}
+
+	protected ECPoint createRawPoint(ECFieldElement x, ECFieldElement y,
+			boolean withCompression) {
+		return new SecP256R1Point(this, x, y, withCompression);
+	}
+
+	protected ECPoint createRawPoint(ECFieldElement x, ECFieldElement y,
+			ECFieldElement[] zs, boolean withCompression) {
+		return new SecP256R1Point(this, x, y, zs, withCompression);
+	}
+
+	public ECPoint getInfinity() {
+		return infinity;
+	}
+
+	public ECLookupTable createCacheSafeLookupTable(ECPoint[] points, int off,
+			final int len) {
+		final int FE_INTS = SecP256R1Field.SIZE;
+
+		final int[] table = new int[len * FE_INTS * 2];
+		{
+			int pos = 0;
+			for (int i = 0; i < len; ++i) {
+				ECPoint p = points[off + i];
+				Nat.copy(FE_INTS, ((SecP256R1FieldElement) p.getRawXCoord()).x, 0, table,
+						pos);
+				pos += FE_INTS;
+				Nat.copy(FE_INTS, ((SecP256R1FieldElement) p.getRawYCoord()).x, 0, table,
+						pos);
+				pos += FE_INTS;
+			}
+		}
+
+		return new ECLookupTable() {
+			public int getSize() {
+				return len;
+			}
+
+			public ECPoint lookup(int index) {
+				int[] x = SecP256R1Field.create(), y = SecP256R1Field.create();
+				int pos = 0;
+
+				for (int i = 0; i < len; ++i) {
+					int MASK = ((i ^ index) - 1) >> 31;
+
+					for (int j = 0; j < FE_INTS; ++j) {
+						x[j] ^= table[pos + j] & MASK;
+						y[j] ^= table[pos + FE_INTS + j] & MASK;
+					}
+
+					pos += (FE_INTS * 2);
+				}
+
+				return createRawPoint(new SecP256R1FieldElement(x),
+						new SecP256R1FieldElement(y), false);
+			}
+		};
+	}
+}
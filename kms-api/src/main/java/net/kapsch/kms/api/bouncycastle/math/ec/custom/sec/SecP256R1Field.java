@@ -0,0 +1,188 @@
+package net.kapsch.kms.api.bouncycastle.math.ec.custom.sec;
+
+import java.math.BigInteger;
+
+import net.kapsch.kms.api.bouncycastle.math.raw.Mod;
+import net.kapsch.kms.api.bouncycastle.math.raw.Nat;
+
+/**
+ * Arithmetic modulo the NIST P-256 prime p = 2^256 - 2^224 + 2^192 + 2^96 - 1. Elements
+ * are held as 8 little-endian 32-bit limbs; products are reduced with the word-wise
+ * reduction of FIPS 186-4 D.2.3, which needs no multiplication.
+ */
+public class SecP256R1Field {
+	private static final long M = 0xFFFFFFFFL;
+
+	public static final int SIZE = 8;
+
+	public static final BigInteger P_BIG = new BigInteger(
+			"FFFFFFFF00000001000000000000000000000000FFFFFFFFFFFFFFFFFFFFFFFF", 16);
+
+	// 2^256 - 2^224 + 2^192 + 2^96 - 1
+	static final int[] P = new int[] { 0xFFFFFFFF, 0xFFFFFFFF, 0xFFFFFFFF, 0x00000000,
+			0x00000000, 0x00000000, 0x00000001, 0xFFFFFFFF };
+
+	public static void add(int[] x, int[] y, int[] z) {
+		int c = Nat.add(SIZE, x, y, z);
+		if (c != 0 || Nat.gte(SIZE, z, P)) {
+			Nat.subFrom(SIZE, P, z);
+		}
+	}
+
+	public static void addOne(int[] x, int[] z) {
+		int c = Nat.inc(SIZE, x, z);
+		if (c != 0 || Nat.gte(SIZE, z, P)) {
+			Nat.subFrom(SIZE, P, z);
+		}
+	}
+
+	public static int[] create() {
+		return Nat.create(SIZE);
+	}
+
+	public static int[] createExt() {
+		return Nat.create(SIZE << 1);
+	}
+
+	public static int[] fromBigInteger(BigInteger x) {
+		if (x.signum() < 0 || x.compareTo(P_BIG) >= 0) {
+			x = x.mod(P_BIG);
+		}
+		return Nat.fromBigInteger(256, x);
+	}
+
+	public static void inv(int[] x, int[] z) {
+		Mod.invert(P, x, z);
+	}
+
+	public static boolean isOne(int[] x) {
+		return Nat.isOne(SIZE, x);
+	}
+
+	public static boolean isZero(int[] x) {
+		return Nat.isZero(SIZE, x);
+	}
+
+	public static void multiply(int[] x, int[] y, int[] z) {
+		int[] tt = createExt();
+		multiply(x, y, z, tt);
+	}
+
+	public static void multiply(int[] x, int[] y, int[] z, int[] tt) {
+		Nat.mul(SIZE, x, y, tt);
+		reduce(tt, z);
+	}
+
+	public static void negate(int[] x, int[] z) {
+		if (Nat.isZero(SIZE, x)) {
+			Nat.zero(SIZE, z);
+		}
+		else {
+			Nat.sub(SIZE, P, x, z);
+		}
+	}
+
+	/**
+	 * Reduction of a double-length value, z = xx mod p. The 512-bit value (c15, ..., c0)
+	 * is folded into s1 + 2 s2 + 2 s3 + s4 + s5 - s6 - s7 - s8 - s9, where the si are
+	 * 256-bit values made up of its words, see FIPS 186-4 D.2.3.
+	 */
+	public static void reduce(int[] xx, int[] z) {
+		long c8 = xx[8] & M, c9 = xx[9] & M, c10 = xx[10] & M, c11 = xx[11] & M;
+		long c12 = xx[12] & M, c13 = xx[13] & M, c14 = xx[14] & M, c15 = xx[15] & M;
+
+		long cc = 0;
+		cc += (xx[0] & M) + c8 + c9 - c11 - c12 - c13 - c14;
+		z[0] = (int) cc;
+		cc >>= 32;
+		cc += (xx[1] & M) + c9 + c10 - c12 - c13 - c14 - c15;
+		z[1] = (int) cc;
+		cc >>= 32;
+		cc += (xx[2] & M) + c10 + c11 - c13 - c14 - c15;
+		z[2] = (int) cc;
+		cc >>= 32;
+		cc += (xx[3] & M) + ((c11 + c12) << 1) + c13 - c15 - c8 - c9;
+		z[3] = (int) cc;
+		cc >>= 32;
+		cc += (xx[4] & M) + ((c12 + c13) << 1) + c14 - c9 - c10;
+		z[4] = (int) cc;
+		cc >>= 32;
+		cc += (xx[5] & M) + ((c13 + c14) << 1) + c15 - c10 - c11;
+		z[5] = (int) cc;
+		cc >>= 32;
+		cc += (xx[6] & M) + 3 * c14 + (c15 << 1) + c13 - c8 - c9;
+		z[6] = (int) cc;
+		cc >>= 32;
+		cc += (xx[7] & M) + 3 * c15 + c8 - c10 - c11 - c12 - c13;
+		z[7] = (int) cc;
+		cc >>= 32;
+
+		reduceCarry(cc, z);
+	}
+
+	/**
+	 * Folds the signed carry c out of z + c * 2^256, using 2^256 = 2^224 - 2^192 - 2^96 +
+	 * 1 mod p, and brings the result below p.
+	 */
+	private static void reduceCarry(long c, int[] z) {
+		while (c != 0) {
+			long cc = 0;
+			cc += (z[0] & M) + c;
+			z[0] = (int) cc;
+			cc >>= 32;
+			cc += (z[1] & M);
+			z[1] = (int) cc;
+			cc >>= 32;
+			cc += (z[2] & M);
+			z[2] = (int) cc;
+			cc >>= 32;
+			cc += (z[3] & M) - c;
+			z[3] = (int) cc;
+			cc >>= 32;
+			cc += (z[4] & M);
+			z[4] = (int) cc;
+			cc >>= 32;
+			cc += (z[5] & M);
+			z[5] = (int) cc;
+			cc >>= 32;
+			cc += (z[6] & M) - c;
+			z[6] = (int) cc;
+			cc >>= 32;
+			cc += (z[7] & M) + c;
+			z[7] = (int) cc;
+			c = cc >> 32;
+		}
+
+		if (Nat.gte(SIZE, z, P)) {
+			Nat.subFrom(SIZE, P, z);
+		}
+	}
+
+	public static void square(int[] x, int[] z) {
+		int[] tt = createExt();
+		square(x, z, tt);
+	}
+
+	public static void square(int[] x, int[] z, int[] tt) {
+		Nat.square(SIZE, x, tt);
+		reduce(tt, z);
+	}
+
+	public static void subtract(int[] x, int[] y, int[] z) {
+		int c = Nat.sub(SIZE, x, y, z);
+		if (c != 0) {
+			Nat.addTo(SIZE, P, z);
+		}
+	}
+
+	public static BigInteger toBigInteger(int[] x) {
+		return Nat.toBigInteger(SIZE, x);
+	}
+
+	public static void twice(int[] x, int[] z) {
+		int c = Nat.shiftUpBit(SIZE, x, 0, z);
+		if (c != 0 || Nat.gte(SIZE, z, P)) {
+			Nat.subFrom(SIZE, P, z);
+		}
+	}
+}
@@ -0,0 +1,148 @@
+package net.kapsch.kms.api.bouncycastle.math.ec.custom.sec;
+
+import java.math.BigInteger;
+
+import net.kapsch.kms.api.bouncycastle.math.ec.ECFieldElement;
+import net.kapsch.kms.api.bouncycastle.math.raw.Nat;
+import net.kapsch.kms.api.bouncycastle.util.Arrays;
+
+public class SecP256R1FieldElement extends ECFieldElement {
+	public static final BigInteger Q = SecP256R1Field.P_BIG;
+
+	// (p + 1) / 4, square roots are x^((p + 1) / 4) as p == 3 mod 4
+	private static final BigInteger SQRT_EXPONENT = Q.add(ONE).shiftRight(2);
+
+	protected int[] x;
+
+	public SecP256R1FieldElement(BigInteger x) {
+		if (x == null || x.signum() < 0 || x.bitLength() > 256) {
+			throw new IllegalArgumentException(
+					"x value invalid for SecP256R1FieldElement");
+		}
+
+		this.x = SecP256R1Field.fromBigInteger(x);
+	}
+
+	public SecP256R1FieldElement() {
+		this.x = SecP256R1Field.create();
+	}
+
+	protected SecP256R1FieldElement(int[] x) {
+		this.x = x;
+	}
+
+	public boolean isZero() {
+		return SecP256R1Field.isZero(x);
+	}
+
+	public boolean isOne() {
+		return SecP256R1Field.isOne(x);
+	}
+
+	public boolean testBitZero() {
+		return Nat.getBit(x, 0) == 1;
+	}
+
+	public BigInteger toBigInteger() {
+		return SecP256R1Field.toBigInteger(x);
+	}
+
+	public String getFieldName() {
+		return "SecP256R1Field";
+	}
+
+	public int getFieldSize() {
+		return Q.bitLength();
+	}
+
+	public ECFieldElement add(ECFieldElement b) {
+		int[] z = SecP256R1Field.create();
+		SecP256R1Field.add(x, ((SecP256R1FieldElement) b).x, z);
+		return new SecP256R1FieldElement(z);
+	}
+
+	public ECFieldElement addOne() {
+		int[] z = SecP256R1Field.create();
+		SecP256R1Field.addOne(x, z);
+		return new SecP256R1FieldElement(z);
+	}
+
+	public ECFieldElement subtract(ECFieldElement b) {
+		int[] z = SecP256R1Field.create();
+		SecP256R1Field.subtract(x, ((SecP256R1FieldElement) b).x, z);
+		return new SecP256R1FieldElement(z);
+	}
+
+	public ECFieldElement multiply(ECFieldElement b) {
+		int[] z = SecP256R1Field.create();
+		SecP256R1Field.multiply(x, ((SecP256R1FieldElement) b).x, z);
+		return new SecP256R1FieldElement(z);
+	}
+
+	public ECFieldElement divide(ECFieldElement b) {
+		int[] z = SecP256R1Field.create();
+		SecP256R1Field.inv(((SecP256R1FieldElement) b).x, z);
+		SecP256R1Field.multiply(z, x, z);
+		return new SecP256R1FieldElement(z);
+	}
+
+	public ECFieldElement negate() {
+		int[] z = SecP256R1Field.create();
+		SecP256R1Field.negate(x, z);
+		return new SecP256R1FieldElement(z);
+	}
+
+	public ECFieldElement square() {
+		int[] z = SecP256R1Field.create();
+		SecP256R1Field.square(x, z);
+		return new SecP256R1FieldElement(z);
+	}
+
+	public ECFieldElement invert() {
+		int[] z = SecP256R1Field.create();
+		SecP256R1Field.inv(x, z);
+		return new SecP256R1FieldElement(z);
+	}
+
+	/**
+	 * return a sqrt root - the routine verifies that the calculation returns the right
+	 * value - if none exists it returns null.
+	 */
+	public ECFieldElement sqrt() {
+		int[] x1 = this.x;
+		if (SecP256R1Field.isZero(x1) || SecP256R1Field.isOne(x1)) {
+			return this;
+		}
+
+		int[] tt = SecP256R1Field.createExt();
+		int[] t1 = Nat.copy(SecP256R1Field.SIZE, x1);
+		for (int i = SQRT_EXPONENT.bitLength() - 2; i >= 0; --i) {
+			SecP256R1Field.square(t1, t1, tt);
+			if (SQRT_EXPONENT.testBit(i)) {
+				SecP256R1Field.multiply(t1, x1, t1, tt);
+			}
+		}
+
+		int[] t2 = SecP256R1Field.create();
+		SecP256R1Field.square(t1, t2, tt);
+
+		return Nat.eq(SecP256R1Field.SIZE, x1, t2) ? new SecP256R1FieldElement(t1) : null;
+	}
+
+	public boolean equals(Object other) {
+		if (other == this) {
+			return true;
+		}
+
+		if (!(other instanceof SecP256R1FieldElement)) {
+			return false;
+		}
+
+		SecP256R1FieldElement o = (SecP256R1FieldElement) other;
+		return Nat.eq(SecP256R1Field.SIZE, x, o.x);
+	}
+
+	public int hashCode() {
+		return Q.hashCode() ^ Arrays.hashCode(x, 0, SecP256R1Field.SIZE);
+	}
+}
@@ -1,7 +1,10 @@
 package net.kapsch.kms.api.mikeysakke.crypto;
 
 import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
 
+import net.kapsch.kms.api.bouncycastle.crypto.digests.SHA256Digest;
 import net.kapsch.kms.api.bouncycastle.math.ec.ECAlgorithms;
 import net.kapsch.kms.api.bouncycastle.math.ec.ECConstants;
 import net.kapsch.kms.api.bouncycastle.math.ec.ECPoint;
@@ -42,7 +45,6 @@ public final class Eccsi {
 		// 1) Validate that the PVT lies on the curve E
 		ECPoint PVT = null;
 
-		// if point is not on curve, ECPoint constructor will fail.
 		try {
 			PVT = EccsiParameterSet.ECurve.decodePoint(pvtString.getOctets());
 		}
@@ -51,18 +53,15 @@ public final class Eccsi {
 		}
 
 		// 2) Compute HS = hash( G || KPAK || ID || PVT ) //NOSONAR
-		OctetString unhashedHS = new OctetString();
-		unhashedHS.append(EccsiParameterSet.GString);
-		unhashedHS.append(kpakString);
-		unhashedHS.append(identifier);
-		unhashedHS.append(pvtString);
-
 		OctetString hashedSign = new OctetString(EccsiParameterSet.HASH_LENGTH);
-		EccsiParameterSet.hash(unhashedHS.getOctets(), unhashedHS.size(),
-				hashedSign.getOctets());
+		EccsiParameterSet.hash(hashedSign.getOctets(), EccsiParameterSet.GString,
+				kpakString, identifier, pvtString);
 
 		// Return HS for later use by Sign().
 		hsStringOut.setOctets(hashedSign);
+		if (!PVT.isValid()) {
+			return false;
+		}
 		BigInteger hs = new BigInteger(1, hashedSign.getOctets());
 		//
 		// 3) Validate that KPAK = [SSK]G - [HS]PVT
@@ -72,7 +71,7 @@ public final class Eccsi {
 		ECPoint lhs = KPAK.add(PVT.multiply(hs));
 
 		BigInteger ssk = new BigInteger(1, sskString.getOctets());
-		ECPoint rhs = EccsiParameterSet.G.multiply(ssk);
+		ECPoint rhs = EccsiParameterSet.multiplyG(ssk);
 
 		// Return the result
 		return lhs.equals(rhs);
@@ -96,59 +95,60 @@ public final class Eccsi {
 	public static OctetString sign(final OctetString messageToSign,
 			final OctetString pvtString, final OctetString sskString,
 			final OctetString hsString, final RandomGenerator random) {
+		return sign(messageToSign, pvtString, new BigInteger(1, sskString.getOctets()),
+				hsString, random, null);
+	}
 
-		OctetString rand = null;
+	/**
+	 * Sign the message given using the already parsed Secret Signing Key, see
+	 * {@link #sign(OctetString, OctetString, OctetString, OctetString,
+	 * RandomGenerator)}.
+	 *
+	 * @param messageToSign the message to create a signature for
+	 * @param pvtString the Public Validation Token
+	 * @param ssk the Secret Signing Key
+	 * @param hsString a hashed value calculated from verifying the signing keys
+	 * @param random a random number generator, used if noncePool is null
+	 * @param noncePool the pool to take the values j and r from, or null
+	 * @return the signature for the message
+	 */
+	static OctetString sign(final OctetString messageToSign, final OctetString pvtString,
+			final BigInteger ssk, final OctetString hsString, final RandomGenerator random,
+			final SigningNoncePool noncePool) {
+		//
+		// 3) HS should already have been calculated when verifying the signing keys
+		// received by the KMS, so we assume this has been cached and passed in already.
+		//
+		if (hsString == null || hsString.empty()) {
+			throw new IllegalArgumentException(
+					"Implementation currently requires cached HS");
+		}
 
 		// Initialize variables for loop
 		BigInteger j;
-		BigInteger he_plus_rSSK = BigInteger.ZERO;
+		BigInteger he_plus_rSSK;
 		BigInteger r;
 		OctetString rString = null;
 		OctetString heString = null;
 
 		do {
 			//
-			// 1) Choose a random (ephemeral) non-zero value j in F_q
-			//
-			rand = random.generate(EccsiParameterSet.Q_LENGTH_IN_BYTES);
-
-			// ensure j is in F_q
-			j = new BigInteger(1, rand.getOctets());
-			j = j.mod(EccsiParameterSet.q);
-
-			// if j is zero, restart the process
-			if (rand.empty() || rand.allZeroes() || j.equals(BigInteger.ZERO)) {
-				continue;
-			}
-			//
+			// 1) Choose a random (ephemeral) non-zero value j in F_q, and
 			// 2) Compute J = (Jx,Jy) = [j]G and assign Jx to r
 			//
-			ECPoint J = EccsiParameterSet.G.multiply(j);
-			r = J.getX().toBigInteger();
+			SigningNoncePool.Nonce nonce = noncePool != null ? noncePool.take()
+					: SigningNoncePool.generate(random);
+			j = nonce.getJ();
+			r = nonce.getR();
+			//
+			// 3) Compute HE = hash( HS || r || M ) //NOSONAR
 			//
-			// 3) Compute HE = hash( HS || r || M ) Note that HS should already //NOSONAR
-			// have been calculated when verifying
-			// the signing keys
-			// received by the KMS, so we assume this has been cached and passed
-			// in already.
-			if (hsString == null || hsString.empty()) {
-				throw new IllegalArgumentException(
-						"Implementation currently requires cached HS");
-			}
-
 			rString = new OctetString(r, EccsiParameterSet.NBYTES);
-			OctetString undigestedHE = new OctetString();
-			undigestedHE.append(hsString);
-			undigestedHE.append(rString);
-			undigestedHE.append(messageToSign);
-
-			// Hash the concatenated octet string
 			heString = new OctetString(EccsiParameterSet.HASH_LENGTH);
-			EccsiParameterSet.hash(undigestedHE.getOctets(), undigestedHE.size(),
-					heString.getOctets());
+			EccsiParameterSet.hash(heString.getOctets(), hsString, rString,
+					messageToSign);
 
 			// 4) Verify that HE + r * SSK is non-zero (mod q)
-			BigInteger ssk = new BigInteger(1, sskString.getOctets());
 			BigInteger he = new BigInteger(1, heString.getOctets());
 			he_plus_rSSK = r.multiply(ssk).mod(EccsiParameterSet.q);
 			he_plus_rSSK = he_plus_rSSK.add(he).mod(EccsiParameterSet.q);
@@ -196,6 +196,29 @@ public final class Eccsi {
 		return signature;
 	}
 
+	/**
+	 * Converts a signature ( r || s || PVT ) to the compressed form in which PVT is
+	 * carried as 0x02 or 0x03 || x' instead of 0x04 || x' || y', saving 32 octets. The
+	 * compressed form is not part of RFC 6507 and must only be sent to verifiers known to
+	 * accept it, which {@link #verify} and {@link #verifyBatch} do.
+	 *
+	 * @param signature the signature with PVT uncompressed
+	 * @return the signature with PVT compressed
+	 */
+	public static OctetString compressSignature(final OctetString signature) {
+		if (signature.size() != EccsiParameterSet.SIGNATURE_LENGTH) {
+			throw new IllegalArgumentException("The signature should be "
+					+ String.valueOf(EccsiParameterSet.SIGNATURE_LENGTH)
+					+ " bytes in legth.");
+		}
+
+		int rs_len = 2 * EccsiParameterSet.HASH_LENGTH;
+		OctetString result = signature.subString(0, rs_len);
+		result.append(OctetString.compressPoint(
+				signature.subString(rs_len, EccsiParameterSet.PVT_LENGTH)));
+		return result;
+	}
+
 	/**
 	 * Verifies a given message against a given signature, returning true if the message
 	 * is verified, otherwise false. See RFC 6507 Section 5.2.2 for more details.
@@ -209,12 +232,118 @@ public final class Eccsi {
 	public static boolean verify(final OctetString messageToVerify,
 			final OctetString signature, final OctetString identifier,
 			final OctetString kpakString) {
+		return verify(messageToVerify, signature, identifier, kpakString, null);
+	}
+
+	/**
+	 * Verifies a given message against a given signature with an already decoded KMS
+	 * Public Authentication Key. The precomputed multiples of KPAK are kept with the
+	 * point, so verifiers of many messages under the same KPAK decode it once and pass
+	 * the same point each time. The result is the same as that of {@link #verify}.
+	 *
+	 * @param messageToVerify the message to be verified
+	 * @param signature the signature to verify the message against
+	 * @param identifier the identity of the owner of the message
+	 * @param kpakString the KMS Public Authentication Key
+	 * @param kpak the KMS Public Authentication Key decoded from kpakString, or null to
+	 * decode it
+	 * @return true if the message has been verified
+	 */
+	public static boolean verify(final OctetString messageToVerify,
+			final OctetString signature, final OctetString identifier,
+			final OctetString kpakString, final ECPoint kpak) {
+		ECPoint J = computeJ(messageToVerify, signature, identifier, kpakString, kpak,
+				null, null);
+		return J != null && checkJ(J, signature);
+	}
+
+	/**
+	 * Verifies a batch of messages signed under the same KMS Public Authentication Key,
+	 * returning for every message whether it has been verified. The result for each
+	 * message is the same as that of {@link #verify}.
+	 *
+	 * KPAK is decoded once and its precomputed multiples are shared by the whole batch,
+	 * the common prefix G || KPAK of HS is hashed once and HS is computed once per
+	 * signer, and all points J are converted to affine coordinates with a single field
+	 * inversion.
+	 *
+	 * @param messagesToVerify the messages to be verified
+	 * @param signatures the signatures to verify the messages against
+	 * @param identifiers the identities of the owners of the messages
+	 * @param kpakString the KMS Public Authentication Key
+	 * @return for every message, true if it has been verified
+	 */
+	public static boolean[] verifyBatch(final OctetString[] messagesToVerify,
+			final OctetString[] signatures, final OctetString[] identifiers,
+			final OctetString kpakString) {
+		int count = messagesToVerify.length;
+		if (signatures.length != count || identifiers.length != count) {
+			throw new IllegalArgumentException(
+					"messages, signatures and identifiers should be of equal length");
+		}
+
+		ECPoint KPAK = EccsiParameterSet.ECurve.decodePoint(kpakString.getOctets());
+		SHA256Digest hsPrefix = EccsiParameterSet.hashPrefix(EccsiParameterSet.GString,
+				kpakString);
+		Map<OctetString, OctetString> hsStrings = new HashMap<OctetString, OctetString>();
+
+		ECPoint[] js = new ECPoint[count];
+		int valid = 0;
+		for (int i = 0; i < count; i++) {
+			js[i] = computeJ(messagesToVerify[i], signatures[i], identifiers[i],
+					kpakString, KPAK, hsPrefix, hsStrings);
+			if (js[i] != null) {
+				valid++;
+			}
+		}
+
+		// Bring all points J to affine form with a single inversion
+		ECPoint[] validJs = new ECPoint[valid];
+		for (int i = 0, k = 0; i < count; i++) {
+			if (js[i] != null) {
+				validJs[k++] = js[i];
+			}
+		}
+		EccsiParameterSet.ECurve.normalizeAll(validJs);
+
+		boolean[] verified = new boolean[count];
+		for (int i = 0, k = 0; i < count; i++) {
+			if (js[i] != null) {
+				verified[i] = checkJ(validJs[k++], signatures[i]);
+			}
+		}
+		return verified;
+	}
+
+	/**
+	 * Computes the point J = [s]( [HE]G + [r]Y ) of RFC 6507 Section 5.2.2, steps 1 to 5.
+	 *
+	 * @param messageToVerify the message to be verified
+	 * @param signature the signature to verify the message against
+	 * @param identifier the identity of the owner of the message
+	 * @param kpakString the KMS Public Authentication Key
+	 * @param kpak the decoded KMS Public Authentication Key, or null to decode it
+	 * @param hsPrefix the digest state after hashing G || KPAK, or null
+	 * @param hsStrings values of HS by ID || PVT to reuse, or null
+	 * @return the point J, or null if the signature is malformed
+	 */
+	private static ECPoint computeJ(final OctetString messageToVerify,
+			final OctetString signature, final OctetString identifier,
+			final OctetString kpakString, final ECPoint kpak,
+			final SHA256Digest hsPrefix, final Map<OctetString, OctetString> hsStrings) {
 		// Check that the signature is the correct size; two
 		// N-octet integers r and s, plus an elliptical curve point PVT
 		// over E expressed in uncompressed form with length 2N -- See
-		// RFC6507 3.3)
-		if (signature.size() != EccsiParameterSet.SIGNATURE_LENGTH) {
-			return false;
+		// RFC6507 3.3) or, by agreement, in compressed form with length N
+		int pvt_len;
+		if (signature.size() == EccsiParameterSet.SIGNATURE_LENGTH) {
+			pvt_len = EccsiParameterSet.PVT_LENGTH;
+		}
+		else if (signature.size() == EccsiParameterSet.SIGNATURE_COMPRESSED_LENGTH) {
+			pvt_len = EccsiParameterSet.PVT_COMPRESSED_LENGTH;
+		}
+		else {
+			return null;
 		}
 
 		// Extract the r,s and PVT from the signature
@@ -223,47 +352,61 @@ public final class Eccsi {
 
 		OctetString rString = signature.subString(0, r_len);
 		OctetString sString = signature.subString(r_len, s_len);
-		OctetString pvt = signature.subString(r_len + s_len,
-				EccsiParameterSet.PVT_LENGTH);
+		OctetString pvt = signature.subString(r_len + s_len, pvt_len);
 		//
 		// 1) Check that PVT lies on the elliptical curve E
 		//
 		ECPoint PVT;
-		// if point is not on curve, ECPoint constructor will fail.
 		try {
 			PVT = EccsiParameterSet.ECurve.decodePoint(pvt.getOctets());
 		}
 		catch (Exception e) {
-			return false;
+			return null;
+		}
+		if (!PVT.isValid()) {
+			return null;
+		}
+
+		// HS is defined over the uncompressed PVT, as used by the signer
+		if (pvt_len != EccsiParameterSet.PVT_LENGTH) {
+			pvt = new OctetString(PVT);
 		}
 		//
 		// 2) Compute HS = hash( G || KPAK || ID || PVT ) //NOSONAR
 		//
-		OctetString unhashedHS = new OctetString();
-		unhashedHS.append(EccsiParameterSet.GString);
-		unhashedHS.append(kpakString);
-		unhashedHS.append(identifier);
-		unhashedHS.append(pvt);
-
-		OctetString hsString = new OctetString(EccsiParameterSet.HASH_LENGTH);
-		EccsiParameterSet.hash(unhashedHS.getOctets(), unhashedHS.size(),
-				hsString.getOctets());
+		// PVT has a fixed length, so ID || PVT identifies the hash input
+		OctetString signer = null;
+		OctetString hsString = null;
+		if (hsStrings != null) {
+			signer = new OctetString(identifier);
+			signer.append(pvt);
+			hsString = hsStrings.get(signer);
+		}
+		if (hsString == null) {
+			hsString = new OctetString(EccsiParameterSet.HASH_LENGTH);
+			if (hsPrefix != null) {
+				EccsiParameterSet.hash(hsPrefix, hsString.getOctets(), identifier, pvt);
+			}
+			else {
+				EccsiParameterSet.hash(hsString.getOctets(), EccsiParameterSet.GString,
+						kpakString, identifier, pvt);
+			}
+			if (hsStrings != null) {
+				hsStrings.put(signer, hsString);
+			}
+		}
 
 		//
 		// 3) Compute HE = hash( HS || r || M ) //NOSONAR
 		//
-		OctetString unhashedHE = new OctetString();
-		unhashedHE.append(hsString);
-		unhashedHE.append(rString);
-		unhashedHE.append(messageToVerify);
-
 		OctetString heString = new OctetString(EccsiParameterSet.HASH_LENGTH);
-		EccsiParameterSet.hash(unhashedHE.getOctets(), unhashedHE.size(),
-				heString.getOctets());
+		EccsiParameterSet.hash(heString.getOctets(), hsString, rString,
+				messageToVerify);
 		//
 		// 4) Y = [HS]PVT + KPAK
 		//
-		ECPoint KPAK = EccsiParameterSet.ECurve.decodePoint(kpakString.getOctets());
+		ECPoint KPAK = kpak != null ? kpak
+				: EccsiParameterSet.ECurve.decodePoint(kpakString.getOctets());
 		BigInteger hs = new BigInteger(1, hsString.getOctets());
 		//
 		// 5) Compute J = [s]( [HE]G + [r]Y )
@@ -278,24 +421,24 @@ public final class Eccsi {
 		BigInteger sr = s.multiply(r).mod(EccsiParameterSet.q);
 		BigInteger srhs = sr.multiply(hs).mod(EccsiParameterSet.q);
 
-		// Use ECAlgorithms.shamirsTrick method for calculation. It has better
-		// performance.
-		// long t1 = System.currentTimeMillis();
-
-		// Use Shamirs trick to do the first two multiplications
-		// [s][HE]G + [s][r][HS]PVT and then add on [s][r]KPAK
-		ECPoint J = ECAlgorithms.shamirsTrick(EccsiParameterSet.G, she, PVT, srhs)
-				.add(KPAK.multiply(sr));
-
-		// long t3 = System.currentTimeMillis();
-		// ECPoint J1 =
-		// EccsiParameterSet.G.multiply(she).add(PVT.multiply(srhs)).add(KPAK.multiply(sr));
-		//
-		// long t4 = System.currentTimeMillis();
-		//
-		// System.out.println((t3-t1) + " " + new OctetString(J));
-		// System.out.println((t4-t3) + " " + new OctetString(J1));
+		// One three-term multi-scalar multiplication shares the doublings between the
+		// terms; the WNAF tables are kept with the points, so that of G is always reused
+		// and that of KPAK when the caller passes the same decoded KPAK each time
+		return ECAlgorithms.sumOfMultiplies(
+				new ECPoint[] { EccsiParameterSet.G, PVT, KPAK },
+				new BigInteger[] { she, srhs, sr });
+	}
 
+	/**
+	 * Checks the point J computed for a signature, see RFC 6507 Section 5.2.2 step 6.
+	 *
+	 * @param J the point J = [s]( [HE]G + [r]Y )
+	 * @param signature the signature J has been computed for
+	 * @return true if the signature is verified
+	 */
+	private static boolean checkJ(final ECPoint J, final OctetString signature) {
+		BigInteger r = new BigInteger(1,
+				signature.subString(0, EccsiParameterSet.HASH_LENGTH).getOctets());
 		//
 		// 6) Viewing J in affine coordinates (Jx,Jy), check that
 		//
@@ -303,7 +446,10 @@ public final class Eccsi {
 		//
 		// Note: If Jx = r mod p and Jx != 0, then Jx mod p != 0.
 		//
-		BigInteger j_x = J.getX().toBigInteger();
+		if (J.isInfinity()) {
+			return false;
+		}
+		BigInteger j_x = J.normalize().getAffineXCoord().toBigInteger();
 		return (j_x.equals(r.mod(EccsiParameterSet.p)) && !j_x.equals(ECConstants.ZERO));
 	}
 }
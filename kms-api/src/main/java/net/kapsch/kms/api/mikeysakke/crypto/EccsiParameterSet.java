@@ -3,9 +3,9 @@ package net.kapsch.kms.api.mikeysakke.crypto;
 import java.math.BigInteger;
 
 import net.kapsch.kms.api.bouncycastle.crypto.digests.SHA256Digest;
-import net.kapsch.kms.api.bouncycastle.math.ec.ECConstants;
 import net.kapsch.kms.api.bouncycastle.math.ec.ECCurve;
 import net.kapsch.kms.api.bouncycastle.math.ec.ECPoint;
+import net.kapsch.kms.api.bouncycastle.math.ec.custom.sec.SecP256R1Curve;
 import net.kapsch.kms.api.mikeysakke.utils.OctetString;
 
 /**
@@ -35,10 +35,10 @@ public final class EccsiParameterSet {
 
 	/**
 	 * The elliptic curve E which represents y^2 = x^3 - 3x + B mod p defined over finite
-	 * field F_p having subgroup of prime order q.
+	 * field F_p having subgroup of prime order q, with field arithmetic specialised to
+	 * the P-256 prime.
 	 */
-	public static final ECCurve ECurve = new ECCurve.Fp(p, ECConstants.THREE.negate(),
-			ECConstants.ZERO);
+	public static final ECCurve ECurve = new SecP256R1Curve();
 
 	/**
 	 * A generator point on the elliptic curve E which generates the subgroup of order q.
@@ -76,12 +76,35 @@ public final class EccsiParameterSet {
 	 */
 	public static final int PVT_LENGTH = 65;
 
+	/**
+	 * The length of a signature in bytes when PVT is carried in compressed form = (3 *
+	 * hashLength) + 1. The compressed form is an extension of RFC 6507 for links where
+	 * both ends have agreed to it.
+	 */
+	public static final int SIGNATURE_COMPRESSED_LENGTH = 97;
+
+	/**
+	 * The length of the Public Validation Token in bytes in compressed form = hashLength
+	 * + 1.
+	 */
+	public static final int PVT_COMPRESSED_LENGTH = 33;
+
 	/**
 	 * The number of octets used to represent fields r and s in a signature. See RFC 6507
 	 * section 4.1
 	 */
 	public static final int NBYTES = 32;
 
+	/**
+	 * The SHA-256 digest of the calling thread, reused by every hash computed on it.
+	 */
+	private static final ThreadLocal<SHA256Digest> DIGEST = new ThreadLocal<SHA256Digest>() {
+		@Override
+		protected SHA256Digest initialValue() {
+			return new SHA256Digest();
+		}
+	};
+
 	/**
 	 * Private constructor - should never be initialized.
 	 */
@@ -89,12 +112,71 @@ public final class EccsiParameterSet {
 		throw new IllegalStateException("should never be initialized");
 	}
 
+	/**
+	 * Computes [k]G. The comb table for G is computed on first use and kept with the
+	 * point, so it is shared by every later multiplication in the JVM. The table is read
+	 * in constant time when {@link FixedPointMultiplication#isConstantTime()}.
+	 *
+	 * @param k The scalar, reduced modulo q as G has order q
+	 * @return The point [k]G
+	 */
+	public static ECPoint multiplyG(final BigInteger k) {
+		return FixedPointMultiplication.multiply(G, k.mod(q));
+	}
+
 	/**
 	 * The hashing algorithm to use in the procedure.
 	 */
 	public static void hash(byte[] data, int dataSize, byte[] result) {
-		final SHA256Digest digest = new SHA256Digest();
+		final SHA256Digest digest = DIGEST.get();
 		digest.update(data, 0, dataSize);
 		digest.doFinal(result, 0);
 	}
+
+	/**
+	 * Hashes the concatenation of the given octet strings, feeding them to the digest
+	 * one after another rather than concatenating them first.
+	 *
+	 * @param result the array to write the hash to
+	 * @param parts the octet strings to hash
+	 */
+	public static void hash(final byte[] result, final OctetString... parts) {
+		hash(null, result, parts);
+	}
+
+	/**
+	 * Hashes the given prefix, returning the digest state for use with
+	 * {@link #hash(SHA256Digest, byte[], OctetString...)}. Hashing a common prefix once
+	 * saves its compression rounds for every later hash starting with it.
+	 *
+	 * @param parts the octet strings forming the prefix
+	 * @return the digest state after hashing the prefix
+	 */
+	public static SHA256Digest hashPrefix(final OctetString... parts) {
+		final SHA256Digest prefix = new SHA256Digest();
+		for (OctetString part : parts) {
+			prefix.update(part.getOctets(), 0, part.size());
+		}
+		return prefix;
+	}
+
+	/**
+	 * Hashes the concatenation of a prefix, already hashed by {@link #hashPrefix}, and
+	 * the given octet strings.
+	 *
+	 * @param prefix the digest state after hashing the prefix, or null for no prefix
+	 * @param result the array to write the hash to
+	 * @param parts the octet strings to hash after the prefix
+	 */
+	public static void hash(final SHA256Digest prefix, final byte[] result,
+			final OctetString... parts) {
+		final SHA256Digest digest = DIGEST.get();
+		if (prefix != null) {
+			digest.reset(prefix);
+		}
+		for (OctetString part : parts) {
+			digest.update(part.getOctets(), 0, part.size());
+		}
+		digest.doFinal(result, 0);
+	}
 }
@@ -0,0 +1,90 @@
+package net.kapsch.kms.api.mikeysakke.crypto;
+
+import java.math.BigInteger;
+
+import net.kapsch.kms.api.mikeysakke.utils.OctetString;
+import net.kapsch.kms.api.mikeysakke.utils.RandomGenerator;
+
+/**
+ * Signing keys of one user, validated once when they are provisioned. See RFC 6507
+ * Section 5.1.2 for the validation and Section 5.2.1 for signing.
+ *
+ * The value HS computed by the validation and the parsed Secret Signing Key are kept, so
+ * signing a message only costs the multiplication [j]G, the hash HE and a modular
+ * inversion, or just the latter two with a {@link SigningNoncePool}.
+ */
+public final class EccsiSigningContext {
+
+	/**
+	 * The Public Validation Token, appended to every signature.
+	 */
+	private final OctetString pvtString;
+
+	/**
+	 * The Secret Signing Key.
+	 */
+	private final BigInteger ssk;
+
+	/**
+	 * HS = hash( G || KPAK || ID || PVT ), computed during validation.
+	 */
+	private final OctetString hsString;
+
+	/**
+	 * Constructor for a signing context, validating the signing keys. Throws
+	 * EccsiException if the keys do not validate.
+	 *
+	 * @param identifier the identity of the owner of the keys
+	 * @param pvtString the Public Validation Token
+	 * @param kpakString the KMS Public Authentication Key
+	 * @param sskString the Secret Signing Key
+	 */
+	public EccsiSigningContext(final OctetString identifier,
+			final OctetString pvtString, final OctetString kpakString,
+			final OctetString sskString) {
+		OctetString hs = new OctetString();
+		if (!Eccsi.validateSigningKeys(identifier, pvtString, kpakString, sskString,
+				hs)) {
+			throw new EccsiException("Validation of SSK failed!");
+		}
+		this.pvtString = new OctetString(pvtString);
+		this.ssk = new BigInteger(1, sskString.getOctets());
+		this.hsString = hs;
+	}
+
+	/**
+	 * Getter for the value HS computed during validation.
+	 *
+	 * @return a copy of HS
+	 */
+	public OctetString getHS() {
+		return new OctetString(this.hsString);
+	}
+
+	/**
+	 * Sign the message given using the validated keys and the random number generator.
+	 *
+	 * @param messageToSign the message to create a signature for
+	 * @param random a random number generator
+	 * @return the signature for the message
+	 */
+	public OctetString sign(final OctetString messageToSign,
+			final RandomGenerator random) {
+		return Eccsi.sign(messageToSign, this.pvtString, this.ssk, this.hsString,
+				random, null);
+	}
+
+	/**
+	 * Sign the message given using the validated keys and a nonce taken from the pool,
+	 * so that only the hash and a modular inversion are computed on the calling thread.
+	 *
+	 * @param messageToSign the message to create a signature for
+	 * @param noncePool the pool to take the signing nonce from
+	 * @return the signature for the message
+	 */
+	public OctetString sign(final OctetString messageToSign,
+			final SigningNoncePool noncePool) {
+		return Eccsi.sign(messageToSign, this.pvtString, this.ssk, this.hsString, null,
+				noncePool);
+	}
+}
@@ -0,0 +1,218 @@
+package net.kapsch.kms.api.mikeysakke.crypto;
+
+import java.math.BigInteger;
+
+import net.kapsch.kms.api.bouncycastle.math.ec.ECAlgorithms;
+import net.kapsch.kms.api.bouncycastle.math.ec.ECConstants;
+import net.kapsch.kms.api.bouncycastle.math.ec.ECCurve;
+import net.kapsch.kms.api.bouncycastle.math.ec.ECFieldElement;
+import net.kapsch.kms.api.bouncycastle.math.ec.ECPoint;
+import net.kapsch.kms.api.bouncycastle.math.ec.custom.sakke.SakkeP1Field;
+import net.kapsch.kms.api.mikeysakke.utils.Fp2;
+
+/**
+ * Tate-Lichtenbaum pairing with a fixed first argument, typically the Receiver Secret
+ * Key. The points visited by the Miller loop (see RFC 6508 section 3.2) depend only on
+ * the fixed argument, so the line functions through them are computed once and every
+ * later pairing only evaluates those lines at the second argument.
+ *
+ * Both arguments of the pairings used by SAKKE lie in the cyclic subgroup of order q
+ * generated by P, where the pairing is symmetric. The result of {@link #pair(ECPoint)}
+ * is therefore the same as that of the full Miller loop run over the second argument.
+ *
+ * The lines and the {@link Fp2} accumulator are kept in the Montgomery form of
+ * {@link SakkeP1Field}, so evaluating a pairing does not allocate per loop step.
+ */
+final class FixedArgumentPairing {
+
+	/**
+	 * The SAKKE parameter set the pairing is computed over.
+	 */
+	private final SakkeParameterSet params;
+
+	/**
+	 * The loop counter of the Miller loop, q - 1.
+	 */
+	private final BigInteger loopCounter;
+
+	/**
+	 * Gradients of the Miller loop lines, in the order they are evaluated.
+	 */
+	private final int[][] lambdas;
+
+	/**
+	 * Constant terms of the Miller loop lines, in the order they are evaluated.
+	 */
+	private final int[][] mus;
+
+	/**
+	 * Constructor for a precomputed pairing, see {@link #precompute(ECPoint,
+	 * SakkeParameterSet)}.
+	 *
+	 * @param params The SAKKE parameter set
+	 * @param lambdas The gradients of the Miller loop lines
+	 * @param mus The constant terms of the Miller loop lines
+	 */
+	private FixedArgumentPairing(final SakkeParameterSet params, final int[][] lambdas,
+			final int[][] mus) {
+		this.params = params;
+		this.loopCounter = params.q().subtract(BigInteger.ONE);
+		this.lambdas = lambdas;
+		this.mus = mus;
+	}
+
+	/**
+	 * Runs the Miller loop over the fixed point S and stores its line functions. Every
+	 * line is scaled so that, evaluated at the distorted point (-x, iy), it takes the
+	 * form (lambda * x + mu) + iy. The scaling factors lie in F_p and so do not change
+	 * the pairing value.
+	 *
+	 * @param pointS The fixed first argument of the pairing
+	 * @param params The SAKKE parameter set to use
+	 * @return The precomputed pairing
+	 */
+	static FixedArgumentPairing precompute(final ECPoint pointS,
+			final SakkeParameterSet params) {
+		if (!(params instanceof SakkeParameterSet1)) {
+			throw new IllegalArgumentException(
+					"Compute pairing is only valid for SAKKE parameter set 1");
+		}
+		ECCurve curve = params.curve();
+		BigInteger loopCounter = params.q().subtract(BigInteger.ONE);
+
+		// Every bit below the most significant one gives a doubling line, every set
+		// bit below it an additional chord through S.
+		int lineCount = (loopCounter.bitLength() - 1) + (loopCounter.bitCount() - 1);
+		ECPoint[] points = new ECPoint[lineCount];
+		boolean[] chords = new boolean[lineCount];
+
+		ECPoint S = pointS.normalize();
+		ECPoint C = S;
+		int k = 0;
+		for (int N = loopCounter.bitLength() - 1; N != 0; --N) {
+			points[k++] = C;
+			C = C.twice();
+			if (loopCounter.testBit(N - 1)) {
+				chords[k] = true;
+				points[k++] = C;
+				C = C.add(S);
+			}
+		}
+		for (ECPoint point : points) {
+			if (point.isInfinity()) {
+				throw new SakkeException("Point does not generate a subgroup of order q.");
+			}
+		}
+
+		// Bring all visited points to affine form with a single inversion
+		curve.normalizeAll(points);
+
+		ECFieldElement Sx = S.getAffineXCoord();
+		ECFieldElement Sy = S.getAffineYCoord();
+		ECFieldElement three = curve.fromBigInteger(ECConstants.THREE);
+
+		ECFieldElement[] numerators = new ECFieldElement[lineCount];
+		ECFieldElement[] denominators = new ECFieldElement[lineCount];
+		for (int i = 0; i < lineCount; i++) {
+			ECFieldElement Cx = points[i].getAffineXCoord();
+			ECFieldElement Cy = points[i].getAffineYCoord();
+			if (chords[i]) {
+				// Chord through C and S, gradient (Cy - Sy) / (Cx - Sx)
+				numerators[i] = Cy.subtract(Sy);
+				denominators[i] = Cx.subtract(Sx);
+			}
+			else {
+				// Tangent at C, gradient 3 * (Cx^2 - 1) / (2 * Cy)
+				numerators[i] = Cx.square().subtract(curve.fromBigInteger(BigInteger.ONE))
+						.multiply(three);
+				denominators[i] = Cy.add(Cy);
+			}
+			if (denominators[i].isZero()) {
+				throw new SakkeException("Point does not generate a subgroup of order q.");
+			}
+		}
+
+		// Invert all denominators with a single inversion
+		ECAlgorithms.montgomeryTrick(denominators, 0, lineCount);
+
+		int[][] lambdas = new int[lineCount][];
+		int[][] mus = new int[lineCount][];
+		for (int i = 0; i < lineCount; i++) {
+			ECFieldElement lambda = numerators[i].multiply(denominators[i]);
+
+			// The line passes through (Xi, Yi), so mu = lambda * Xi - Yi
+			ECFieldElement mu;
+			if (chords[i]) {
+				mu = lambda.multiply(Sx).subtract(Sy);
+			}
+			else {
+				mu = lambda.multiply(points[i].getAffineXCoord())
+						.subtract(points[i].getAffineYCoord());
+			}
+			lambdas[i] = SakkeP1Field.fromBigInteger(lambda.toBigInteger());
+			mus[i] = SakkeP1Field.fromBigInteger(mu.toBigInteger());
+		}
+		return new FixedArgumentPairing(params, lambdas, mus);
+	}
+
+	/**
+	 * Computes the pairing of the fixed point with the point R, evaluating the stored
+	 * lines at the distorted point (-Rx, iRy).
+	 *
+	 * @param pointR The second argument of the pairing
+	 * @return The result w, in the same representation as used by RFC 6508
+	 */
+	BigInteger pair(final ECPoint pointR) {
+		return pairProjective(pointR).toFp(new Fp2.Scratch());
+	}
+
+	/**
+	 * Computes the pairing of the fixed point with the point R as an element of PF_p,
+	 * leaving out the inversion of {@link #pair(ECPoint)} for callers that only compare
+	 * the result, see
+	 * {@link net.kapsch.kms.api.mikeysakke.utils.Torus#represents(Fp2)}.
+	 *
+	 * @param pointR The second argument of the pairing
+	 * @return The result (x1, x2), with an arbitrary x1
+	 */
+	Fp2 pairProjective(final ECPoint pointR) {
+		ECPoint R = pointR.normalize();
+		int[] Rx = SakkeP1Field.fromBigInteger(R.getAffineXCoord().toBigInteger());
+		int[] Ry = SakkeP1Field.fromBigInteger(R.getAffineYCoord().toBigInteger());
+
+		Fp2 v = new Fp2().setOne();
+		Fp2.Scratch scratch = new Fp2.Scratch();
+		int[] a = SakkeP1Field.create();
+		int[] tt = SakkeP1Field.createExt();
+
+		int k = 0;
+		for (int N = this.loopCounter.bitLength() - 1; N != 0; --N) {
+			v.square(scratch);
+			v.multiply(line(k++, Rx, a, tt), Ry, scratch);
+			if (this.loopCounter.testBit(N - 1)) {
+				v.multiply(line(k++, Rx, a, tt), Ry, scratch);
+			}
+		}
+		// Calculate v^c = v^(p+1/q), which in this case is v^4 ( or (v^2) ^2 )
+		v.square(scratch);
+		v.square(scratch);
+
+		return v;
+	}
+
+	/**
+	 * Evaluates the real part lambda * Rx + mu of a stored line at the distorted point
+	 * (-Rx, iRy), whose imaginary part is Ry.
+	 *
+	 * @param k The index of the line
+	 * @param Rx The x coordinate of R
+	 * @param a The array to store the result in
+	 * @param tt Scratch space for double-length products
+	 * @return The array a
+	 */
+	private int[] line(final int k, final int[] Rx, final int[] a, final int[] tt) {
+		SakkeP1Field.multiply(this.lambdas[k], Rx, a, tt);
+		SakkeP1Field.add(a, this.mus[k], a);
+		return a;
+	}
+}
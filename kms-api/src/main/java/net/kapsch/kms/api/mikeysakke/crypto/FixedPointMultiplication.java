@@ -0,0 +1,93 @@
+package net.kapsch.kms.api.mikeysakke.crypto;
+
+import java.math.BigInteger;
+
+import net.kapsch.kms.api.bouncycastle.math.ec.CacheSafeFixedPointCombMultiplier;
+import net.kapsch.kms.api.bouncycastle.math.ec.ECPoint;
+import net.kapsch.kms.api.bouncycastle.math.ec.FixedPointCombMultiplier;
+
+/**
+ * Multiplication of the fixed points of ECCSI and SAKKE (G, P, the KMS Public Key and
+ * cached recipient points) by scalars, most of which are secret: the SSK and the
+ * ephemeral j when signing and validating, and r when encapsulating or extracting an SSV.
+ *
+ * By default the comb table entry used by each step is read directly, so which cache
+ * lines are touched depends on the scalar. In constant-time mode every entry is read
+ * and masked at each step, which hides the scalar from cache timing by other processes
+ * on the same hardware. The mode is shared by the whole JVM and can be changed at any
+ * time; multiplications already running finish in the mode they started in.
+ */
+public final class FixedPointMultiplication {
+
+	/**
+	 * The comb multiplier that reads table entries directly.
+	 */
+	private static final FixedPointCombMultiplier COMB = new FixedPointCombMultiplier();
+
+	/**
+	 * The comb multiplier that reads table entries through a cache-safe lookup.
+	 */
+	private static final FixedPointCombMultiplier CACHE_SAFE_COMB =
+			new CacheSafeFixedPointCombMultiplier();
+
+	/**
+	 * Whether constant-time mode is on.
+	 */
+	private static volatile boolean constantTime;
+
+	/**
+	 * Private constructor - should never be initialized.
+	 */
+	private FixedPointMultiplication() {
+		throw new IllegalStateException("should never be initialized");
+	}
+
+	/**
+	 * Turns constant-time mode on or off. The tables of the two modes are kept apart, so
+	 * the first multiplication of each point after switching builds its table again.
+	 *
+	 * @param constantTime Whether multiplications should use cache-safe table lookups
+	 */
+	public static void setConstantTime(final boolean constantTime) {
+		FixedPointMultiplication.constantTime = constantTime;
+	}
+
+	/**
+	 * Returns whether constant-time mode is on.
+	 *
+	 * @return true if multiplications use cache-safe table lookups
+	 */
+	public static boolean isConstantTime() {
+		return constantTime;
+	}
+
+	/**
+	 * Computes [k]Q with the multiplier of the current mode. The comb table for Q is
+	 * computed on first use and kept with the point.
+	 *
+	 * @param point The point Q
+	 * @param k The scalar, reduced modulo the order of Q
+	 * @return The point [k]Q
+	 */
+	static ECPoint multiply(final ECPoint point, final BigInteger k) {
+		return multiplier().multiply(point, k);
+	}
+
+	/**
+	 * Builds the comb table of the current mode for the point up front.
+	 *
+	 * @param point The point to precompute the table for
+	 */
+	static void precompute(final ECPoint point) {
+		multiplier().precompute(point);
+	}
+
+	/**
+	 * Returns the multiplier of the current mode.
+	 *
+	 * @return The multiplier
+	 */
+	private static FixedPointCombMultiplier multiplier() {
+		return constantTime ? CACHE_SAFE_COMB : COMB;
+	}
+}
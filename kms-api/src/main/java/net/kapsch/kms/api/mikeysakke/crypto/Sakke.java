@@ -1,12 +1,16 @@
 package net.kapsch.kms.api.mikeysakke.crypto;
 
 import java.math.BigInteger;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import net.kapsch.kms.api.bouncycastle.crypto.Digest;
-import net.kapsch.kms.api.bouncycastle.math.ec.ECConstants;
+import net.kapsch.kms.api.bouncycastle.math.ec.ECCurve;
+import net.kapsch.kms.api.bouncycastle.math.ec.ECFieldElement;
 import net.kapsch.kms.api.bouncycastle.math.ec.ECPoint;
+import net.kapsch.kms.api.mikeysakke.utils.Fp2;
 import net.kapsch.kms.api.mikeysakke.utils.OctetString;
-import net.kapsch.kms.api.mikeysakke.utils.ProjFp;
 import net.kapsch.kms.api.mikeysakke.utils.RandomGenerator;
 
 /**
@@ -15,6 +19,53 @@ import net.kapsch.kms.api.mikeysakke.utils.RandomGenerator;
  */
 public final class Sakke {
 
+	/**
+	 * Maximum number of Receiver Secret Keys whose pairing precomputation is retained.
+	 */
+	private static final int RSK_PAIRING_CACHE_SIZE = 4;
+
+	/**
+	 * Pairing precomputations of validated Receiver Secret Keys, least recently used
+	 * first.
+	 */
+	private static final Map<OctetString, FixedArgumentPairing> RSK_PAIRINGS = Collections
+			.synchronizedMap(new LinkedHashMap<OctetString, FixedArgumentPairing>(
+					RSK_PAIRING_CACHE_SIZE, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(
+						final Map.Entry<OctetString, FixedArgumentPairing> eldest) {
+					return size() > RSK_PAIRING_CACHE_SIZE;
+				}
+			});
+
+	/**
+	 * Maximum number of KMS Public Keys whose decoded point is retained.
+	 */
+	private static final int KMS_PUBLIC_KEY_CACHE_SIZE = 4;
+
+	/**
+	 * Decoded KMS Public Keys, least recently used first. The comb table used to multiply
+	 * a key is kept with its point, so it is built once per key.
+	 */
+	private static final Map<OctetString, ECPoint> KMS_PUBLIC_KEYS = Collections
+			.synchronizedMap(new LinkedHashMap<OctetString, ECPoint>(
+					KMS_PUBLIC_KEY_CACHE_SIZE, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(
+						final Map.Entry<OctetString, ECPoint> eldest) {
+					return size() > KMS_PUBLIC_KEY_CACHE_SIZE;
+				}
+			});
+
+	/**
+	 * The shared instance of SAKKE parameter set 1.
+	 */
+	private static final SakkeParameterSet1 PARAMETER_SET_1 = new SakkeParameterSet1();
+
 	/**
 	 * Private constructor - should never be initialized.
 	 */
@@ -25,7 +76,8 @@ public final class Sakke {
 	/**
 	 * Validate the receiver secret key delivered to the user given by their identifier.
 	 * Returns true on successful validate, false otherwise. See RFC 6508 Section 6.1.2
-	 * for more details.
+	 * for more details. The Miller loop lines of a validated RSK are retained and reused
+	 * by {@link #extractSharedSecret}.
 	 *
 	 * @param identifier the identity of the owner of the receiver secret key
 	 * @param kmsPublicZString the KMS Public Key
@@ -47,16 +99,29 @@ public final class Sakke {
 		BigInteger a = new BigInteger(1, identifier.getOctets());
 
 		// Calculate aP + Z
-		ECPoint aP = params.pointP().multiply(a);
+		ECPoint aP = params.multiplyP(a);
 		ECPoint Z = params.curve().decodePoint(kmsPublicZString.getOctets());
 		ECPoint aP_plus_Z = aP.add(Z);
 
-		// Calculate pairing
+		// Calculate pairing, < [a]P + Z, RSK > = < RSK, [a]P + Z > as both points lie in
+		// the subgroup generated by P
 		ECPoint RSK = params.curve().decodePoint(rskString.getOctets());
-		BigInteger pairing = computePairing(aP_plus_Z, RSK, params);
+		FixedArgumentPairing rskPairing;
+		try {
+			rskPairing = FixedArgumentPairing.precompute(RSK, params);
+		}
+		catch (SakkeException e) {
+			return false;
+		}
+		Fp2 pairing = rskPairing.pairProjective(aP_plus_Z);
 
-		// if the pairing matches g, RSK is validated
-		return pairing.equals(params.g());
+		// if the pairing matches g, RSK is validated. Comparing with g in its torus form
+		// needs no inversion.
+		if (!params.gTorus().represents(pairing)) {
+			return false;
+		}
+		RSK_PAIRINGS.put(new OctetString(rskString), rskPairing);
+		return true;
 	}
 
 	/**
@@ -79,6 +144,58 @@ public final class Sakke {
 			final OctetString kmsPublicZString, final RandomGenerator randomize) {
 
 		SakkeParameterSet params = getParamSet(parameterSet);
+		ECPoint Z = kmsPublicKey(kmsPublicZString, params);
+
+		return generateSharedSecretAndSED(sakkeEncData, targetIdentifier, params, Z,
+				null, randomize);
+	}
+
+	/**
+	 * As {@link #generateSharedSecretAndSED(OctetString, OctetString, int, OctetString,
+	 * RandomGenerator)}, but takes the point [b]P + Z for the target identifier from the
+	 * recipient cache, so repeated encapsulations to the same target only compute the
+	 * multiplication by the ephemeral r, using the comb table kept with the point.
+	 *
+	 * @param sakkeEncData The generated SAKKE Encapsulated Data
+	 * @param targetIdentifier The identifier of the intended recipient of the generated
+	 * SED
+	 * @param parameterSet The SAKKE parameter set to use for the encryption
+	 * @param kmsPublicZString The KMS Public Key
+	 * @param randomize The random number generator to use to generate the SSV
+	 * @param recipientCache The cache of [b]P + Z points to use
+	 * @return The SSV generated
+	 */
+	public static OctetString generateSharedSecretAndSED(final OctetString sakkeEncData,
+			final OctetString targetIdentifier, final int parameterSet,
+			final OctetString kmsPublicZString, final RandomGenerator randomize,
+			final SakkeRecipientCache recipientCache) {
+
+		SakkeParameterSet params = getParamSet(parameterSet);
+		ECPoint bP_plus_Z = recipientCache.recipientPoint(targetIdentifier,
+				kmsPublicZString, params);
+
+		return generateSharedSecretAndSED(sakkeEncData, targetIdentifier, params, null,
+				bP_plus_Z, randomize);
+	}
+
+	/**
+	 * Generates the SSV and the SED for the target identifier b, given either the KMS
+	 * Public Key Z or the cached point [b]P + Z. See RFC 6508 Section 6.2.1 for more
+	 * details.
+	 *
+	 * @param sakkeEncData The generated SAKKE Encapsulated Data
+	 * @param targetIdentifier The identifier of the intended recipient of the generated
+	 * SED
+	 * @param params The SAKKE parameter set to use for the encryption
+	 * @param Z The KMS Public Key, used when bP_plus_Z is null
+	 * @param bP_plus_Z The cached point [b]P + Z for the target identifier, or null
+	 * @param randomize The random number generator to use to generate the SSV
+	 * @return The SSV generated
+	 */
+	private static OctetString generateSharedSecretAndSED(
+			final OctetString sakkeEncData, final OctetString targetIdentifier,
+			final SakkeParameterSet params, final ECPoint Z, final ECPoint bP_plus_Z,
+			final RandomGenerator randomize) {
 		//
 		// 1) Select random ephemeral integer for SSV in [0,2^n)
 		//
@@ -86,54 +203,196 @@ public final class Sakke {
 		//
 		// 2) Compute r = HashToIntegerRangeSHA256( SSV || b, q, Hash )
 		//
-		OctetString ssvAndb = new OctetString();
-		ssvAndb.append(ssvString);
-		ssvAndb.append(targetIdentifier);
-		BigInteger r = hashToIntegerRangeSHA256(ssvAndb, params.q(), params.hash());
+		BigInteger r = hashToIntegerRangeSHA256(params.q(), params.hash(), ssvString,
+				targetIdentifier);
 		//
 		// 3) Compute R_(b,S) = [r]([b]P + Z) in E(F_p)
 		//
-		// This is equivalent to [r][b]P + [r]Z which we can use Shamirs trick
-		// to calculate
-		ECPoint Z = params.curve().decodePoint(kmsPublicZString.getOctets());
-		BigInteger b = new BigInteger(1, targetIdentifier.getOctets());
-
-		// Use standard method for calculation, instead of CAlgorithms.shamirsTrick.
-		// Standard method has better performance.
-
-		// long t1 = System.currentTimeMillis();
-		// BigInteger rb = b.multiply(r);
-
-		// ECPoint R = ECAlgorithms.shamirsTrick(params.pointP(), rb, Z, r);
-
-		// long t3 = System.currentTimeMillis();
-		ECPoint R = params.pointP().multiply(b).add(Z).multiply(r);
-
-		// long t4 = System.currentTimeMillis();
-		// System.out.println((t3-t1) + " " + new OctetString(R));
-		// System.out.println((t4-t3) + " " + new OctetString(R));
+		ECPoint R;
+		if (bP_plus_Z != null) {
+			R = params.multiplyFixed(bP_plus_Z, r);
+		}
+		else {
+			R = multiplyRecipient(targetIdentifier, Z, r, params);
+		}
 
 		// 4) Compute the HINT, H; //NOSONAR
 		//
-		// 4.a) Compute g^r.
+		// 4.a) Compute g^r, from the table of powers of g kept by the parameter set.
 		//
 		OctetString g_pow_r_String = null;
 		if (!r.equals(BigInteger.ZERO)) {
-			ProjFp g = new ProjFp(BigInteger.ONE, params.g(), params.p());
-			g = g.modPow(r);
+			Fp2 g = params.powG(r);
 
 			// Form representation of PF_p (x_1, x_2) in F_p (x_2/x_1 mod p)
-			BigInteger g_pow_r = g.getX1().modInverse(params.p());
-			g_pow_r = g_pow_r.multiply(g.getX2());
-			g_pow_r = g_pow_r.mod(params.p());
+			BigInteger g_pow_r = g.toFp(new Fp2.Scratch());
 			g_pow_r_String = new OctetString(g_pow_r, params.pLengthBytes());
 		}
 		//
+		// 4.b) Compute H and 5) form the SED ( R_(b,S), H )
+		//
+		sakkeEncData.setOctets(formSED(ssvString, R, g_pow_r_String, params));
+
+		// 6) Output SSV
+		return ssvString;
+	}
+
+	/**
+	 * Generates an SSV and the corresponding SED for each of the target identifiers, see
+	 * {@link #generateSharedSecretAndSED(OctetString, OctetString, int, OctetString,
+	 * RandomGenerator)}. The result for each target is the same as that of a separate
+	 * call, but the conversions that need a field inversion, R_(b,S) to affine
+	 * coordinates and g^r from PF_p to F_p, are made for the whole batch with two
+	 * inversions in total (Montgomery's trick) instead of two per target.
+	 *
+	 * @param sakkeEncData The array to store the generated SAKKE Encapsulated Data in,
+	 * one element per target
+	 * @param targetIdentifiers The identifiers of the intended recipients
+	 * @param parameterSet The SAKKE parameter set to use for the encryption
+	 * @param kmsPublicZString The KMS Public Key
+	 * @param randomize The random number generator to use to generate the SSVs
+	 * @return The SSVs generated, one per target
+	 */
+	public static OctetString[] generateSharedSecretsAndSEDs(
+			final OctetString[] sakkeEncData, final OctetString[] targetIdentifiers,
+			final int parameterSet, final OctetString kmsPublicZString,
+			final RandomGenerator randomize) {
+		return generateSharedSecretsAndSEDs(sakkeEncData, targetIdentifiers,
+				parameterSet, kmsPublicZString, randomize, null);
+	}
+
+	/**
+	 * As {@link #generateSharedSecretsAndSEDs(OctetString[], OctetString[], int,
+	 * OctetString, RandomGenerator)}, but takes the points [b]P + Z for the targets from
+	 * the recipient cache, if one is given.
+	 *
+	 * @param sakkeEncData The array to store the generated SAKKE Encapsulated Data in,
+	 * one element per target
+	 * @param targetIdentifiers The identifiers of the intended recipients
+	 * @param parameterSet The SAKKE parameter set to use for the encryption
+	 * @param kmsPublicZString The KMS Public Key
+	 * @param randomize The random number generator to use to generate the SSVs
+	 * @param recipientCache The cache of [b]P + Z points to use, or null
+	 * @return The SSVs generated, one per target
+	 */
+	public static OctetString[] generateSharedSecretsAndSEDs(
+			final OctetString[] sakkeEncData, final OctetString[] targetIdentifiers,
+			final int parameterSet, final OctetString kmsPublicZString,
+			final RandomGenerator randomize, final SakkeRecipientCache recipientCache) {
+		int count = targetIdentifiers.length;
+		if (sakkeEncData.length != count) {
+			throw new IllegalArgumentException(
+					"SAKKE encapsulated data and identifiers should be of equal length");
+		}
+
+		SakkeParameterSet params = getParamSet(parameterSet);
+		ECPoint Z = recipientCache == null ? kmsPublicKey(kmsPublicZString, params)
+				: null;
+
+		OctetString[] ssvStrings = new OctetString[count];
+		ECPoint[] Rs = new ECPoint[count];
+		Fp2[] gs = new Fp2[count];
+
+		for (int i = 0; i < count; i++) {
+			// 1) Select random ephemeral integer for SSV in [0,2^n)
+			ssvStrings[i] = randomize.generate(params.nBytes());
+
+			// 2) Compute r = HashToIntegerRangeSHA256( SSV || b, q, Hash )
+			BigInteger r = hashToIntegerRangeSHA256(params.q(), params.hash(),
+					ssvStrings[i], targetIdentifiers[i]);
+
+			// 3) Compute R_(b,S) = [r]([b]P + Z) in E(F_p), left in Jacobian
+			// coordinates
+			if (recipientCache != null) {
+				Rs[i] = params.multiplyFixed(recipientCache.recipientPoint(
+						targetIdentifiers[i], kmsPublicZString, params), r);
+			}
+			else {
+				Rs[i] = multiplyRecipient(targetIdentifiers[i], Z, r, params);
+			}
+
+			// 4.a) Compute g^r in PF_p, its conversion to F_p is made below
+			if (!r.equals(BigInteger.ZERO)) {
+				gs[i] = params.powG(r);
+			}
+		}
+
+		// Bring all points R_(b,S) to affine form with a single inversion
+		params.curve().normalizeAll(Rs);
+
+		// Invert all x_1 of g^r = (x_1, x_2) with a single inversion
+		BigInteger[] g_pow_rs = Fp2.toFp(gs);
+
+		OctetString[] g_pow_r_Strings = new OctetString[count];
+		for (int i = 0; i < count; i++) {
+			if (g_pow_rs[i] != null) {
+				g_pow_r_Strings[i] = new OctetString(g_pow_rs[i], params.pLengthBytes());
+			}
+		}
+
+		for (int i = 0; i < count; i++) {
+			// 4.b) Compute H and 5) form the SED ( R_(b,S), H )
+			sakkeEncData[i] = formSED(ssvStrings[i], Rs[i], g_pow_r_Strings[i], params);
+		}
+
+		// 6) Output SSVs
+		return ssvStrings;
+	}
+
+	/**
+	 * Generates the SEDs that transmit the given SSV to each of the target identifiers,
+	 * such as a group key distributed to all members of a group, see RFC 6508 Section
+	 * 6.2.1 steps 2 to 5. The ephemeral r = HashToIntegerRangeSHA256( SSV || b, q, Hash )
+	 * differs per target, so every SED is computed in full, with the inversions shared
+	 * as in {@link #generateSharedSecretsAndSEDs(OctetString[], OctetString[], int,
+	 * OctetString, RandomGenerator, SakkeRecipientCache)}.
+	 *
+	 * @param ssvString The SSV to transmit, of n bits
+	 * @param targetIdentifiers The identifiers of the intended recipients
+	 * @param parameterSet The SAKKE parameter set to use for the encryption
+	 * @param kmsPublicZString The KMS Public Key
+	 * @param recipientCache The cache of [b]P + Z points to use, or null
+	 * @return The SEDs generated, one per target
+	 */
+	public static OctetString[] generateSEDs(final OctetString ssvString,
+			final OctetString[] targetIdentifiers, final int parameterSet,
+			final OctetString kmsPublicZString,
+			final SakkeRecipientCache recipientCache) {
+		final SakkeParameterSet params = getParamSet(parameterSet);
+		if (ssvString.size() != params.nBytes()) {
+			throw new IllegalArgumentException(
+					"SSV should be " + params.nBytes() + " octets long");
+		}
+
+		OctetString[] sakkeEncData = new OctetString[targetIdentifiers.length];
+		generateSharedSecretsAndSEDs(sakkeEncData, targetIdentifiers, parameterSet,
+				kmsPublicZString, new RandomGenerator() {
+					@Override
+					public OctetString generate(final int n) {
+						return ssvString;
+					}
+				}, recipientCache);
+		return sakkeEncData;
+	}
+
+	/**
+	 * Computes the HINT H := SSV XOR HashToIntegerRange( g^r, 2^n, Hash ) and forms the
+	 * SED ( R_(b,S), H ), see RFC 6508 Section 6.2.1 steps 4.b and 5.
+	 *
+	 * @param ssvString The SSV
+	 * @param R The point R_(b,S)
+	 * @param g_pow_r_String The value g^r in F_p, or null if r is zero
+	 * @param params The SAKKE parameter set to use
+	 * @return The SED
+	 */
+	private static OctetString formSED(final OctetString ssvString, final ECPoint R,
+			final OctetString g_pow_r_String, final SakkeParameterSet params) {
+		//
 		// 4.b) Compute H := SSV XOR HashToIntegerRange( g^r, 2^n, Hash ); //NOSONAR
 		//
 		BigInteger two_pow_n = BigInteger.ONE.shiftLeft(params.n());
-		BigInteger hashedRange = hashToIntegerRangeSHA256(g_pow_r_String, two_pow_n,
-				params.hash());
+		BigInteger hashedRange = hashToIntegerRangeSHA256(two_pow_n, params.hash(),
+				g_pow_r_String);
 
 		BigInteger ssv = new BigInteger(1, ssvString.getOctets());
 		BigInteger h = ssv.xor(hashedRange);
@@ -144,10 +403,7 @@ public final class Sakke {
 		OctetString SED = new OctetString();
 		SED.append(new OctetString(R));
 		SED.append(hString);
-		sakkeEncData.setOctets(SED);
-
-		// 6) Output SSV
-		return ssvString;
+		return SED;
 	}
 
 	/**
@@ -168,8 +424,16 @@ public final class Sakke {
 
 		SakkeParameterSet params = getParamSet(parameterSet);
 
-		// Check that the SAKKE encapsulated data is the correct size
-		if (sakkeEncData.size() != params.encDataLengthBytes()) {
+		// Check that the SAKKE encapsulated data is the correct size, R being either
+		// uncompressed or compressed
+		int rLength;
+		if (sakkeEncData.size() == params.encDataLengthBytes()) {
+			rLength = params.rLengthBytes();
+		}
+		else if (sakkeEncData.size() == params.encDataCompressedLengthBytes()) {
+			rLength = params.rCompressedLengthBytes();
+		}
+		else {
 			throw new IllegalArgumentException("Incorrect length of data inputted, "
 					+ "expected : " + params.encDataLengthBytes() + ", " + "actual :"
 					+ sakkeEncData.size());
@@ -178,21 +442,28 @@ public final class Sakke {
 		// 1) Parse the Encapsulated Data ( R_(b,S), H ), //NOSONAR
 		// and extract R_(b,S) and H; //NOSONAR
 
-		OctetString RString = sakkeEncData.subString(0, params.rLengthBytes());
+		OctetString RString = sakkeEncData.subString(0, rLength);
 		ECPoint R = params.curve().decodePoint(RString.getOctets());
-		OctetString hString = sakkeEncData.subString(params.rLengthBytes());
+		OctetString hString = sakkeEncData.subString(rLength);
 		//
 		// 2) Compute w := < R, RSK >
 		//
 		OctetString wString;
-		ECPoint RSK = params.curve().decodePoint(rskString.getOctets());
-		BigInteger w = computePairing(R, RSK, params);
+		BigInteger w;
+		FixedArgumentPairing rskPairing = RSK_PAIRINGS.get(rskString);
+		if (rskPairing != null) {
+			w = rskPairing.pair(R);
+		}
+		else {
+			ECPoint RSK = params.curve().decodePoint(rskString.getOctets());
+			w = computePairing(R, RSK, params);
+		}
 		wString = new OctetString(w, params.pLengthBytes());
 		//
 		// 3) Compute SSV := H XOR HashToIntegerRange( w, 2^n, Hash ); //NOSONAR
 		//
 		BigInteger two_pow_n = BigInteger.ONE.shiftLeft(params.n());
-		BigInteger hashed = hashToIntegerRangeSHA256(wString, two_pow_n, params.hash());
+		BigInteger hashed = hashToIntegerRangeSHA256(two_pow_n, params.hash(), wString);
 
 		BigInteger h = new BigInteger(1, hString.getOctets());
 		BigInteger ssv = h.xor(hashed);
@@ -200,29 +471,13 @@ public final class Sakke {
 		//
 		// 4) Compute r = HashToIntegerRangeSHA256( SSV || b, q, Hash )
 		//
-		OctetString ssvAndb = new OctetString();
-		ssvAndb.append(ssvString);
-		ssvAndb.append(identifier);
-		BigInteger r = hashToIntegerRangeSHA256(ssvAndb, params.q(), params.hash());
+		BigInteger r = hashToIntegerRangeSHA256(params.q(), params.hash(), ssvString,
+				identifier);
 		//
 		// 5) Compute TEST = [r][b]P + [r]Z_S = [r]([b]P + Z_S)
 		//
-		ECPoint Z = params.curve().decodePoint(kmsPublicZString.getOctets());
-
-		final BigInteger b = new BigInteger(1, identifier.getOctets());
-
-		// Use standard method for calculation, instead of CAlgorithms.shamirsTrick.
-		// Standard method has better performance.
-
-		// long t1 = System.currentTimeMillis();
-		// BigInteger rb = b.multiply(r);
-		// ECPoint TEST = ECAlgorithms.shamirsTrick(params.pointP(), rb, Z, r);
-		// long t3 = System.currentTimeMillis();
-		ECPoint TEST = params.pointP().multiply(b).add(Z).multiply(r);
-
-		// long t4 = System.currentTimeMillis();
-		// System.out.println((t3-t1) + " " + new OctetString(R));
-		// System.out.println((t4-t3) + " " + new OctetString(R1));
+		ECPoint Z = kmsPublicKey(kmsPublicZString, params);
+		ECPoint TEST = multiplyRecipient(identifier, Z, r, params);
 
 		// Check if the TEST value is correct
 		if (TEST.equals(R)) {
@@ -233,9 +488,74 @@ public final class Sakke {
 		}
 	}
 
+	/**
+	 * Converts SAKKE Encapsulated Data to the compressed form ( R_(b,S), H ), in which
+	 * R_(b,S) is carried as 0x02 or 0x03 || x' instead of 0x04 || x' || y'. This saves
+	 * LengthInBytes(p) octets, 128 for parameter set 1, and is only rearranging octets;
+	 * the receiver recovers y with one square root in F_p. The compressed form is not
+	 * part of RFC 6508 and must only be sent to receivers known to accept it, which
+	 * {@link #extractSharedSecret} does.
+	 *
+	 * @param sakkeEncData The SAKKE Encapsulated Data with R_(b,S) uncompressed
+	 * @param parameterSet The SAKKE parameter set the data was generated with
+	 * @return The SAKKE Encapsulated Data with R_(b,S) compressed
+	 */
+	public static OctetString compressEncapsulatedData(final OctetString sakkeEncData,
+			final int parameterSet) {
+		SakkeParameterSet params = getParamSet(parameterSet);
+		if (sakkeEncData.size() != params.encDataLengthBytes()) {
+			throw new IllegalArgumentException("Incorrect length of data inputted, "
+					+ "expected : " + params.encDataLengthBytes() + ", " + "actual :"
+					+ sakkeEncData.size());
+		}
+
+		OctetString result = OctetString
+				.compressPoint(sakkeEncData.subString(0, params.rLengthBytes()));
+		result.append(sakkeEncData.subString(params.rLengthBytes()));
+		return result;
+	}
+
+	/**
+	 * Computes [r]([b]P + Z) as [r * b mod q]P + [r]Z. The curve has no efficiently
+	 * computable endomorphism over F_p to shorten the scalars with, but P and Z are fixed
+	 * points with comb tables, which makes the two fixed-point multiplications together
+	 * about twice as fast as one WNAF multiplication of [b]P + Z.
+	 *
+	 * @param identifier The identifier b
+	 * @param Z The KMS Public Key
+	 * @param r The scalar r
+	 * @param params The SAKKE parameter set to use
+	 * @return The point [r]([b]P + Z)
+	 */
+	private static ECPoint multiplyRecipient(final OctetString identifier,
+			final ECPoint Z, final BigInteger r, final SakkeParameterSet params) {
+		BigInteger b = new BigInteger(1, identifier.getOctets());
+		return params.multiplyP(r.multiply(b).mod(params.q()))
+				.add(params.multiplyFixed(Z, r));
+	}
+
+	/**
+	 * Decodes the KMS Public Key, returning the cached point for a recently used key so
+	 * that its comb table is reused.
+	 *
+	 * @param kmsPublicZString The KMS Public Key
+	 * @param params The SAKKE parameter set to use
+	 * @return The point Z
+	 */
+	private static ECPoint kmsPublicKey(final OctetString kmsPublicZString,
+			final SakkeParameterSet params) {
+		ECPoint Z = KMS_PUBLIC_KEYS.get(kmsPublicZString);
+		if (Z == null) {
+			Z = params.curve().decodePoint(kmsPublicZString.getOctets());
+			KMS_PUBLIC_KEYS.put(new OctetString(kmsPublicZString), Z);
+		}
+		return Z;
+	}
+
 	/**
 	 * Returns the parameter set to use for the SAKKE protocol. Will throw an exception if
-	 * the parameter set is not supported.
+	 * the parameter set is not supported. The returned instance is shared and safe for
+	 * use by multiple threads.
 	 *
 	 * @param parameterSet The parameter set to use
 	 * @return The corresponding parameter set object
@@ -245,20 +565,21 @@ public final class Sakke {
 			throw new IllegalArgumentException(
 					"Only SAKKE parameter set 1 is supported.");
 		}
-		return new SakkeParameterSet1();
+		return PARAMETER_SET_1;
 	}
 
 	/**
 	 * Utility function to hash strings to an integer range. See RFC 6508 section 5.1 for
-	 * more details.
+	 * more details. The string s is given as the concatenation of the parts, which are
+	 * fed to the hash function one after another.
 	 *
-	 * @param s An octet string to hash
 	 * @param n The range of the integer to hash to (0, n-1)
 	 * @param hashfn The SHA256 hash function to use
+	 * @param s The parts of the octet string to hash
 	 * @return The number representing the hashed string
 	 */
-	private static BigInteger hashToIntegerRangeSHA256(final OctetString s,
-			final BigInteger n, final Digest hashfn) {
+	private static BigInteger hashToIntegerRangeSHA256(final BigInteger n,
+			final Digest hashfn, final OctetString... s) {
 		// Ensure we are working with SHA256 only
 		if (!"SHA-256".equals(hashfn.getAlgorithmName())) {
 			throw new IllegalArgumentException(
@@ -269,14 +590,15 @@ public final class Sakke {
 		//
 		// 1) A = hashfn(s)
 		//
-		OctetString aString = new OctetString(HASH_LENGTH_BYTES);
-		hashfn.update(s.getOctets(), 0, s.size());
-		hashfn.doFinal(aString.getOctets(), 0);
+		byte[] a = new byte[HASH_LENGTH_BYTES];
+		for (OctetString part : s) {
+			hashfn.update(part.getOctets(), 0, part.size());
+		}
+		hashfn.doFinal(a, 0);
 		//
 		// 2) let h_0 = 00....00, a string of null bits of length hashlen bits
 		//
-		// The octet string constructor will create empty bytes
-		OctetString hString = new OctetString(HASH_LENGTH_BYTES);
+		byte[] h = new byte[HASH_LENGTH_BYTES];
 		//
 		// 3) l = ceiling(lg(n)/hashlength)
 		//
@@ -288,77 +610,73 @@ public final class Sakke {
 		//
 		// 4) For i in [1, l] do
 		//
-		OctetString vprime = null;
-		OctetString vi = new OctetString(HASH_LENGTH_BYTES);
-		for (int i = 1; i <= l; i++) {
-
+		// 5) Let v' = v_1 || ... || v_l, every v_i is written in place //NOSONAR
+		//
+		byte[] vprime = new byte[l * HASH_LENGTH_BYTES];
+		for (int i = 0; i < l; i++) {
 			//
 			// a) Let h_i = hashfn(h_(i - 1))
 			//
-			hashfn.update(hString.getOctets(), 0, hString.size());
-			hashfn.doFinal(hString.getOctets(), 0);
+			hashfn.update(h, 0, HASH_LENGTH_BYTES);
+			hashfn.doFinal(h, 0);
 			//
 			// b) Let v_i = hashfn(h_i || A), where || denotes concatenation //NOSONAR
 			//
-			OctetString temp = new OctetString(hString);
-			temp.append(aString);
-			hashfn.update(temp.getOctets(), 0, temp.size());
-			hashfn.doFinal(vi.getOctets(), 0);
-			//
-			// 5) Let v' = v_1 || ... || v_l //NOSONAR
-			//
-			// As we create v_i, concatenate onto the previous calculations.
-			if (i == 1) {
-				vprime = new OctetString(vi);
-			}
-			else if (vprime != null) {
-				vprime.append(vi);
-			}
-			else {
-				throw new NullPointerException("vprime can't be null");
-			}
+			hashfn.update(h, 0, HASH_LENGTH_BYTES);
+			hashfn.update(a, 0, HASH_LENGTH_BYTES);
+			hashfn.doFinal(vprime, i * HASH_LENGTH_BYTES);
 		}
 		//
 		// 5) Let v = v' mod n
 		//
-		if (vprime != null) {
-			BigInteger vp = new BigInteger(1, vprime.getOctets());
-			BigInteger v = vp.mod(n);
-			return v;
-		}
-		else {
-			throw new NullPointerException("vprime can't be null");
-		}
+		return new BigInteger(1, vprime).mod(n);
 	}
 
 	/**
 	 * Implements the Tate-Lichtenbaum Pairing for elliptical points, w = \<R,Q\>. See
 	 * RFC6508 section 3.2 for more details.
 	 *
+	 * Package-private so that benchmarks can measure the pairing on its own.
+	 *
 	 * @param pointR The first elliptical point in the pairing
 	 * @param pointQ The second elliptical point in the pairing
 	 * @param params The SAKKE parameter set to use
 	 * @return The result w
 	 */
-	private static BigInteger computePairing(final ECPoint pointR, final ECPoint pointQ,
+	static BigInteger computePairing(final ECPoint pointR, final ECPoint pointQ,
 			final SakkeParameterSet params) {
 		if (!(params instanceof SakkeParameterSet1)) {
 			throw new IllegalArgumentException(
 					"Compute pairing is only valid for SAKKE parameter set 1");
 		}
 
+		// The curve arithmetic works in Jacobian coordinates, where (X, Y, Z) stands for
+		// the affine point (X / Z^2, Y / Z^3). The lines are evaluated from the
+		// projective coordinates of C directly, scaled by a power of Z, so that no
+		// field inversion is needed inside the loop. Scaling factors lie in F_p and
+		// cancel out of the final result, like the 1 / 2*C_y factor below.
+		int coord = params.curve().getCoordinateSystem();
+		if (coord != ECCurve.COORD_AFFINE && coord != ECCurve.COORD_JACOBIAN
+				&& coord != ECCurve.COORD_JACOBIAN_MODIFIED) {
+			throw new IllegalArgumentException(
+					"Compute pairing requires affine or Jacobian coordinates");
+		}
+
 		// Initialize variables v, C.
 		// Later, we use the fact that for SAKKE parameter set 1,
 		// c = (p+1)/q = 4.
-		ProjFp v = new ProjFp(BigInteger.ONE, BigInteger.ZERO, params.p());
-		ECPoint C = pointR;
-
-		BigInteger Qx = pointQ.getX().toBigInteger();
-		BigInteger Qy = pointQ.getY().toBigInteger();
-		BigInteger Rx = pointR.getX().toBigInteger();
-		BigInteger Ry = pointR.getY().toBigInteger();
-		BigInteger Cx = C.getX().toBigInteger();
-		BigInteger Cy = C.getY().toBigInteger();
+		Fp2 v = new Fp2().setOne();
+		Fp2.Scratch scratch = new Fp2.Scratch();
+		ECPoint R = pointR.normalize();
+		ECPoint Q = pointQ.normalize();
+		ECPoint C = R;
+
+		ECFieldElement Qx = Q.getAffineXCoord();
+		ECFieldElement Qy = Q.getAffineYCoord();
+		ECFieldElement Rx = R.getAffineXCoord();
+		ECFieldElement Ry = R.getAffineYCoord();
+		ECFieldElement QxPlusRx = Qx.add(Rx);
+		Fp2 T = new Fp2();
 
 		// For bits of q-1, start with the second most significant bit, ending
 		// with
@@ -371,43 +689,37 @@ public final class Sakke {
 			// of (1 / 2*C_y) to avoid division as overall factors are ignored
 			// due to form
 			// of the final result b/a
+			//
+			// With C_x = X / Z^2 and C_y = Y / Z^3, the line multiplied by Z^6 is
+			//
+			// Tx = 3 * (X^2 - Z^4) * (Qx * Z^2 + X) - 2 * Y^2
+			// Ty = 2 * Y * Z^3 * Qy
+			ECFieldElement X = C.getXCoord();
+			ECFieldElement Y = C.getYCoord();
+			ECFieldElement Z = jacobianZ(C);
+			ECFieldElement ZZ = Z.square();
 
-			// Calculate l = 3*(C_x^2 - 1); //NOSONAR
-			BigInteger l = Cx.modPow(ECConstants.TWO, params.p());
-			l = l.subtract(BigInteger.ONE);
-			l = l.multiply(ECConstants.THREE);
-
-			// Calculate t = Qx + Cx
-			BigInteger t = Qx.add(Cx);
-
-			// Calculate t = l * t = l * (Qx + Cx)
-			t = l.multiply(t).mod(params.p());
-
-			// Calculate Tx = Cy^2
-			BigInteger Tx = Cy.modPow(ECConstants.TWO, params.p());
-
-			// Calculate Tx = t - (2 * Tx) = l * (Qx + Cx) - 2Cy^2
-			Tx = t.subtract(Tx.shiftLeft(1));
-			Tx = Tx.mod(params.p());
+			// Calculate l = 3 * (X^2 - Z^4) = 3 * (X - Z^2) * (X + Z^2)
+			ECFieldElement l = X.subtract(ZZ).multiply(X.add(ZZ));
+			l = l.add(l).add(l);
 
-			// Calculate Ty = 2 * Cy
-			BigInteger Ty = Cy.shiftLeft(1);
+			// Calculate Tx = l * (Qx * Z^2 + X) - 2 * Y^2
+			ECFieldElement YY = Y.square();
+			ECFieldElement Tx = l.multiply(Qx.multiply(ZZ).add(X))
+					.subtract(YY.add(YY));
 
-			// Calculate Ty = Ty * Qy = 2 * Cy * Qy
-			Ty = Ty.multiply(Qy);
-			Ty = Ty.mod(params.p());
+			// Calculate Ty = 2 * Y * Z^3 * Qy
+			ECFieldElement Ty = Y.add(Y).multiply(ZZ.multiply(Z)).multiply(Qy);
 
-			ProjFp T = new ProjFp(Tx, Ty, params.p());
+			T.set(Tx, Ty);
 
 			// Calculate v = v^2 * T = v^2 * (Tx + iTy) = v^2 * (l(Qx + Cx) -
 			// 2Cy^2 - i(2 Cy Qy))
-			v = v.square();
-			v = v.multiply(T);
+			v.square(scratch);
+			v.multiply(T, scratch);
 
-			// Calculate C = 2C and refresh our Cx and Cy variables
+			// Calculate C = 2C
 			C = C.twice();
-			Cx = C.getX().toBigInteger();
-			Cy = C.getY().toBigInteger();
 
 			if (q_minus_one.testBit(N - 1)) {
 				// We are trying to calculate
@@ -429,49 +741,48 @@ public final class Sakke {
 				//
 				// The final result will only involve Ty/Tx so we do
 				// not need to calculate the 1 /(Cx-Rx) factor as this will
-				// cancel out
-
-				// Calculate Tx = Cy ( Qx + Rx )
-				Tx = Qx.add(Rx);
-				Tx = Tx.multiply(Cy);
-				Tx = Tx.mod(params.p());
-
-				// Calculate t = Ry ( Qx + Cx )
-				t = Qx.add(Cx);
-				t = t.multiply(Ry);
-				t = t.mod(params.p());
+				// cancel out. Multiplied by Z^3, in Jacobian coordinates
+				//
+				// Tx = Y (Qx + Rx) - Ry * Z * (Qx * Z^2 + X)
+				// Ty = Qy * Z * (X - Rx * Z^2)
+				X = C.getXCoord();
+				Y = C.getYCoord();
+				Z = jacobianZ(C);
+				ZZ = Z.square();
 
-				// Calculate Tx = Tx - t = Cy (Qx + Rx) - Ry (Qx + Cx)
-				Tx = Tx.subtract(t);
-				Tx = Tx.mod(params.p());
+				// Calculate Tx = Y (Qx + Rx) - Ry * Z * (Qx * Z^2 + X)
+				Tx = Y.multiply(QxPlusRx)
+						.subtract(Ry.multiply(Z).multiply(Qx.multiply(ZZ).add(X)));
 
-				// Calculate Ty = Qy (Cx - Rx)
-				Ty = Cx.subtract(Rx);
-				Ty = Ty.multiply(Qy);
-				Ty = Ty.mod(params.p());
+				// Calculate Ty = Qy * Z * (X - Rx * Z^2)
+				Ty = Qy.multiply(Z).multiply(X.subtract(Rx.multiply(ZZ)));
 
-				T = new ProjFp(Tx, Ty, params.p());
+				T.set(Tx, Ty);
 
 				// Calculate v = v * (Tx + iTy)
-				v = v.multiply(T);
+				v.multiply(T, scratch);
 
-				// Add R to C and refresh our Cx and Cy variables
-				C = C.add(pointR);
-				Cx = C.getX().toBigInteger();
-				Cy = C.getY().toBigInteger();
+				// Add R to C
+				C = C.add(R);
 			}
 
 		}
 		// Calculate v^c = v^(p+1/q), which in this case is v^4 ( or (v^2) ^2 )
-		v = v.square();
-		v = v.square();
+		v.square(scratch);
+		v.square(scratch);
 
-		// Calculate w = 1 / v_x
-		BigInteger w = v.getX1().abs().modInverse(params.p());
+		// Calculate w = v_y / v_x
+		return v.toFp(scratch);
+	}
 
-		// Calculate w = w * v_y = v_y / v_x
-		w = w.multiply(v.getX2());
-		w = w.mod(params.p());
-		return w;
+	/**
+	 * Returns the Jacobian Z coordinate of a point, which is one for affine points.
+	 *
+	 * @param point A point in affine or Jacobian coordinates
+	 * @return The Z coordinate of the point
+	 */
+	private static ECFieldElement jacobianZ(final ECPoint point) {
+		ECFieldElement Z = point.getZCoord(0);
+		return Z != null ? Z : point.getCurve().fromBigInteger(BigInteger.ONE);
 	}
 }
@@ -5,6 +5,8 @@ import java.math.BigInteger;
 import net.kapsch.kms.api.bouncycastle.crypto.Digest;
 import net.kapsch.kms.api.bouncycastle.math.ec.ECCurve;
 import net.kapsch.kms.api.bouncycastle.math.ec.ECPoint;
+import net.kapsch.kms.api.mikeysakke.utils.Fp2;
+import net.kapsch.kms.api.mikeysakke.utils.Torus;
 
 /**
  * Abstract class used to define the required parameters and useful pre calculated values
@@ -37,6 +39,42 @@ public abstract class SakkeParameterSet {
 	 */
 	public abstract ECPoint pointP();
 
+	/**
+	 * Computes [k]P. The comb table for P is computed on first use and kept with the
+	 * point, so it is shared by every later multiplication in the JVM.
+	 *
+	 * @param k The scalar, reduced modulo q as P has order q
+	 * @return The point [k]P
+	 */
+	public ECPoint multiplyP(final BigInteger k) {
+		return multiplyFixed(pointP(), k);
+	}
+
+	/**
+	 * Computes [k]Q for a point Q that is multiplied repeatedly, such as the KMS Public
+	 * Key. The comb table for Q is computed on first use and kept with the point, after
+	 * which a multiplication costs about a quarter of a WNAF multiplication. Building the
+	 * table costs about one WNAF multiplication. The table is read in constant time when
+	 * {@link FixedPointMultiplication#isConstantTime()}.
+	 *
+	 * @param point The point Q, of order q
+	 * @param k The scalar, reduced modulo q
+	 * @return The point [k]Q
+	 */
+	public ECPoint multiplyFixed(final ECPoint point, final BigInteger k) {
+		return FixedPointMultiplication.multiply(point, k.mod(q()));
+	}
+
+	/**
+	 * Builds the comb table used by {@link #multiplyFixed(ECPoint, BigInteger)} for the
+	 * point up front, rather than on its first multiplication.
+	 *
+	 * @param point The point to precompute the table for
+	 */
+	public void precomputeFixed(final ECPoint point) {
+		FixedPointMultiplication.precompute(point);
+	}
+
 	/**
 	 * The elliptic curve defined over finite field F_p. The curve follows the equation
 	 * y^2 = x^3 - 3 * x modulo p.
@@ -49,7 +87,26 @@ public abstract class SakkeParameterSet {
 	public abstract BigInteger g();
 
 	/**
-	 * The hashing algorithm to use.
+	 * The pre-calculated value g as an element of the torus, for comparisons with pairing
+	 * results.
+	 */
+	public abstract Torus gTorus();
+
+	/**
+	 * Computes g^r for the pairing value g = {@literal <P,P>}, as used for the HINT of
+	 * the SAKKE Encapsulated Data. Implementations keep a table of powers of g that is
+	 * computed on first use and shared by every later exponentiation in the JVM. The table
+	 * is read in constant time when {@link FixedPointMultiplication#isConstantTime()}.
+	 *
+	 * @param r The exponent, in [1, q)
+	 * @return The element g^r of PF_p, see {@link Fp2#toFp(Fp2.Scratch)} for its
+	 * representation in F_p
+	 */
+	public abstract Fp2 powG(BigInteger r);
+
+	/**
+	 * The hashing algorithm to use. Digests are stateful, so the returned digest belongs
+	 * to the calling thread and must not be handed to other threads.
 	 */
 	public abstract Digest hash();
 
@@ -78,4 +135,21 @@ public abstract class SakkeParameterSet {
 	 * LengthInBytes(R) ) + LengthInBytes(n) + 1.
 	 */
 	public abstract int encDataLengthBytes();
+
+	/**
+	 * The length of R when carried in compressed form 0x02 or 0x03 || x', which is
+	 * LengthInBytes(p) + 1. The compressed form is an extension of RFC 6508 for links
+	 * where both ends have agreed to it.
+	 */
+	public int rCompressedLengthBytes() {
+		return pLengthBytes() + 1;
+	}
+
+	/**
+	 * The length of the SAKKE encapsulated data when R is carried in compressed form,
+	 * which is LengthInBytes(p) + LengthInBytes(n) + 1.
+	 */
+	public int encDataCompressedLengthBytes() {
+		return rCompressedLengthBytes() + nBytes();
+	}
 }
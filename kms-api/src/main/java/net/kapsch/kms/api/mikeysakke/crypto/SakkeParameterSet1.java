@@ -4,15 +4,20 @@ import java.math.BigInteger;
 
 import net.kapsch.kms.api.bouncycastle.crypto.Digest;
 import net.kapsch.kms.api.bouncycastle.crypto.digests.SHA256Digest;
-import net.kapsch.kms.api.bouncycastle.math.ec.ECConstants;
 import net.kapsch.kms.api.bouncycastle.math.ec.ECCurve;
-import net.kapsch.kms.api.bouncycastle.math.ec.ECFieldElement;
 import net.kapsch.kms.api.bouncycastle.math.ec.ECPoint;
+import net.kapsch.kms.api.bouncycastle.math.ec.custom.sakke.SakkeP1Curve;
+import net.kapsch.kms.api.mikeysakke.utils.Fp2;
+import net.kapsch.kms.api.mikeysakke.utils.Fp2PowerTable;
+import net.kapsch.kms.api.mikeysakke.utils.Torus;
 
 /**
  * Describes a parameter set for MIKEY-SAKKE encryption using the SAKKE cryptosystem (RFC
  * 6508). Includes additional calculated information for performance. See RFC 6509 section
  * 2.1.1 paragraph 1 and RFC 6508 section 2.1, 2.3 for more details.
+ *
+ * Instances hold no state of their own and are safe for use by multiple threads, see
+ * {@link Sakke#getParamSet(int)} for the shared instance.
  */
 public class SakkeParameterSet1 extends SakkeParameterSet {
 
@@ -64,17 +69,16 @@ public class SakkeParameterSet1 extends SakkeParameterSet {
 
 	/**
 	 * The elliptic curve defined over finite field F_p. The curve follows the equation
-	 * y^2 = x^3 - 3 * x modulo p.
+	 * y^2 = x^3 - 3 * x modulo p. Its field elements are kept in Montgomery form on
+	 * fixed-width limbs rather than as BigIntegers.
 	 */
-	private static final ECCurve curve = new ECCurve.Fp(p, ECConstants.THREE.negate(),
-			ECConstants.ZERO);
+	private static final ECCurve curve = new SakkeP1Curve();
 
 	/**
 	 * The point P in the elliptic curve E(F_p) that generates the cyclic subgroup of
 	 * order q.
 	 */
-	private static final ECPoint pointP = new ECPoint.Fp(curve,
-			new ECFieldElement.Fp(p, Px), new ECFieldElement.Fp(p, Py));
+	private static final ECPoint pointP = curve.createPoint(Px, Py);
 
 	/**
 	 * The pre-calculated value of <P,P> (Tate-Lichtenbaum Pairing).
@@ -86,9 +90,19 @@ public class SakkeParameterSet1 extends SakkeParameterSet {
 			+ "3C8CAE87B7A0042ACDE0FAB36461EA46", 16);
 
 	/**
-	 * The hashing algorithm to use.
+	 * The pre-calculated value g in its torus form.
 	 */
-	private static final Digest hash = new SHA256Digest();
+	private static final Torus gTorus = new Torus(g);
+
+	/**
+	 * The hashing algorithm to use, one digest per thread as digests are stateful.
+	 */
+	private static final ThreadLocal<Digest> hash = new ThreadLocal<Digest>() {
+		@Override
+		protected Digest initialValue() {
+			return new SHA256Digest();
+		}
+	};
 
 	/**
 	 * The size of the symmetric keys in bits to be exchanged by SAKKE.
@@ -144,8 +158,16 @@ public class SakkeParameterSet1 extends SakkeParameterSet {
 		return g;
 	}
 
+	public Torus gTorus() {
+		return gTorus;
+	}
+
+	public Fp2 powG(final BigInteger r) {
+		return GPowers.TABLE.pow(r, FixedPointMultiplication.isConstantTime());
+	}
+
 	public Digest hash() {
-		return hash;
+		return hash.get();
 	}
 
 	public int n() {
@@ -163,4 +185,16 @@ public class SakkeParameterSet1 extends SakkeParameterSet {
 	public int encDataLengthBytes() {
 		return ENC_DATA_LENGTH_BYTES;
 	}
+
+	/**
+	 * Holder of the table of powers of g, built when {@link #powG(BigInteger)} is first
+	 * called.
+	 */
+	private static final class GPowers {
+
+		/**
+		 * The table of powers of g, for exponents below q.
+		 */
+		private static final Fp2PowerTable TABLE = new Fp2PowerTable(g, q.bitLength());
+	}
 }
@@ -0,0 +1,172 @@
+package net.kapsch.kms.api.mikeysakke.crypto;
+
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import net.kapsch.kms.api.bouncycastle.math.ec.ECPoint;
+import net.kapsch.kms.api.mikeysakke.utils.OctetString;
+
+/**
+ * Bounded cache of the points [b]P + Z used by SAKKE encapsulation (RFC 6508 section
+ * 6.2.1), keyed by the recipient identifier b and the KMS public key Z. A sender
+ * encapsulating repeatedly to the same recipients, for example when rekeying a group,
+ * then only pays the multiplication by the ephemeral r for every SED, which uses the
+ * comb table kept with the cached point.
+ *
+ * Identifiers are only valid within one key period, so the cache is cleared whenever
+ * {@link #setKeyPeriod(int)} is called with a new key period number. The cache is safe
+ * for use by multiple threads.
+ */
+public final class SakkeRecipientCache {
+
+	/**
+	 * Key period number the cached identifiers belong to, -1 before the first call to
+	 * {@link #setKeyPeriod(int)}.
+	 */
+	private int keyPeriodNo = -1;
+
+	/**
+	 * Whether the comb table of every cached point is built up front.
+	 */
+	private final boolean precompute;
+
+	/**
+	 * The cached points, least recently used first.
+	 */
+	private final Map<Recipient, ECPoint> points;
+
+	/**
+	 * Constructor for a cache holding the points of at most maxEntries recipients.
+	 *
+	 * @param maxEntries The maximum number of recipients to retain
+	 */
+	public SakkeRecipientCache(final int maxEntries) {
+		this(maxEntries, false);
+	}
+
+	/**
+	 * Constructor for a cache holding the points of at most maxEntries recipients. When
+	 * precompute is set, the comb table used for the multiplication by r is built when a
+	 * point is cached, rather than on its first multiplication. The table is kept with
+	 * the point either way.
+	 *
+	 * @param maxEntries The maximum number of recipients to retain
+	 * @param precompute Whether to build the comb table of each point up front
+	 */
+	public SakkeRecipientCache(final int maxEntries, final boolean precompute) {
+		if (maxEntries < 1) {
+			throw new IllegalArgumentException("maxEntries must be positive");
+		}
+		this.precompute = precompute;
+		this.points = Collections.synchronizedMap(
+				new LinkedHashMap<Recipient, ECPoint>(16, 0.75f, true) {
+					private static final long serialVersionUID = 1L;
+
+					@Override
+					protected boolean removeEldestEntry(
+							final Map.Entry<Recipient, ECPoint> eldest) {
+						return size() > maxEntries;
+					}
+				});
+	}
+
+	/**
+	 * Sets the current key period number, clearing the cache if it differs from the key
+	 * period of the cached identifiers.
+	 *
+	 * @param currentKeyPeriodNo The current key period number
+	 */
+	public synchronized void setKeyPeriod(final int currentKeyPeriodNo) {
+		if (this.keyPeriodNo != currentKeyPeriodNo) {
+			this.points.clear();
+			this.keyPeriodNo = currentKeyPeriodNo;
+		}
+	}
+
+	/**
+	 * Removes all cached points.
+	 */
+	public void clear() {
+		this.points.clear();
+	}
+
+	/**
+	 * Returns the number of cached points.
+	 *
+	 * @return The number of cached points
+	 */
+	public int size() {
+		return this.points.size();
+	}
+
+	/**
+	 * Returns the point [b]P + Z for the recipient, computing and caching it if absent.
+	 *
+	 * @param identifier The recipient identifier b
+	 * @param kmsPublicZString The KMS Public Key Z
+	 * @param params The SAKKE parameter set to use
+	 * @return The point [b]P + Z
+	 */
+	ECPoint recipientPoint(final OctetString identifier,
+			final OctetString kmsPublicZString, final SakkeParameterSet params) {
+		Recipient recipient = new Recipient(identifier, kmsPublicZString);
+		ECPoint point = this.points.get(recipient);
+		if (point == null) {
+			ECPoint Z = params.curve().decodePoint(kmsPublicZString.getOctets());
+			BigInteger b = new BigInteger(1, identifier.getOctets());
+			point = params.multiplyP(b).add(Z).normalize();
+			if (this.precompute) {
+				params.precomputeFixed(point);
+			}
+			this.points.put(recipient, point);
+		}
+		return point;
+	}
+
+	/**
+	 * Cache key formed by a recipient identifier and a KMS public key.
+	 */
+	private static final class Recipient {
+
+		/**
+		 * The recipient identifier.
+		 */
+		private final OctetString identifier;
+
+		/**
+		 * The KMS Public Key.
+		 */
+		private final OctetString kmsPublicZ;
+
+		/**
+		 * Constructor for a cache key, copying both octet strings.
+		 *
+		 * @param identifier The recipient identifier
+		 * @param kmsPublicZ The KMS Public Key
+		 */
+		Recipient(final OctetString identifier, final OctetString kmsPublicZ) {
+			this.identifier = new OctetString(identifier);
+			this.kmsPublicZ = new OctetString(kmsPublicZ);
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof Recipient)) {
+				return false;
+			}
+			Recipient other = (Recipient) o;
+			return this.identifier.equals(other.identifier)
+					&& this.kmsPublicZ.equals(other.kmsPublicZ);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * this.identifier.hashCode() + this.kmsPublicZ.hashCode();
+		}
+	}
+}
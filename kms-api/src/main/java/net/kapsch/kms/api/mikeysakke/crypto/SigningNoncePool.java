@@ -0,0 +1,184 @@
+package net.kapsch.kms.api.mikeysakke.crypto;
+
+import java.io.Closeable;
+import java.math.BigInteger;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import net.kapsch.kms.api.bouncycastle.math.ec.ECPoint;
+import net.kapsch.kms.api.mikeysakke.utils.OctetString;
+import net.kapsch.kms.api.mikeysakke.utils.RandomGenerator;
+
+/**
+ * Bounded pool of ECCSI signing nonces, pairs of an ephemeral value j and r = Jx where
+ * J = [j]G, see RFC 6507 Section 5.2.1 steps 1 and 2. These do not depend on the message
+ * or the signing keys, so a background thread computes them ahead of time and signing
+ * only has to hash the message and compute a modular inverse.
+ *
+ * Every nonce is removed from the pool when it is taken and so is used for a single
+ * signature only. When the pool is empty, a nonce is computed on the calling thread.
+ * The pool is safe for use by multiple threads.
+ */
+public final class SigningNoncePool implements Closeable {
+
+	/**
+	 * The precomputed nonces.
+	 */
+	private final BlockingQueue<Nonce> nonces;
+
+	/**
+	 * The random number generator the values j are generated with.
+	 */
+	private final RandomGenerator random;
+
+	/**
+	 * The thread filling the pool, null until the pool is started.
+	 */
+	private Thread filler;
+
+	/**
+	 * Constructor for a pool holding at most size nonces. The pool is only filled once
+	 * {@link #start()} is called.
+	 *
+	 * @param size The maximum number of precomputed nonces
+	 * @param random The random number generator to generate the values j with
+	 */
+	public SigningNoncePool(final int size, final RandomGenerator random) {
+		if (size < 1) {
+			throw new IllegalArgumentException("size must be positive");
+		}
+		this.nonces = new ArrayBlockingQueue<Nonce>(size);
+		this.random = random;
+	}
+
+	/**
+	 * Starts filling the pool on a low priority daemon thread. Has no effect if the pool
+	 * has already been started.
+	 */
+	public synchronized void start() {
+		if (this.filler != null) {
+			return;
+		}
+		this.filler = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					while (!Thread.currentThread().isInterrupted()) {
+						SigningNoncePool.this.nonces
+								.put(generate(SigningNoncePool.this.random));
+					}
+				}
+				catch (InterruptedException e) {
+					// closed
+				}
+			}
+		}, "eccsi-signing-nonce-pool");
+		this.filler.setDaemon(true);
+		this.filler.setPriority(Thread.MIN_PRIORITY);
+		this.filler.start();
+	}
+
+	/**
+	 * Stops filling the pool and discards all precomputed nonces. Later calls to
+	 * {@link #take()} compute nonces on the calling thread.
+	 */
+	@Override
+	public synchronized void close() {
+		if (this.filler != null) {
+			this.filler.interrupt();
+		}
+		this.nonces.clear();
+	}
+
+	/**
+	 * Returns the number of precomputed nonces.
+	 *
+	 * @return The number of precomputed nonces
+	 */
+	public int size() {
+		return this.nonces.size();
+	}
+
+	/**
+	 * Removes a precomputed nonce from the pool, computing one if the pool is empty.
+	 *
+	 * @return A nonce not handed out before
+	 */
+	Nonce take() {
+		Nonce nonce = this.nonces.poll();
+		return nonce != null ? nonce : generate(this.random);
+	}
+
+	/**
+	 * Generates a nonce, see RFC 6507 Section 5.2.1 steps 1 and 2.
+	 *
+	 * @param random The random number generator to generate j with
+	 * @return The nonce
+	 */
+	static Nonce generate(final RandomGenerator random) {
+		BigInteger j;
+		OctetString rand;
+		do {
+			//
+			// 1) Choose a random (ephemeral) non-zero value j in F_q
+			//
+			rand = random.generate(EccsiParameterSet.Q_LENGTH_IN_BYTES);
+
+			// ensure j is in F_q
+			j = new BigInteger(1, rand.getOctets()).mod(EccsiParameterSet.q);
+
+			// if j is zero, choose again
+		}
+		while (rand.empty() || rand.allZeroes() || j.equals(BigInteger.ZERO));
+		//
+		// 2) Compute J = (Jx,Jy) = [j]G and assign Jx to r
+		//
+		ECPoint J = EccsiParameterSet.multiplyG(j).normalize();
+		return new Nonce(j, J.getAffineXCoord().toBigInteger());
+	}
+
+	/**
+	 * An ephemeral value j with r = Jx, where J = [j]G.
+	 */
+	static final class Nonce {
+
+		/**
+		 * The ephemeral value j.
+		 */
+		private final BigInteger j;
+
+		/**
+		 * The x coordinate of [j]G.
+		 */
+		private final BigInteger r;
+
+		/**
+		 * Constructor for a nonce.
+		 *
+		 * @param j The ephemeral value j
+		 * @param r The x coordinate of [j]G
+		 */
+		Nonce(final BigInteger j, final BigInteger r) {
+			this.j = j;
+			this.r = r;
+		}
+
+		/**
+		 * Getter for the ephemeral value j.
+		 *
+		 * @return The ephemeral value j
+		 */
+		BigInteger getJ() {
+			return this.j;
+		}
+
+		/**
+		 * Getter for r, the x coordinate of [j]G.
+		 *
+		 * @return The value r
+		 */
+		BigInteger getR() {
+			return this.r;
+		}
+	}
+}
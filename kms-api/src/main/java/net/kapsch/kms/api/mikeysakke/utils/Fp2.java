@@ -0,0 +1,302 @@
+package net.kapsch.kms.api.mikeysakke.utils;
+
+import java.math.BigInteger;
+
+import net.kapsch.kms.api.bouncycastle.math.ec.ECFieldElement;
+import net.kapsch.kms.api.bouncycastle.math.ec.custom.sakke.SakkeP1Field;
+import net.kapsch.kms.api.bouncycastle.math.ec.custom.sakke.SakkeP1FieldElement;
+import net.kapsch.kms.api.bouncycastle.math.raw.Nat;
+
+/**
+ * Represents a mutable element x1 + i x2 of F_p^2 for the prime p of SAKKE parameter set
+ * 1, where i^2 = -1 as p = 3 mod 4. Both parts are kept in the Montgomery form of
+ * {@link SakkeP1Field}.
+ *
+ * Unlike {@link ProjFp}, operations change the element they are called on and take
+ * their temporary values from a {@link Scratch}, so a Miller loop or an exponentiation
+ * allocates nothing per step. Neither elements nor scratch space may be shared between
+ * threads.
+ */
+public final class Fp2 {
+
+	/**
+	 * Real part of the element, also read by {@link Fp2PowerTable} to normalise its
+	 * entries.
+	 */
+	final int[] x1;
+
+	/**
+	 * Imaginary part of the element.
+	 */
+	final int[] x2;
+
+	/**
+	 * Creates the element 0.
+	 */
+	public Fp2() {
+		this.x1 = SakkeP1Field.create();
+		this.x2 = SakkeP1Field.create();
+	}
+
+	/**
+	 * Creates an element from its parts, which are reduced modulo p.
+	 *
+	 * @param realPart The real part of the element
+	 * @param imagPart The imaginary part of the element
+	 */
+	public Fp2(final BigInteger realPart, final BigInteger imagPart) {
+		this.x1 = SakkeP1Field.fromBigInteger(realPart);
+		this.x2 = SakkeP1Field.fromBigInteger(imagPart);
+	}
+
+	/**
+	 * Creates a copy of an element.
+	 *
+	 * @param element The element to copy
+	 */
+	public Fp2(final Fp2 element) {
+		this();
+		set(element);
+	}
+
+	/**
+	 * Getter for the real part of the element.
+	 *
+	 * @return The real part of the element
+	 */
+	public BigInteger getX1() {
+		return SakkeP1Field.toBigInteger(this.x1);
+	}
+
+	/**
+	 * Getter for the imaginary part of the element.
+	 *
+	 * @return The imaginary part of the element
+	 */
+	public BigInteger getX2() {
+		return SakkeP1Field.toBigInteger(this.x2);
+	}
+
+	/**
+	 * Sets this element to the value of another element.
+	 *
+	 * @param element The element to copy
+	 * @return This element
+	 */
+	public Fp2 set(final Fp2 element) {
+		Nat.copy(SakkeP1Field.SIZE, element.x1, this.x1);
+		Nat.copy(SakkeP1Field.SIZE, element.x2, this.x2);
+		return this;
+	}
+
+	/**
+	 * Sets this element to realPart + i imagPart, given as elements of the field of
+	 * SAKKE parameter set 1.
+	 *
+	 * @param realPart The real part of the element
+	 * @param imagPart The imaginary part of the element
+	 * @return This element
+	 */
+	public Fp2 set(final ECFieldElement realPart, final ECFieldElement imagPart) {
+		((SakkeP1FieldElement) realPart).copyTo(this.x1);
+		((SakkeP1FieldElement) imagPart).copyTo(this.x2);
+		return this;
+	}
+
+	/**
+	 * Sets this element to 1.
+	 *
+	 * @return This element
+	 */
+	public Fp2 setOne() {
+		Nat.zero(SakkeP1Field.SIZE, this.x1);
+		SakkeP1Field.addOne(this.x1, this.x1);
+		Nat.zero(SakkeP1Field.SIZE, this.x2);
+		return this;
+	}
+
+	/**
+	 * Squares this element in place.
+	 *
+	 * @param scratch The scratch space to use
+	 * @return This element
+	 */
+	public Fp2 square(final Scratch scratch) {
+		// (x1 + i x2)^2 = (x1 + x2)(x1 - x2) + i (2 x1 x2)
+		SakkeP1Field.add(this.x1, this.x2, scratch.t1);
+		SakkeP1Field.subtract(this.x1, this.x2, scratch.t2);
+		SakkeP1Field.multiply(this.x1, this.x2, this.x2, scratch.tt);
+		SakkeP1Field.twice(this.x2, this.x2);
+		SakkeP1Field.multiply(scratch.t1, scratch.t2, this.x1, scratch.tt);
+		return this;
+	}
+
+	/**
+	 * Multiplies this element in place by another element, which may be this element.
+	 *
+	 * @param element The element to multiply with this element
+	 * @param scratch The scratch space to use
+	 * @return This element
+	 */
+	public Fp2 multiply(final Fp2 element, final Scratch scratch) {
+		return multiply(element.x1, element.x2, scratch);
+	}
+
+	/**
+	 * Multiplies this element in place by a1 + i a2, with the parts given in the
+	 * Montgomery form of {@link SakkeP1Field}. This is how the Miller loop multiplies by
+	 * its line values without wrapping them first.
+	 *
+	 * @param a1 The real part of the factor
+	 * @param a2 The imaginary part of the factor
+	 * @param scratch The scratch space to use
+	 * @return This element
+	 */
+	public Fp2 multiply(final int[] a1, final int[] a2, final Scratch scratch) {
+		// Karatsuba, three multiplications instead of four:
+		// (x1 + i x2)(a1 + i a2) = (x1 a1 - x2 a2) + i ((x1 + x2)(a1 + a2) - x1 a1 - x2 a2)
+		SakkeP1Field.add(this.x1, this.x2, scratch.t1);
+		SakkeP1Field.add(a1, a2, scratch.t2);
+		SakkeP1Field.multiply(scratch.t1, scratch.t2, scratch.t1, scratch.tt);
+		SakkeP1Field.multiply(this.x1, a1, scratch.t2, scratch.tt);
+		SakkeP1Field.multiply(this.x2, a2, scratch.t3, scratch.tt);
+		SakkeP1Field.subtract(scratch.t1, scratch.t2, scratch.t1);
+		SakkeP1Field.subtract(scratch.t1, scratch.t3, this.x2);
+		SakkeP1Field.subtract(scratch.t2, scratch.t3, this.x1);
+		return this;
+	}
+
+	/**
+	 * Multiplies this element in place by 1 + i t, the compressed form of an element of
+	 * PF_p whose representation in F_p is t, given in the Montgomery form of
+	 * {@link SakkeP1Field}. This takes two multiplications in F_p instead of three.
+	 *
+	 * @param t The representation of the factor in F_p
+	 * @param scratch The scratch space to use
+	 * @return This element
+	 */
+	public Fp2 multiplyCompressed(final int[] t, final Scratch scratch) {
+		// (x1 + i x2)(1 + i t) = (x1 - x2 t) + i (x2 + x1 t)
+		SakkeP1Field.multiply(this.x2, t, scratch.t1, scratch.tt);
+		SakkeP1Field.multiply(this.x1, t, scratch.t2, scratch.tt);
+		SakkeP1Field.subtract(this.x1, scratch.t1, this.x1);
+		SakkeP1Field.add(this.x2, scratch.t2, this.x2);
+		return this;
+	}
+
+	/**
+	 * Raises this element in place to the power n.
+	 *
+	 * @param n The power to raise the element to, positive
+	 * @param scratch The scratch space to use
+	 * @return This element
+	 */
+	public Fp2 modPow(final BigInteger n, final Scratch scratch) {
+		// Throw exception if being asked to raise the element to power 0
+		if (n.signum() <= 0) {
+			throw new IllegalArgumentException("Raise to power 0 not implemented.");
+		}
+
+		Fp2 base = scratch.base.set(this);
+		for (int N = n.bitLength() - 1; N != 0; --N) {
+			square(scratch);
+			if (n.testBit(N - 1)) {
+				multiply(base, scratch);
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Returns the representation x2 / x1 in F_p of this element of PF_p, see RFC 6508
+	 * section 2.1.
+	 *
+	 * @param scratch The scratch space to use
+	 * @return The value x2 / x1 mod p
+	 */
+	public BigInteger toFp(final Scratch scratch) {
+		SakkeP1Field.inv(this.x1, scratch.t1);
+		SakkeP1Field.multiply(scratch.t1, this.x2, scratch.t1, scratch.tt);
+		return SakkeP1Field.toBigInteger(scratch.t1);
+	}
+
+	/**
+	 * Returns the representations x2 / x1 in F_p of elements of PF_p, as
+	 * {@link #toFp(Scratch)} does for each element, inverting all x1 with a single field
+	 * inversion.
+	 *
+	 * @param elements The elements to convert, of which null entries are skipped
+	 * @return The values x2 / x1 mod p, null for the null elements
+	 */
+	public static BigInteger[] toFp(final Fp2[] elements) {
+		BigInteger[] results = new BigInteger[elements.length];
+		int[] indices = new int[elements.length];
+		int count = 0;
+		for (int k = 0; k < elements.length; k++) {
+			if (elements[k] != null) {
+				indices[count++] = k;
+			}
+		}
+		if (count == 0) {
+			return results;
+		}
+
+		// products[j] = x1 of the elements 0 to j
+		int[] tt = SakkeP1Field.createExt();
+		int[][] products = new int[count][];
+		products[0] = Nat.copy(SakkeP1Field.SIZE, elements[indices[0]].x1);
+		for (int j = 1; j < count; j++) {
+			products[j] = SakkeP1Field.create();
+			SakkeP1Field.multiply(products[j - 1], elements[indices[j]].x1, products[j],
+					tt);
+		}
+
+		// Walk back from the inverse of the full product, splitting off one x1 at a time
+		int[] inverse = SakkeP1Field.create();
+		SakkeP1Field.inv(products[count - 1], inverse);
+		int[] t = SakkeP1Field.create();
+		for (int j = count - 1; j > 0; j--) {
+			Fp2 element = elements[indices[j]];
+			SakkeP1Field.multiply(inverse, products[j - 1], t, tt);
+			SakkeP1Field.multiply(inverse, element.x1, inverse, tt);
+			SakkeP1Field.multiply(t, element.x2, t, tt);
+			results[indices[j]] = SakkeP1Field.toBigInteger(t);
+		}
+		SakkeP1Field.multiply(inverse, elements[indices[0]].x2, t, tt);
+		results[indices[0]] = SakkeP1Field.toBigInteger(t);
+		return results;
+	}
+
+	/**
+	 * Temporary values for the operations on {@link Fp2}, to be created once and reused
+	 * for a whole pairing or exponentiation.
+	 */
+	public static final class Scratch {
+
+		/**
+		 * Temporary field elements.
+		 */
+		private final int[] t1 = SakkeP1Field.create();
+
+		private final int[] t2 = SakkeP1Field.create();
+
+		private final int[] t3 = SakkeP1Field.create();
+
+		/**
+		 * Temporary double-length product.
+		 */
+		private final int[] tt = SakkeP1Field.createExt();
+
+		/**
+		 * Copy of the base of an exponentiation.
+		 */
+		private final Fp2 base;
+
+		/**
+		 * Creates scratch space.
+		 */
+		public Scratch() {
+			this.base = new Fp2();
+		}
+	}
+}
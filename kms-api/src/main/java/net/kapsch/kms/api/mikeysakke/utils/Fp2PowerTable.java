@@ -0,0 +1,170 @@
+package net.kapsch.kms.api.mikeysakke.utils;
+
+import java.math.BigInteger;
+
+import net.kapsch.kms.api.bouncycastle.math.ec.custom.sakke.SakkeP1Field;
+import net.kapsch.kms.api.bouncycastle.math.raw.Nat;
+
+/**
+ * Table of powers of a fixed element g of PF_p for SAKKE parameter set 1, such as the
+ * pairing value {@literal <P,P>}, from which g^r is computed with a comb in the same way
+ * as {@link net.kapsch.kms.api.bouncycastle.math.ec.FixedPointCombMultiplier} multiplies
+ * a fixed point.
+ *
+ * The exponent is split into {@link #WIDTH} interleaved blocks of d bits each, and the
+ * table holds g raised to every sum of the powers 2^(j*d) of the blocks. A power then
+ * costs d squarings and d multiplications by table entries, instead of a squaring per
+ * bit of the exponent and a multiplication per set bit. Every entry is normalised to
+ * the compressed form 1 + i t, so only t is stored and a multiplication by an entry
+ * takes two multiplications in F_p instead of three.
+ *
+ * Tables are immutable and safe for use by multiple threads.
+ */
+public final class Fp2PowerTable {
+
+	/**
+	 * The number of bits of the exponent combined into one table index.
+	 */
+	private static final int WIDTH = 8;
+
+	/**
+	 * The number of comb steps, d.
+	 */
+	private final int spacing;
+
+	/**
+	 * The representations t in F_p of the table entries, in Montgomery form, one after
+	 * the other.
+	 */
+	private final int[] entries;
+
+	/**
+	 * Builds the table for the element of PF_p with representation g in F_p, that is for
+	 * 1 + i g, and for exponents of up to the given number of bits.
+	 *
+	 * @param g The representation of the base in F_p
+	 * @param bits The maximal bit length of the exponents
+	 */
+	public Fp2PowerTable(final BigInteger g, final int bits) {
+		this.spacing = (bits + WIDTH - 1) / WIDTH;
+
+		int size = 1 << WIDTH;
+		Fp2[] powers = new Fp2[size];
+		Fp2.Scratch scratch = new Fp2.Scratch();
+
+		// powers[2^j] = g^(2^(j*d))
+		powers[0] = new Fp2().setOne();
+		powers[1] = new Fp2(BigInteger.ONE, g);
+		for (int j = 1; j < WIDTH; j++) {
+			Fp2 power = new Fp2(powers[1 << (j - 1)]);
+			for (int i = 0; i < this.spacing; i++) {
+				power.square(scratch);
+			}
+			powers[1 << j] = power;
+		}
+
+		// powers[c] = product of powers[2^j] over the bits j of c
+		for (int c = 3; c < size; c++) {
+			int top = Integer.highestOneBit(c);
+			if (c != top) {
+				powers[c] = new Fp2(powers[c ^ top]).multiply(powers[top], scratch);
+			}
+		}
+
+		this.entries = new int[size * SakkeP1Field.SIZE];
+		normalize(powers, this.entries);
+	}
+
+	/**
+	 * Computes g^r.
+	 *
+	 * @param r The exponent, of at most the number of bits given to the constructor
+	 * @param constantTime Whether every table entry is to be read at each step, so that
+	 * the memory accessed does not depend on r
+	 * @return The element g^r of PF_p, with an arbitrary x1
+	 */
+	public Fp2 pow(final BigInteger r, final boolean constantTime) {
+		int bits = this.spacing * WIDTH;
+		if (r.signum() < 0 || r.bitLength() > bits) {
+			throw new IllegalArgumentException("Exponent out of range of the table.");
+		}
+		int[] k = Nat.fromBigInteger(bits, r);
+
+		Fp2 v = new Fp2().setOne();
+		Fp2.Scratch scratch = new Fp2.Scratch();
+		int[] entry = SakkeP1Field.create();
+
+		for (int i = this.spacing - 1; i >= 0; i--) {
+			int index = 0;
+			for (int j = WIDTH - 1; j >= 0; j--) {
+				int bit = i + j * this.spacing;
+				index = (index << 1) | ((k[bit >>> 5] >>> (bit & 31)) & 1);
+			}
+
+			if (constantTime) {
+				lookup(index, entry);
+			}
+			else {
+				System.arraycopy(this.entries, index * SakkeP1Field.SIZE, entry, 0,
+						SakkeP1Field.SIZE);
+			}
+			v.square(scratch);
+			v.multiplyCompressed(entry, scratch);
+		}
+		return v;
+	}
+
+	/**
+	 * Copies a table entry while reading every entry, masking out all but the one
+	 * wanted.
+	 *
+	 * @param index The index of the entry
+	 * @param z The array to copy the entry to
+	 */
+	private void lookup(final int index, final int[] z) {
+		Nat.zero(SakkeP1Field.SIZE, z);
+		int size = 1 << WIDTH;
+		for (int c = 0, pos = 0; c < size; c++, pos += SakkeP1Field.SIZE) {
+			int mask = ((c ^ index) - 1) >> 31;
+			for (int l = 0; l < SakkeP1Field.SIZE; l++) {
+				z[l] |= this.entries[pos + l] & mask;
+			}
+		}
+	}
+
+	/**
+	 * Writes the representations x2 / x1 of the elements one after the other, inverting
+	 * all x1 with a single inversion.
+	 *
+	 * @param elements The elements, none with x1 = 0
+	 * @param z The array to write the representations to
+	 */
+	private static void normalize(final Fp2[] elements, final int[] z) {
+		int count = elements.length;
+		int[][] prefixes = new int[count][];
+		int[] tt = SakkeP1Field.createExt();
+
+		prefixes[0] = Nat.copy(SakkeP1Field.SIZE, elements[0].x1);
+		for (int i = 1; i < count; i++) {
+			prefixes[i] = SakkeP1Field.create();
+			SakkeP1Field.multiply(prefixes[i - 1], elements[i].x1, prefixes[i], tt);
+		}
+		if (SakkeP1Field.isZero(prefixes[count - 1])) {
+			throw new IllegalArgumentException("Element has no representation in F_p.");
+		}
+
+		int[] inverse = SakkeP1Field.create();
+		SakkeP1Field.inv(prefixes[count - 1], inverse);
+
+		int[] t = SakkeP1Field.create();
+		for (int i = count - 1; i > 0; i--) {
+			// 1 / x1[i] = (x1[0] ... x1[i-1]) / (x1[0] ... x1[i])
+			SakkeP1Field.multiply(inverse, prefixes[i - 1], t, tt);
+			SakkeP1Field.multiply(inverse, elements[i].x1, inverse, tt);
+			SakkeP1Field.multiply(t, elements[i].x2, t, tt);
+			System.arraycopy(t, 0, z, i * SakkeP1Field.SIZE, SakkeP1Field.SIZE);
+		}
+		SakkeP1Field.multiply(inverse, elements[0].x2, t, tt);
+		System.arraycopy(t, 0, z, 0, SakkeP1Field.SIZE);
+	}
+}
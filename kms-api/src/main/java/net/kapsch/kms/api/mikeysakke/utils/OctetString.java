@@ -78,7 +78,19 @@ public class OctetString {
 	 * @param point The elliptical curve point to store in an octet string
 	 */
 	public OctetString(final ECPoint point) {
-		byte[] encoded = point.getEncoded();
+		this(point, false);
+	}
+
+	/**
+	 * Creates an octet string representing an elliptical curve point, in compressed form
+	 * 0x02 or 0x03 || x' if requested and in uncompressed form 0x04 || x' || y'
+	 * otherwise. See RFC 6508 section 2.2 and SEC 1 section 2.3.3.
+	 *
+	 * @param point The elliptical curve point to store in an octet string
+	 * @param compressed Whether the point should be stored in compressed form
+	 */
+	public OctetString(final ECPoint point, final boolean compressed) {
+		byte[] encoded = point.getEncoded(compressed);
 		setOctets(encoded);
 	}
 
@@ -132,6 +144,30 @@ public class OctetString {
 		return result;
 	}
 
+	/**
+	 * Converts an elliptical curve point from uncompressed form 0x04 || x' || y' to
+	 * compressed form 0x02 or 0x03 || x', where the prefix carries the least significant
+	 * bit of y. Only the octets are rearranged, the point is not decoded.
+	 *
+	 * @param point The point in uncompressed form
+	 * @return The point in compressed form
+	 */
+	public static OctetString compressPoint(final OctetString point) {
+		final byte UNCOMPRESSED = 0x04;
+		final byte COMPRESSED_EVEN_Y = 0x02;
+		byte[] octets = point.octets;
+		if (octets.length < 3 || octets.length % 2 == 0 || octets[0] != UNCOMPRESSED) {
+			throw new IllegalArgumentException(
+					"Point is not in uncompressed form");
+		}
+
+		int coordinateLength = octets.length / 2;
+		OctetString result = new OctetString(coordinateLength + 1);
+		result.octets[0] = (byte) (COMPRESSED_EVEN_Y | (octets[octets.length - 1] & 1));
+		System.arraycopy(octets, 1, result.octets, 1, coordinateLength);
+		return result;
+	}
+
 	/**
 	 * Converts a hex string to a byte array.
 	 *
@@ -0,0 +1,57 @@
+package net.kapsch.kms.api.mikeysakke.utils;
+
+import java.math.BigInteger;
+
+import net.kapsch.kms.api.bouncycastle.math.ec.custom.sakke.SakkeP1Field;
+import net.kapsch.kms.api.bouncycastle.math.raw.Nat;
+
+/**
+ * Represents an element of PF_p for the prime p of SAKKE parameter set 1, such as a
+ * pairing value or g^r, by the single value t = x2 / x1 in F_p of RFC 6508 section 2.1.
+ * This is the compressed form of the algebraic torus of norm-1 elements of F_p^2, to
+ * which 1 + i t is mapped by alpha = (1 + i t) / (1 - i t). Only the value t is kept,
+ * half the size of an {@link Fp2}.
+ *
+ * Elements are immutable and safe for use by multiple threads.
+ */
+public final class Torus {
+
+	/**
+	 * The value t, in the Montgomery form of {@link SakkeP1Field}.
+	 */
+	private final int[] t;
+
+	/**
+	 * Creates the element of PF_p with representation t in F_p.
+	 *
+	 * @param t The representation x2 / x1 of the element
+	 */
+	public Torus(final BigInteger t) {
+		this.t = SakkeP1Field.fromBigInteger(t);
+	}
+
+	/**
+	 * Returns the representation x2 / x1 in F_p of this element.
+	 *
+	 * @return The value t
+	 */
+	public BigInteger toBigInteger() {
+		return SakkeP1Field.toBigInteger(this.t);
+	}
+
+	/**
+	 * Returns whether this element is the same element of PF_p as x1 + i x2, checked as
+	 * x2 = t x1 so that x1 need not be inverted.
+	 *
+	 * @param element The element to compare with
+	 * @return true if x2 / x1 = t
+	 */
+	public boolean represents(final Fp2 element) {
+		if (SakkeP1Field.isZero(element.x1)) {
+			return false;
+		}
+		int[] z = SakkeP1Field.create();
+		SakkeP1Field.multiply(this.t, element.x1, z);
+		return Nat.eq(SakkeP1Field.SIZE, z, element.x2);
+	}
+}
@@ -0,0 +1,68 @@
+package net.kapsch.kmc.api.service.mikeysakke.crypto;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.kapsch.kms.api.bouncycastle.math.ec.ECAlgorithms;
+import net.kapsch.kms.api.bouncycastle.math.ec.ECPoint;
+import net.kapsch.kms.api.mikeysakke.crypto.EccsiParameterSet;
+import net.kapsch.kms.api.mikeysakke.crypto.SakkeParameterSet1;
+
+public class ECAlgorithmsUnitTest {
+
+	private final Random random = new SecureRandom();
+
+	@Test
+	public void testSumOfMultipliesP256() {
+		// from 64 terms on P-256, sumOfMultiplies uses the bucket method
+		for (int count : new int[] { 63, 64, 65, 200 }) {
+			assertSumOfMultiplies(EccsiParameterSet.G, EccsiParameterSet.q, count, 256);
+		}
+	}
+
+	@Test
+	public void testSumOfMultipliesSakke() {
+		// from 384 terms on the SAKKE curve, sumOfMultiplies uses the bucket method, short
+		// scalars keep the single multiplications affordable
+		SakkeParameterSet1 params = new SakkeParameterSet1();
+		assertSumOfMultiplies(params.pointP(), params.q(), 384, 64);
+	}
+
+	/**
+	 * Compares sumOfMultiplies with the sum of the single multiplications, for random
+	 * points and scalars of up to the given bits, including zero, negative, repeated and
+	 * cancelling terms.
+	 */
+	private void assertSumOfMultiplies(ECPoint generator, BigInteger order, int count,
+			int bits) {
+		ECPoint step = generator.multiply(new BigInteger(256, this.random).mod(order));
+		ECPoint[] ps = new ECPoint[count];
+		BigInteger[] ks = new BigInteger[count];
+		ps[0] = step;
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				ps[i] = i % 5 == 0 ? ps[i - 1] : ps[i - 1].add(step);
+			}
+			ks[i] = i % 11 == 0 ? BigInteger.ZERO : new BigInteger(bits, this.random);
+			if (i % 3 == 0) {
+				ks[i] = ks[i].negate();
+			}
+		}
+		// the last term cancels the one before
+		ps[count - 1] = ps[count - 2].negate();
+		ks[count - 1] = ks[count - 2];
+
+		ECPoint expected = generator.getCurve().getInfinity();
+		for (int i = 0; i < count; i++) {
+			expected = expected.add(ps[i].multiply(ks[i]));
+		}
+
+		Assert.assertEquals("count " + count, expected,
+				ECAlgorithms.sumOfMultiplies(ps, ks));
+	}
+
+}
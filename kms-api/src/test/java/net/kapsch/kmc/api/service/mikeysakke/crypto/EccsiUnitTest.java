@@ -1,11 +1,22 @@
 package net.kapsch.kmc.api.service.mikeysakke.crypto;
 
+import java.math.BigInteger;
+
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import net.kapsch.kms.api.bouncycastle.crypto.digests.SHA256Digest;
+import net.kapsch.kms.api.bouncycastle.math.ec.ECCurve;
+import net.kapsch.kms.api.bouncycastle.math.ec.ECPoint;
 import net.kapsch.kms.api.mikeysakke.crypto.Eccsi;
+import net.kapsch.kms.api.mikeysakke.crypto.EccsiException;
+import net.kapsch.kms.api.mikeysakke.crypto.EccsiParameterSet;
+import net.kapsch.kms.api.mikeysakke.crypto.EccsiSigningContext;
+import net.kapsch.kms.api.mikeysakke.crypto.FixedPointMultiplication;
+import net.kapsch.kms.api.mikeysakke.crypto.SigningNoncePool;
 import net.kapsch.kms.api.mikeysakke.utils.OctetString;
+import net.kapsch.kms.api.mikeysakke.utils.RandomGeneratorImpl;
 import net.kapsch.kms.api.util.MikeySakkeUid;
 
 public class EccsiUnitTest {
@@ -168,6 +179,22 @@ public class EccsiUnitTest {
 		Assert.assertEquals(SIGNATURE, signature);
 	}
 
+	@Test
+	public void testSignConstantTime() throws Exception {
+		FixedPointMultiplication.setConstantTime(true);
+		try {
+			testValidateSigningKeysOkRfcParams();
+
+			OctetString signature = Eccsi.sign(SIGN_MESSAGE, PVT_RFC, SSK_RFC, this.hash,
+					new RandomGeneratorTestImpl());
+
+			Assert.assertEquals(SIGNATURE, signature);
+		}
+		finally {
+			FixedPointMultiplication.setConstantTime(false);
+		}
+	}
+
 	@Test
 	public void testSignEmptyHash() {
 		OctetString signature = null;
@@ -224,6 +251,54 @@ public class EccsiUnitTest {
 		Assert.assertNotEquals(SIGNATURE, signature);
 	}
 
+	@Test
+	public void testSigningContext() {
+		EccsiSigningContext context = new EccsiSigningContext(IDENTIFIER_RFC, PVT_RFC,
+				KPAK_RFC, SSK_RFC);
+
+		OctetString signature = context.sign(SIGN_MESSAGE,
+				new RandomGeneratorTestImpl());
+
+		Assert.assertEquals(SIGNATURE, signature);
+	}
+
+	@Test(expected = EccsiException.class)
+	public void testSigningContextBadSsk() {
+		// last charachter changed D -> B
+		OctetString badSsk = OctetString.fromHex(
+				"23F374AE1F4033F3E9DBDDAAEF20F4CF0B86BBD5A138A5AE9E7E006B34489A0B");
+
+		new EccsiSigningContext(IDENTIFIER_RFC, PVT_RFC, KPAK_RFC, badSsk);
+	}
+
+	@Test
+	public void testSigningNoncePool() {
+		EccsiSigningContext context = new EccsiSigningContext(IDENTIFIER_RFC, PVT_RFC,
+				KPAK_RFC, SSK_RFC);
+
+		// an idle pool computes the nonce on the calling thread
+		SigningNoncePool idlePool = new SigningNoncePool(1,
+				new RandomGeneratorTestImpl());
+		Assert.assertEquals(SIGNATURE, context.sign(SIGN_MESSAGE, idlePool));
+
+		SigningNoncePool pool = new SigningNoncePool(2, new RandomGeneratorImpl());
+		pool.start();
+		try {
+			OctetString signature1 = context.sign(SIGN_MESSAGE, pool);
+			OctetString signature2 = context.sign(SIGN_MESSAGE, pool);
+
+			Assert.assertTrue(
+					Eccsi.verify(SIGN_MESSAGE, signature1, IDENTIFIER_RFC, KPAK_RFC));
+			Assert.assertTrue(
+					Eccsi.verify(SIGN_MESSAGE, signature2, IDENTIFIER_RFC, KPAK_RFC));
+			Assert.assertNotEquals(signature1, signature2);
+		}
+		finally {
+			pool.close();
+		}
+		Assert.assertEquals(0, pool.size());
+	}
+
 	@Test
 	public void testVerify() {
 		boolean valid = Eccsi.verify(SIGN_MESSAGE, SIGNATURE, IDENTIFIER_RFC, KPAK_RFC);
@@ -284,6 +359,89 @@ public class EccsiUnitTest {
 		Assert.assertTrue(validSignature);
 	}
 
+	@Test
+	public void testVerifyCompressedSignature() {
+		OctetString compressed = Eccsi.compressSignature(SIGNATURE);
+
+		Assert.assertEquals(EccsiParameterSet.SIGNATURE_COMPRESSED_LENGTH,
+				compressed.size());
+		Assert.assertTrue(
+				Eccsi.verify(SIGN_MESSAGE, compressed, IDENTIFIER_RFC, KPAK_RFC));
+		Assert.assertArrayEquals(new boolean[] { true, true },
+				Eccsi.verifyBatch(new OctetString[] { SIGN_MESSAGE, SIGN_MESSAGE },
+						new OctetString[] { SIGNATURE, compressed },
+						new OctetString[] { IDENTIFIER_RFC, IDENTIFIER_RFC },
+						KPAK_RFC));
+		Assert.assertFalse(Eccsi.verify(OctetString.fromAscii("wrong\0"), compressed,
+				IDENTIFIER_RFC, KPAK_RFC));
+	}
+
+	@Test
+	public void testVerifyBatch() {
+		OctetString badIdentifier = OctetString.fromAscii("2011-01\0tel:+447700900123\0");
+		OctetString[] messages = { SIGN_MESSAGE, OctetString.fromAscii("wrong\0"),
+				SIGN_MESSAGE, SIGN_MESSAGE, SIGN_MESSAGE };
+		OctetString[] signatures = { SIGNATURE, SIGNATURE, SIGNATURE,
+				SIGNATURE.subString(1), SIGNATURE };
+		OctetString[] identifiers = { IDENTIFIER_RFC, IDENTIFIER_RFC, badIdentifier,
+				IDENTIFIER_RFC, IDENTIFIER_RFC };
+
+		boolean[] valid = Eccsi.verifyBatch(messages, signatures, identifiers,
+				KPAK_RFC);
+
+		Assert.assertArrayEquals(new boolean[] { true, false, false, false, true },
+				valid);
+	}
+
+	@Test
+	public void testHashPrefix() {
+		OctetString unhashed = new OctetString(EccsiParameterSet.GString);
+		unhashed.append(KPAK_RFC);
+		unhashed.append(IDENTIFIER_RFC);
+		unhashed.append(PVT_RFC);
+		byte[] expected = new byte[EccsiParameterSet.HASH_LENGTH];
+		EccsiParameterSet.hash(unhashed.getOctets(), unhashed.size(), expected);
+
+		byte[] streamed = new byte[EccsiParameterSet.HASH_LENGTH];
+		EccsiParameterSet.hash(streamed, EccsiParameterSet.GString, KPAK_RFC,
+				IDENTIFIER_RFC, PVT_RFC);
+		Assert.assertArrayEquals(expected, streamed);
+
+		SHA256Digest prefix = EccsiParameterSet.hashPrefix(EccsiParameterSet.GString,
+				KPAK_RFC);
+		for (int i = 0; i < 2; i++) {
+			byte[] prefixed = new byte[EccsiParameterSet.HASH_LENGTH];
+			EccsiParameterSet.hash(prefix, prefixed, IDENTIFIER_RFC, PVT_RFC);
+			Assert.assertArrayEquals(expected, prefixed);
+		}
+	}
+
+	@Test
+	public void testMultiplyG() {
+		BigInteger ssk = new BigInteger(1, SSK_KMS.getOctets());
+
+		Assert.assertEquals(EccsiParameterSet.G.multiply(ssk),
+				EccsiParameterSet.multiplyG(ssk));
+		Assert.assertEquals(EccsiParameterSet.G.multiply(ssk),
+				EccsiParameterSet.multiplyG(ssk.add(EccsiParameterSet.q)));
+	}
+
+	@Test
+	public void testCurveP256() {
+		ECCurve generic = new ECCurve.Fp(EccsiParameterSet.p,
+				BigInteger.valueOf(3).negate(), EccsiParameterSet.ECurve.getB()
+						.toBigInteger());
+		ECPoint G = generic.decodePoint(EccsiParameterSet.GString.getOctets());
+		BigInteger ssk = new BigInteger(1, SSK_KMS.getOctets());
+
+		Assert.assertTrue(EccsiParameterSet.G.isValid());
+		Assert.assertTrue(EccsiParameterSet.G.multiply(EccsiParameterSet.q).isInfinity());
+		Assert.assertTrue(EccsiParameterSet.ECurve.decodePoint(PVT_RFC.getOctets())
+				.isValid());
+		Assert.assertEquals(new OctetString(G.multiply(ssk)),
+				new OctetString(EccsiParameterSet.G.multiply(ssk)));
+	}
+
 	private OctetString createIdentifier() {
 		return new OctetString(MikeySakkeUid.generateUid(MCPTT_ID, KMS_URI,
 				KEY_PERIOD_LENGHT, KEY_PERIOD_OFFSET, CURRENT_KEY_PERIOD_NO).getBytes());
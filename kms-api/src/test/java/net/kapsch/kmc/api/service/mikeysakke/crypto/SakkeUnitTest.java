@@ -1,12 +1,27 @@
 package net.kapsch.kmc.api.service.mikeysakke.crypto;
 
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import net.kapsch.kms.api.bouncycastle.math.ec.ECCurve;
+import net.kapsch.kms.api.bouncycastle.math.ec.ECFieldElement;
+import net.kapsch.kms.api.bouncycastle.math.ec.ECPoint;
+import net.kapsch.kms.api.mikeysakke.crypto.FixedPointMultiplication;
 import net.kapsch.kms.api.mikeysakke.crypto.Sakke;
 import net.kapsch.kms.api.mikeysakke.crypto.SakkeException;
 import net.kapsch.kms.api.mikeysakke.crypto.SakkeParameterSet1;
+import net.kapsch.kms.api.mikeysakke.crypto.SakkeRecipientCache;
 import net.kapsch.kms.api.mikeysakke.utils.OctetString;
 import net.kapsch.kms.api.mikeysakke.utils.RandomGenerator;
 import net.kapsch.kms.api.mikeysakke.utils.RandomGeneratorImpl;
@@ -183,6 +198,26 @@ public class SakkeUnitTest {
 				ssv.equals(EXPETCED_SSV_RFC));
 	}
 
+	@Test
+	public void testGenerateSharedSecretAndSEDConstantTime() {
+		FixedPointMultiplication.setConstantTime(true);
+		try {
+			OctetString validation = new OctetString();
+			OctetString ssv = Sakke.generateSharedSecretAndSED(validation,
+					IDENTIFIER_RFC, this.parameterSet, KMS_PUBLIC_Z_RFC,
+					new SsvRandomGenerator());
+
+			Assert.assertEquals(EXPECTED_SED_RFC, validation);
+			Assert.assertEquals(EXPETCED_SSV_RFC, ssv);
+			Assert.assertEquals(EXPETCED_SSV_RFC, Sakke.extractSharedSecret(
+					EXPECTED_SED_RFC, IDENTIFIER_RFC, this.parameterSet, RSK_RFC,
+					KMS_PUBLIC_Z_RFC));
+		}
+		finally {
+			FixedPointMultiplication.setConstantTime(false);
+		}
+	}
+
 	@Test
 	public void testGenerateSharedSecretAndSEDIncorrectID() {
 		OctetString badID = OctetString.fromAscii("2011-02\0tel:+447700900124\0");
@@ -223,6 +258,28 @@ public class SakkeUnitTest {
 				ssv.equals(EXPETCED_SSV_RFC));
 	}
 
+	@Test
+	public void testGenerateSharedSecretAndSEDRecipientCache() {
+		SakkeRecipientCache cache = new SakkeRecipientCache(2, true);
+		cache.setKeyPeriod(CURRENT_KEY_PERIOD_NO);
+
+		for (int i = 0; i < 2; i++) {
+			OctetString validation = new OctetString();
+			OctetString ssv = Sakke.generateSharedSecretAndSED(validation,
+					IDENTIFIER_RFC, this.parameterSet, KMS_PUBLIC_Z_RFC,
+					new SsvRandomGenerator(), cache);
+
+			Assert.assertEquals(EXPECTED_SED_RFC, validation);
+			Assert.assertEquals(EXPETCED_SSV_RFC, ssv);
+			Assert.assertEquals(1, cache.size());
+		}
+
+		cache.setKeyPeriod(CURRENT_KEY_PERIOD_NO);
+		Assert.assertEquals(1, cache.size());
+		cache.setKeyPeriod(CURRENT_KEY_PERIOD_NO + 1);
+		Assert.assertEquals(0, cache.size());
+	}
+
 	@Test
 	public void testExtractSharedSecret() {
 		OctetString bobSSV = Sakke.extractSharedSecret(EXPECTED_SED_RFC, IDENTIFIER_RFC,
@@ -232,6 +289,34 @@ public class SakkeUnitTest {
 				bobSSV.equals(EXPETCED_SSV_RFC));
 	}
 
+	@Test
+	public void testExtractSharedSecretValidatedRSK() {
+		Assert.assertTrue("RSK validation failed", Sakke.validateReceiverSecretKey(
+				IDENTIFIER_RFC, KMS_PUBLIC_Z_RFC, RSK_RFC, this.parameterSet));
+
+		for (int i = 0; i < 2; i++) {
+			OctetString bobSSV = Sakke.extractSharedSecret(EXPECTED_SED_RFC,
+					IDENTIFIER_RFC, this.parameterSet, RSK_RFC, KMS_PUBLIC_Z_RFC);
+
+			Assert.assertEquals(EXPETCED_SSV_RFC, bobSSV);
+		}
+	}
+
+	@Test
+	public void testGenerateAndExtractSsvValidatedRSK() {
+		OctetString id = createIdentifier();
+		Assert.assertTrue("RSK validation failed",
+				Sakke.validateReceiverSecretKey(id, KMS_PUBLIC_Z, RSK, this.parameterSet));
+
+		OctetString sed = new OctetString();
+		OctetString ssv = Sakke.generateSharedSecretAndSED(sed, id, this.parameterSet,
+				KMS_PUBLIC_Z, new RandomGeneratorImpl());
+		OctetString ssvExtracted = Sakke.extractSharedSecret(sed, id, this.parameterSet,
+				RSK, KMS_PUBLIC_Z);
+
+		Assert.assertEquals(ssv, ssvExtracted);
+	}
+
 	@Test(expected = SakkeException.class)
 	public void testExtractSharedSecretIncorrectSED() {
 		OctetString badSED = OctetString
@@ -294,6 +379,204 @@ public class SakkeUnitTest {
 		Assert.assertEquals(1, sakkeTestSET.parameterSetIdentifer());
 	}
 
+	@Test
+	public void testGetParamSetShared() {
+		Assert.assertSame(Sakke.getParamSet(paramSet), Sakke.getParamSet(paramSet));
+	}
+
+	@Test
+	public void testGenerateSharedSecretAndSEDConcurrent() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<OctetString>> seds = new ArrayList<Future<OctetString>>();
+			for (int i = 0; i < 8; i++) {
+				seds.add(executor.submit(new Callable<OctetString>() {
+					@Override
+					public OctetString call() {
+						OctetString sed = new OctetString();
+						Sakke.generateSharedSecretAndSED(sed, IDENTIFIER_RFC,
+								SakkeUnitTest.this.parameterSet, KMS_PUBLIC_Z_RFC,
+								new SsvRandomGenerator());
+						return sed;
+					}
+				}));
+			}
+			for (Future<OctetString> sed : seds) {
+				Assert.assertEquals(EXPECTED_SED_RFC, sed.get());
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testGenerateSharedSecretsAndSEDs() {
+		OctetString otherId = OctetString.fromAscii("2011-02\0tel:+447700900124\0");
+		OctetString[] ids = { IDENTIFIER_RFC, otherId, IDENTIFIER_RFC };
+		SakkeRecipientCache cache = new SakkeRecipientCache(2);
+
+		OctetString[] seds = new OctetString[ids.length];
+		OctetString[] ssvs = Sakke.generateSharedSecretsAndSEDs(seds, ids,
+				this.parameterSet, KMS_PUBLIC_Z_RFC, new SsvRandomGenerator());
+		OctetString[] cachedSeds = new OctetString[ids.length];
+		Sakke.generateSharedSecretsAndSEDs(cachedSeds, ids, this.parameterSet,
+				KMS_PUBLIC_Z_RFC, new SsvRandomGenerator(), cache);
+
+		for (int i = 0; i < ids.length; i++) {
+			OctetString sed = new OctetString();
+			Sakke.generateSharedSecretAndSED(sed, ids[i], this.parameterSet,
+					KMS_PUBLIC_Z_RFC, new SsvRandomGenerator());
+			Assert.assertEquals(EXPETCED_SSV_RFC, ssvs[i]);
+			Assert.assertEquals(sed, seds[i]);
+			Assert.assertEquals(sed, cachedSeds[i]);
+		}
+		Assert.assertEquals(EXPECTED_SED_RFC, seds[0]);
+	}
+
+	@Test
+	public void testGenerateSEDs() {
+		OctetString otherId = OctetString.fromAscii("2011-02\0tel:+447700900124\0");
+		OctetString[] ids = { IDENTIFIER_RFC, otherId };
+
+		OctetString[] seds = Sakke.generateSEDs(EXPETCED_SSV_RFC, ids,
+				this.parameterSet, KMS_PUBLIC_Z_RFC, null);
+
+		Assert.assertEquals(EXPECTED_SED_RFC, seds[0]);
+		Assert.assertFalse(seds[0].equals(seds[1]));
+		Assert.assertEquals(EXPETCED_SSV_RFC, Sakke.extractSharedSecret(seds[0],
+				IDENTIFIER_RFC, this.parameterSet, RSK_RFC, KMS_PUBLIC_Z_RFC));
+	}
+
+	@Test
+	public void testGenerateSEDsForSeveralRecipients() {
+		SakkeParameterSet1 params = Sakke.getParamSet(this.parameterSet);
+
+		// KMS Master Secret of RFC 6508 Appendix A, Z = [z]P
+		BigInteger z = new BigInteger("AFF429D35F84B110D094803B3595A6E2998BC99F", 16);
+		Assert.assertEquals(new OctetString(params.pointP().multiply(z).normalize()),
+				KMS_PUBLIC_Z_RFC);
+
+		OctetString ssv = new RandomGeneratorImpl().generate(params.nBytes());
+		OctetString[] ids = new OctetString[10];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = OctetString.fromAscii("2011-02\0tel:+4477009001" + (10 + i) + "\0");
+		}
+
+		OctetString[] seds = Sakke.generateSEDs(ssv, ids, this.parameterSet,
+				KMS_PUBLIC_Z_RFC, null);
+		OctetString[] cachedSeds = Sakke.generateSEDs(ssv, ids, this.parameterSet,
+				KMS_PUBLIC_Z_RFC, new SakkeRecipientCache(4));
+
+		for (int i = 0; i < ids.length; i++) {
+			// RSK = [(b + z)^-1]P
+			BigInteger b = new BigInteger(1, ids[i].getOctets());
+			OctetString rsk = new OctetString(params.pointP()
+					.multiply(b.add(z).modInverse(params.q())).normalize());
+
+			Assert.assertEquals(cachedSeds[i], seds[i]);
+			Assert.assertEquals(ssv, Sakke.extractSharedSecret(seds[i], ids[i],
+					this.parameterSet, rsk, KMS_PUBLIC_Z_RFC));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testGenerateSEDsWrongSsvLength() {
+		Sakke.generateSEDs(OctetString.fromAscii("short"),
+				new OctetString[] { IDENTIFIER_RFC }, this.parameterSet,
+				KMS_PUBLIC_Z_RFC, null);
+	}
+
+	@Test
+	public void testExtractSharedSecretCompressed() {
+		SakkeParameterSet1 params = Sakke.getParamSet(this.parameterSet);
+		OctetString compressed = Sakke.compressEncapsulatedData(EXPECTED_SED_RFC,
+				this.parameterSet);
+
+		Assert.assertEquals(params.encDataCompressedLengthBytes(), compressed.size());
+		Assert.assertEquals(params.curve().decodePoint(
+				EXPECTED_SED_RFC.subString(0, params.rLengthBytes()).getOctets()),
+				params.curve().decodePoint(compressed
+						.subString(0, params.rCompressedLengthBytes()).getOctets()));
+		Assert.assertEquals(EXPETCED_SSV_RFC, Sakke.extractSharedSecret(compressed,
+				IDENTIFIER_RFC, this.parameterSet, RSK_RFC, KMS_PUBLIC_Z_RFC));
+	}
+
+	@Test
+	public void testMultiplyP() {
+		SakkeParameterSet1 params = Sakke.getParamSet(paramSet);
+		BigInteger b = new BigInteger(1, createIdentifier().getOctets());
+
+		Assert.assertEquals(params.pointP().multiply(b), params.multiplyP(b));
+		Assert.assertEquals(params.pointP().multiply(b),
+				params.multiplyP(b.add(params.q())));
+	}
+
+	@Test
+	public void testFieldSakkeP1() {
+		SakkeParameterSet1 params = Sakke.getParamSet(paramSet);
+		BigInteger p = params.p();
+		Random random = new SecureRandom();
+		List<BigInteger> values = new ArrayList<>();
+		values.add(BigInteger.ZERO);
+		values.add(BigInteger.ONE);
+		values.add(p.subtract(BigInteger.ONE));
+		for (int i = 0; i < 20; i++) {
+			values.add(new BigInteger(p.bitLength(), random).mod(p));
+		}
+
+		for (int i = 0; i < values.size(); i++) {
+			BigInteger a = values.get(i);
+			BigInteger b = values.get((i + 1) % values.size());
+			ECFieldElement x = params.curve().fromBigInteger(a);
+			ECFieldElement y = params.curve().fromBigInteger(b);
+
+			Assert.assertEquals(a, x.toBigInteger());
+			Assert.assertEquals(a.add(b).mod(p), x.add(y).toBigInteger());
+			Assert.assertEquals(a.subtract(b).mod(p), x.subtract(y).toBigInteger());
+			Assert.assertEquals(a.multiply(b).mod(p), x.multiply(y).toBigInteger());
+			Assert.assertEquals(a.multiply(a).mod(p), x.square().toBigInteger());
+			Assert.assertEquals(a.negate().mod(p), x.negate().toBigInteger());
+			if (a.signum() != 0) {
+				Assert.assertEquals(a.modInverse(p), x.invert().toBigInteger());
+			}
+
+			// p = 3 mod 4, so a has a square root if and only if a^((p - 1) / 2) != -1
+			ECFieldElement root = x.sqrt();
+			boolean residue = !a.modPow(p.shiftRight(1), p)
+					.equals(p.subtract(BigInteger.ONE));
+			Assert.assertEquals(residue, root != null);
+			if (root != null) {
+				Assert.assertEquals(a, root.toBigInteger().modPow(BigInteger.valueOf(2), p));
+			}
+		}
+	}
+
+	@Test
+	public void testCurveSakkeP1() {
+		SakkeParameterSet1 params = Sakke.getParamSet(paramSet);
+		ECCurve generic = new ECCurve.Fp(params.p(), BigInteger.valueOf(3).negate(),
+				BigInteger.ZERO);
+		ECPoint P = params.pointP();
+		ECPoint genericP = generic.importPoint(P);
+		Random random = new SecureRandom();
+
+		Assert.assertTrue(P.isValid());
+		Assert.assertTrue(P.multiply(params.q()).isInfinity());
+		Assert.assertEquals(new OctetString(genericP.twice()), new OctetString(P.twice()));
+		for (int i = 0; i < 5; i++) {
+			BigInteger k = new BigInteger(params.q().bitLength(), random);
+			ECPoint Q = P.multiply(k);
+			ECPoint genericQ = genericP.multiply(k);
+
+			Assert.assertEquals(new OctetString(genericQ), new OctetString(Q));
+			Assert.assertEquals(new OctetString(genericP.add(genericQ)),
+					new OctetString(P.add(Q)));
+			Assert.assertEquals(new OctetString(genericQ.twice()),
+					new OctetString(Q.twice()));
+		}
+	}
+
 	class SsvRandomGenerator implements RandomGenerator {
 		@Override
 		public OctetString generate(final int n) {
@@ -0,0 +1,64 @@
+package net.kapsch.kmc.api.service.mikeysakke.utils;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.kapsch.kms.api.mikeysakke.crypto.Sakke;
+import net.kapsch.kms.api.mikeysakke.crypto.SakkeParameterSet;
+import net.kapsch.kms.api.mikeysakke.utils.Fp2;
+import net.kapsch.kms.api.mikeysakke.utils.Fp2PowerTable;
+import net.kapsch.kms.api.mikeysakke.utils.ProjFp;
+
+public class Fp2PowerTableUnitTest {
+
+	SakkeParameterSet params = Sakke.getParamSet(1);
+
+	Random random = new Random(42);
+
+	@Test
+	public void testPow() {
+		Fp2PowerTable table = new Fp2PowerTable(params.g(), params.q().bitLength());
+		Fp2.Scratch scratch = new Fp2.Scratch();
+
+		for (int i = 0; i < 10; i++) {
+			BigInteger r = new BigInteger(params.q().bitLength(), random).mod(params.q());
+			BigInteger expected = expected(r);
+
+			Assert.assertEquals(expected, table.pow(r, false).toFp(scratch));
+			Assert.assertEquals(expected, table.pow(r, true).toFp(scratch));
+		}
+	}
+
+	@Test
+	public void testPowSmallExponents() {
+		Fp2PowerTable table = new Fp2PowerTable(params.g(), params.q().bitLength());
+		Fp2.Scratch scratch = new Fp2.Scratch();
+
+		Assert.assertEquals(params.g(), table.pow(BigInteger.ONE, false).toFp(scratch));
+		Assert.assertEquals(BigInteger.ZERO, table.pow(BigInteger.ZERO, true).toFp(scratch));
+		Assert.assertEquals(expected(BigInteger.valueOf(255)),
+				table.pow(BigInteger.valueOf(255), false).toFp(scratch));
+	}
+
+	@Test
+	public void testPowG() {
+		BigInteger r = params.q().subtract(BigInteger.ONE);
+
+		Assert.assertEquals(expected(r), params.powG(r).toFp(new Fp2.Scratch()));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPowOutOfRange() {
+		Fp2PowerTable table = new Fp2PowerTable(params.g(), 16);
+		table.pow(BigInteger.ONE.shiftLeft(16), false);
+	}
+
+	private BigInteger expected(BigInteger r) {
+		ProjFp g = new ProjFp(BigInteger.ONE, params.g(), params.p()).modPow(r);
+		return g.getX1().modInverse(params.p()).multiply(g.getX2()).mod(params.p());
+	}
+
+}
@@ -0,0 +1,105 @@
+package net.kapsch.kmc.api.service.mikeysakke.utils;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.kapsch.kms.api.bouncycastle.math.ec.custom.sakke.SakkeP1Field;
+import net.kapsch.kms.api.mikeysakke.utils.Fp2;
+import net.kapsch.kms.api.mikeysakke.utils.ProjFp;
+
+public class Fp2UnitTest {
+
+	BigInteger prime = SakkeP1Field.P_BIG;
+
+	Random random = new Random(42);
+
+	BigInteger realPart = new BigInteger(1020, random);
+	BigInteger imagPart = new BigInteger(1020, random);
+	BigInteger realPart2 = new BigInteger(1020, random);
+	BigInteger imagPart2 = new BigInteger(1020, random);
+
+	@Test
+	public void testSquare() {
+		Fp2 result = new Fp2(realPart, imagPart);
+		result.square(new Fp2.Scratch());
+
+		ProjFp rTest = new ProjFp(realPart, imagPart, prime).square();
+
+		Assert.assertEquals(rTest.getX1().mod(prime), result.getX1());
+		Assert.assertEquals(rTest.getX2().mod(prime), result.getX2());
+	}
+
+	@Test
+	public void testMultiply() {
+		Fp2 result = new Fp2(realPart, imagPart);
+		result.multiply(new Fp2(realPart2, imagPart2), new Fp2.Scratch());
+
+		ProjFp rTest = new ProjFp(realPart, imagPart, prime)
+				.multiply(new ProjFp(realPart2, imagPart2, prime));
+
+		Assert.assertEquals(rTest.getX1().mod(prime), result.getX1());
+		Assert.assertEquals(rTest.getX2().mod(prime), result.getX2());
+	}
+
+	@Test
+	public void testMultiplyBySelf() {
+		Fp2.Scratch scratch = new Fp2.Scratch();
+		Fp2 result = new Fp2(realPart, imagPart);
+		result.multiply(result, scratch);
+
+		Fp2 rTest = new Fp2(realPart, imagPart).square(scratch);
+
+		Assert.assertEquals(rTest.getX1(), result.getX1());
+		Assert.assertEquals(rTest.getX2(), result.getX2());
+	}
+
+	@Test
+	public void testModPow() {
+		BigInteger n = new BigInteger(256, random);
+
+		Fp2 result = new Fp2(realPart, imagPart).modPow(n, new Fp2.Scratch());
+
+		ProjFp rTest = new ProjFp(realPart, imagPart, prime).modPow(n);
+
+		Assert.assertEquals(rTest.getX1().mod(prime), result.getX1());
+		Assert.assertEquals(rTest.getX2().mod(prime), result.getX2());
+	}
+
+	@Test
+	public void testToFp() {
+		Fp2 element = new Fp2(realPart, imagPart);
+
+		BigInteger expected = realPart.modInverse(prime).multiply(imagPart).mod(prime);
+
+		Assert.assertEquals(expected, element.toFp(new Fp2.Scratch()));
+	}
+
+	@Test
+	public void testToFpBatch() {
+		Fp2.Scratch scratch = new Fp2.Scratch();
+		Fp2[] elements = new Fp2[] { null, new Fp2(realPart, imagPart), null,
+				new Fp2(realPart2, imagPart2), new Fp2(imagPart, realPart2), null };
+
+		BigInteger[] results = Fp2.toFp(elements);
+
+		Assert.assertEquals(elements.length, results.length);
+		for (int i = 0; i < elements.length; i++) {
+			if (elements[i] == null) {
+				Assert.assertNull(results[i]);
+			}
+			else {
+				Assert.assertEquals(elements[i].toFp(scratch), results[i]);
+			}
+		}
+		Assert.assertArrayEquals(new BigInteger[] { null }, Fp2.toFp(new Fp2[1]));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testModPowZero() {
+		new Fp2(realPart, imagPart).modPow(BigInteger.ZERO, new Fp2.Scratch());
+	}
+
+}
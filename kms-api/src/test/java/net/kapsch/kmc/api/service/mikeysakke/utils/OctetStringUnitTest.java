@@ -3,6 +3,7 @@ package net.kapsch.kmc.api.service.mikeysakke.utils;
 import org.junit.Assert;
 import org.junit.Test;
 
+import net.kapsch.kms.api.mikeysakke.crypto.EccsiParameterSet;
 import net.kapsch.kms.api.mikeysakke.utils.OctetString;
 
 public class OctetStringUnitTest {
@@ -173,4 +174,20 @@ public class OctetStringUnitTest {
 		Assert.assertEquals(octetString.getOctets().length, octetString.size());
 	}
 
+	@Test
+	public void testCompressPoint() {
+		OctetString point = new OctetString(EccsiParameterSet.G);
+
+		OctetString compressed = OctetString.compressPoint(point);
+
+		Assert.assertEquals(new OctetString(EccsiParameterSet.G, true), compressed);
+		Assert.assertEquals(EccsiParameterSet.G,
+				EccsiParameterSet.ECurve.decodePoint(compressed.getOctets()));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCompressPointNotUncompressed() {
+		OctetString.compressPoint(new OctetString(EccsiParameterSet.G, true));
+	}
+
 }
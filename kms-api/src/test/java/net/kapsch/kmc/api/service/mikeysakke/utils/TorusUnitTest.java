@@ -0,0 +1,32 @@
+package net.kapsch.kmc.api.service.mikeysakke.utils;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import net.kapsch.kms.api.mikeysakke.crypto.Sakke;
+import net.kapsch.kms.api.mikeysakke.crypto.SakkeParameterSet;
+import net.kapsch.kms.api.mikeysakke.utils.Fp2;
+import net.kapsch.kms.api.mikeysakke.utils.Torus;
+
+public class TorusUnitTest {
+
+	SakkeParameterSet params = Sakke.getParamSet(1);
+
+	Random random = new Random(42);
+
+	@Test
+	public void testRepresents() {
+		Torus g = new Torus(params.g());
+		BigInteger x1 = new BigInteger(1000, random);
+
+		Assert.assertTrue(g.represents(
+				new Fp2(x1, x1.multiply(params.g()).mod(params.p()))));
+		Assert.assertFalse(g.represents(
+				new Fp2(x1, x1.multiply(params.g()).add(BigInteger.ONE).mod(params.p()))));
+		Assert.assertFalse(g.represents(new Fp2()));
+	}
+
+}
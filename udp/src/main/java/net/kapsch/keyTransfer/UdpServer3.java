@@ -5,6 +5,9 @@ import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetAddress;
 import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 
 import javax.xml.bind.JAXBException;
 import javax.xml.stream.XMLStreamException;
@@ -12,7 +15,7 @@ import javax.xml.stream.XMLStreamException;
 import net.kapsch.kmc.api.service.ApiService;
 import net.kapsch.kmc.api.service.Client;
 import net.kapsch.kmc.api.service.GroupCallRequest;
-import net.kapsch.kmc.api.service.mikey.MikeySakkeIMessage;
+import net.kapsch.kmc.api.service.GroupKeyTransportProcessor;
 import org.bouncycastle.util.Arrays;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,11 +26,23 @@ public class UdpServer3 implements Runnable {
 	public static final String TEST3_ACCESS_TOKEN = "eyJraWQiOiJXeGplT3lZV2pwTXZUS3lTZTJvNlRnV01vM0lhalJWWXUyR2YxaVR5ZkpZIiwiYWxnIjoiUlMyNTYifQ.eyJtY3B0dF9pZCI6InRlc3QzQGV4YW1wbGUub3JnIiwic3ViIjoiYWRtaW4iLCJhdWQiOlsiaHR0cDpcL1wvbG9jYWxob3N0OjUyMjdcL2thYXMiLCJwdHQiLCJrbSIsImNtIiwiZ20iXSwic2NwIjpbIm9wZW5pZCIsIjNncHA6bWNwdHQ6cHR0X3NlcnZlciIsIjNncHA6bWNwdHQ6a2V5X21hbmFnZW1lbnRfc2VydmVyIiwiM2dwcDptY3B0dDpjb25maWdfbWFuYWdlbWVudF9zZXJ2ZXIiLCIzZ3BwOm1jcHR0Omdyb3VwX21hbmFnZW1lbnRfc2VydmVyIl0sIm5iZiI6MTUxMTI3MTk1NywiaXNzIjoiaHR0cDpcL1wvbG9jYWxob3N0OjUyMjdcL2thYXMiLCJleHAiOjE4MjY2MzE5NTcsImlhdCI6MTUxMTI3MTk1NywianRpIjoiMjQzMzA4ZWItNWZjNi00MWM0LWJmNDItNDNmZTNjMjM0OTBkIiwiY2lkIjoiZGUyYmNmZjItNzQxZi00NTE0LThiMDEtMDcxOTg3NjU5ZjNlIn0.Ei9sZL3PwsNCpWg8CockTE3XL50FeMk5sSthnHQHcIQvMEp16aVKcIwrlhGRtzZht3DNRIifkw6SRataPRhOdOGO4mxLZJs0jry7QQfYlmPRxc1paBqTeTjT3C-mK86j9YspdsRtmo6P4eAhr4VXnrySUemd7udRtCe_82cjNbWSLyuOVg4CwGfr8eh20nxU0wAjJShXDFj_BU6fUaLfrGg4U4wQ3aw04QHRjiQu9pwYiDe8aTXOZ4HAqrdhFAivhzl4mB7QJQICfp7Khe80pj1SZbiCRixUM8dw34iVX6zZgE8uX-0Ozg5DobpN14DGTCq_7WATVhD1tXO-djfQ4A";
 	private final static String MCPTT_GROUP_ID_3 = "test3@example.org";
 
+	/*
+	 * How long a receive waits before checking whether the server is stopped
+	 */
+	private static final int RECEIVE_TIMEOUT_MILLIS = 1000;
+
+	/*
+	 * How long the messages already received may take to be answered on stop
+	 */
+	private static final int SHUTDOWN_TIMEOUT_SECONDS = 10;
+
 	private ApiService apiService = new ApiService(TEST3_ACCESS_TOKEN);
 	private Client client = new Client(MCPTT_GROUP_ID_3, apiService);
 
 	private DatagramSocket serverSocket;
 
+	private volatile boolean running = true;
+
 	private byte[] in;
 	private byte[] out;
 
@@ -36,6 +51,7 @@ public class UdpServer3 implements Runnable {
 	 */
 	public UdpServer3() throws SocketException{
 		serverSocket = new DatagramSocket(10000);
+		serverSocket.setSoTimeout(RECEIVE_TIMEOUT_MILLIS);
 	}
 
 	public void run() {
@@ -51,53 +67,92 @@ public class UdpServer3 implements Runnable {
 		catch (XMLStreamException e) {
 			e.printStackTrace();
 		}
-		while(true){
-			try {
-				in = new byte[1024];
-				out = new byte[1024];
-
-				/*
-				 * Create our inbound datagram packet
-				 */
-				DatagramPacket receivedPacket = new DatagramPacket(in, in.length);
-				serverSocket.receive(receivedPacket);
-
-				/*
-				 * Get the data from the packet we've just received and decrypt it
-				 */
-				byte[] encryptedText = receivedPacket.getData();
-				byte[] cropped = Arrays.copyOfRange(encryptedText, 0, receivedPacket.getLength());
-				MikeySakkeIMessage iMessage = MikeySakkeIMessage.decode(cropped);
-
-				GroupCallRequest decrypted = this.client.processGroupKeyTransportMessage(iMessage);
-				String text = decrypted.getKeyPair().toString();
-
-				out = text.toUpperCase().getBytes();
-				System.out.println("String Received: " + text.trim());
-
-				/*
-				 * Retrieve the IP Address and port number of the datagram packet
-				 * we've just received
-				 */
-				InetAddress IPAddress = receivedPacket.getAddress();
-				int port = receivedPacket.getPort();
-
-				/*
-				 * Create a DatagramPacket which will return our message back to the last system
-				 * that we received from
-				 */
-				DatagramPacket sendPacket = new DatagramPacket(in, in.length, IPAddress, port);
-				serverSocket.send(sendPacket);
-			} catch (IOException e) {
-				logger.info("Exception thrown: " + e.getLocalizedMessage());
-			}
-//			catch (MikeyException e) {
-//				e.printStackTrace();
-//			}
-			catch (Exception e) {
-				e.printStackTrace();
+		try (GroupKeyTransportProcessor processor = new GroupKeyTransportProcessor(client)) {
+			while (running) {
+				try {
+					in = new byte[1024];
+					out = new byte[1024];
+
+					/*
+					 * Create our inbound datagram packet
+					 */
+					DatagramPacket receivedPacket = new DatagramPacket(in, in.length);
+					serverSocket.receive(receivedPacket);
+
+					/*
+					 * Get the data from the packet we've just received and decrypt it
+					 */
+					byte[] encryptedText = receivedPacket.getData();
+					byte[] cropped = Arrays.copyOfRange(encryptedText, 0, receivedPacket.getLength());
+
+					/*
+					 * Retrieve the IP Address and port number of the datagram packet
+					 * we've just received
+					 */
+					final InetAddress IPAddress = receivedPacket.getAddress();
+					final int port = receivedPacket.getPort();
+					final byte[] received = in;
+
+					/*
+					 * Verify and decrypt the message off the receive loop, and answer once
+					 * it is processed
+					 */
+					processor.process(cropped).whenComplete(new BiConsumer<GroupCallRequest, Throwable>() {
+						@Override
+						public void accept(GroupCallRequest decrypted, Throwable failure) {
+							if (failure != null) {
+								logger.info("Exception thrown: " + failure.getLocalizedMessage());
+								return;
+							}
+							logger.info("String Received: " + decrypted.getKeyPair().toString());
+
+							/*
+							 * Create a DatagramPacket which will return our message back to the last system
+							 * that we received from
+							 */
+							DatagramPacket sendPacket = new DatagramPacket(received, received.length, IPAddress, port);
+							try {
+								serverSocket.send(sendPacket);
+							}
+							catch (IOException e) {
+								logger.info("Exception thrown: " + e.getLocalizedMessage());
+							}
+						}
+					});
+				}
+				catch (SocketTimeoutException e) {
+					// nothing received, check whether the server is stopped
+				}
+				catch (IOException e) {
+					logger.info("Exception thrown: " + e.getLocalizedMessage());
+				}
+//				catch (MikeyException e) {
+//					e.printStackTrace();
+//				}
+				catch (Exception e) {
+					e.printStackTrace();
+				}
+
 			}
 
+			/*
+			 * Answer the messages already received before closing the socket
+			 */
+			processor.close();
+			processor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
 		}
+		finally {
+			serverSocket.close();
+		}
+	}
+
+	/*
+	 * Stops receiving messages, the messages already received are still answered
+	 */
+	public void stop() {
+		running = false;
 	}
 }
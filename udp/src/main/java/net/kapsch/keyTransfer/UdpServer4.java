@@ -5,6 +5,9 @@ import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetAddress;
 import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 
 import javax.xml.bind.JAXBException;
 import javax.xml.stream.XMLStreamException;
@@ -12,7 +15,7 @@ import javax.xml.stream.XMLStreamException;
 import net.kapsch.kmc.api.service.ApiService;
 import net.kapsch.kmc.api.service.Client;
 import net.kapsch.kmc.api.service.GroupCallRequest;
-import net.kapsch.kmc.api.service.mikey.MikeySakkeIMessage;
+import net.kapsch.kmc.api.service.GroupKeyTransportProcessor;
 import org.bouncycastle.util.Arrays;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,11 +26,23 @@ public class UdpServer4 implements Runnable {
 	public static final String TEST4_ACCESS_TOKEN = "";
 	private final static String MCPTT_GROUP_ID_4 = "test4@example.org";
 
+	/*
+	 * How long a receive waits before checking whether the server is stopped
+	 */
+	private static final int RECEIVE_TIMEOUT_MILLIS = 1000;
+
+	/*
+	 * How long the messages already received may take to be answered on stop
+	 */
+	private static final int SHUTDOWN_TIMEOUT_SECONDS = 10;
+
 	private ApiService apiService = new ApiService(TEST4_ACCESS_TOKEN);
 	private Client client = new Client(MCPTT_GROUP_ID_4, apiService);
 
 	private DatagramSocket serverSocket;
 
+	private volatile boolean running = true;
+
 	private byte[] in;
 	private byte[] out;
 
@@ -36,6 +51,7 @@ public class UdpServer4 implements Runnable {
 	 */
 	public UdpServer4() throws SocketException{
 		serverSocket = new DatagramSocket(20000);
+		serverSocket.setSoTimeout(RECEIVE_TIMEOUT_MILLIS);
 	}
 
 	public void run() {
@@ -51,53 +67,92 @@ public class UdpServer4 implements Runnable {
 		catch (XMLStreamException e) {
 			e.printStackTrace();
 		}
-		while(true){
-			try {
-				in = new byte[1024];
-				out = new byte[1024];
-
-				/*
-				 * Create our inbound datagram packet
-				 */
-				DatagramPacket receivedPacket = new DatagramPacket(in, in.length);
-				serverSocket.receive(receivedPacket);
-
-				/*
-				 * Get the data from the packet we've just received and decrypt it
-				 */
-				byte[] encryptedText = receivedPacket.getData();
-				byte[] cropped = Arrays.copyOfRange(encryptedText, 0, receivedPacket.getLength());
-				MikeySakkeIMessage iMessage = MikeySakkeIMessage.decode(cropped);
-
-				GroupCallRequest decrypted = this.client.processGroupKeyTransportMessage(iMessage);
-				String text = decrypted.getKeyPair().toString();
-
-				out = text.toUpperCase().getBytes();
-				System.out.println("String Received: " + text.trim());
-
-				/*
-				 * Retrieve the IP Address and port number of the datagram packet
-				 * we've just received
-				 */
-				InetAddress IPAddress = receivedPacket.getAddress();
-				int port = receivedPacket.getPort();
-
-				/*
-				 * Create a DatagramPacket which will return our message back to the last system
-				 * that we received from
-				 */
-				DatagramPacket sendPacket = new DatagramPacket(in, in.length, IPAddress, port);
-				serverSocket.send(sendPacket);
-			} catch (IOException e) {
-				logger.info("Exception thrown: " + e.getLocalizedMessage());
-			}
-//			catch (MikeyException e) {
-//				e.printStackTrace();
-//			}
-			catch (Exception e) {
-				e.printStackTrace();
+		try (GroupKeyTransportProcessor processor = new GroupKeyTransportProcessor(client)) {
+			while (running) {
+				try {
+					in = new byte[1024];
+					out = new byte[1024];
+
+					/*
+					 * Create our inbound datagram packet
+					 */
+					DatagramPacket receivedPacket = new DatagramPacket(in, in.length);
+					serverSocket.receive(receivedPacket);
+
+					/*
+					 * Get the data from the packet we've just received and decrypt it
+					 */
+					byte[] encryptedText = receivedPacket.getData();
+					byte[] cropped = Arrays.copyOfRange(encryptedText, 0, receivedPacket.getLength());
+
+					/*
+					 * Retrieve the IP Address and port number of the datagram packet
+					 * we've just received
+					 */
+					final InetAddress IPAddress = receivedPacket.getAddress();
+					final int port = receivedPacket.getPort();
+					final byte[] received = in;
+
+					/*
+					 * Verify and decrypt the message off the receive loop, and answer once
+					 * it is processed
+					 */
+					processor.process(cropped).whenComplete(new BiConsumer<GroupCallRequest, Throwable>() {
+						@Override
+						public void accept(GroupCallRequest decrypted, Throwable failure) {
+							if (failure != null) {
+								logger.info("Exception thrown: " + failure.getLocalizedMessage());
+								return;
+							}
+							logger.info("String Received: " + decrypted.getKeyPair().toString());
+
+							/*
+							 * Create a DatagramPacket which will return our message back to the last system
+							 * that we received from
+							 */
+							DatagramPacket sendPacket = new DatagramPacket(received, received.length, IPAddress, port);
+							try {
+								serverSocket.send(sendPacket);
+							}
+							catch (IOException e) {
+								logger.info("Exception thrown: " + e.getLocalizedMessage());
+							}
+						}
+					});
+				}
+				catch (SocketTimeoutException e) {
+					// nothing received, check whether the server is stopped
+				}
+				catch (IOException e) {
+					logger.info("Exception thrown: " + e.getLocalizedMessage());
+				}
+//				catch (MikeyException e) {
+//					e.printStackTrace();
+//				}
+				catch (Exception e) {
+					e.printStackTrace();
+				}
+
 			}
 
+			/*
+			 * Answer the messages already received before closing the socket
+			 */
+			processor.close();
+			processor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
 		}
+		finally {
+			serverSocket.close();
+		}
+	}
+
+	/*
+	 * Stops receiving messages, the messages already received are still answered
+	 */
+	public void stop() {
+		running = false;
 	}
 }